@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.fit.factory.UimaContextFactory;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tudarmstadt.ukp.dariah.benchmark.SyntheticDocuments;
+
+/**
+ * Counts the frequencies of the POS tags of a document, once by parsing the tab separated
+ * output of the DARIAHWriter and once from the columnar output, which only loads the POS
+ * column. The sizes of both outputs are printed during the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ColumnarDocumentBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int tokens;
+
+	private File folder;
+	private File tsvFile;
+	private File columnarFile;
+
+	@Setup
+	public void setup() throws Exception {
+		JCas jCas = SyntheticDocuments.createAnnotated(tokens);
+		folder = Files.createTempDirectory("ddw-benchmark").toFile();
+		tsvFile = new File(folder, "document.csv");
+		columnarFile = new File(folder, "document"+ColumnarWriter.FILENAME_SUFFIX);
+
+		DARIAHWriter writer = new DARIAHWriter();
+		writer.initialize(UimaContextFactory.createUimaContext(DARIAHWriter.PARAM_TARGET_LOCATION, folder.getPath()));
+		try(PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(tsvFile), StandardCharsets.UTF_8))) {
+			writer.convert(jCas, out);
+		}
+
+		ColumnarWriter columnarWriter = new ColumnarWriter();
+		columnarWriter.initialize(UimaContextFactory.createUimaContext(DARIAHWriter.PARAM_TARGET_LOCATION, folder.getPath()));
+		columnarWriter.write(jCas, new FileOutputStream(columnarFile));
+
+		System.out.println("TSV: "+tsvFile.length()+" bytes, columnar: "+columnarFile.length()+" bytes");
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(folder);
+	}
+
+	@Benchmark
+	public Map<String, Integer> posFrequenciesTsv() throws Exception {
+		Map<String, Integer> frequencies = new HashMap<>();
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(tsvFile), StandardCharsets.UTF_8))) {
+			int column = Arrays.asList(in.readLine().split("\t")).indexOf("POS");
+			String line;
+			while((line = in.readLine()) != null) {
+				String pos = line.split("\t")[column];
+				Integer count = frequencies.get(pos);
+				frequencies.put(pos, (count == null) ? 1 : count+1);
+			}
+		}
+		return frequencies;
+	}
+
+	@Benchmark
+	public Map<String, Integer> posFrequenciesColumnar() throws Exception {
+		ColumnarDocument document = ColumnarDocument.read(columnarFile, "POS");
+		String[] dictionary = document.getDictionary("POS");
+		int[] counts = new int[dictionary.length];
+		for(int code : document.getCodes("POS")) {
+			counts[code]++;
+		}
+		Map<String, Integer> frequencies = new HashMap<>();
+		for(int i = 0; i < dictionary.length; i++) {
+			frequencies.put(dictionary[i], counts[i]);
+		}
+		return frequencies;
+	}
+}
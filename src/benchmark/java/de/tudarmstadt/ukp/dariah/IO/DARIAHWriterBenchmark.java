@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullWriter;
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.factory.UimaContextFactory;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tudarmstadt.ukp.dariah.benchmark.SyntheticDocuments;
+
+/**
+ * Converts documents with all annotation layers, or only with paragraphs, sentences
+ * and tokens as in the light mode, to the output format. The output is discarded,
+ * so only the conversion itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class DARIAHWriterBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	public int tokens;
+
+	@Param({"true", "false"})
+	public boolean annotated;
+
+	private JCas jCas;
+	private DARIAHWriter writer;
+	private PrintWriter out;
+
+	@Setup
+	public void setup() throws Exception {
+		jCas = annotated ? SyntheticDocuments.createAnnotated(tokens) : SyntheticDocuments.createSegmented(tokens);
+
+		writer = new DARIAHWriter();
+		writer.initialize(UimaContextFactory.createUimaContext(
+				DARIAHWriter.PARAM_TARGET_LOCATION, Files.createTempDirectory("ddw-benchmark").toString()));
+		out = new PrintWriter(new NullWriter());
+	}
+
+	@Benchmark
+	public void convert() throws UIMAException {
+		writer.convert(jCas, out);
+	}
+}
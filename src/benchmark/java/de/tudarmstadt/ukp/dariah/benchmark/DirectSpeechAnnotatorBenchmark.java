@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.benchmark;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tudarmstadt.ukp.dariah.annotator.DirectSpeechAnnotator;
+import de.tudarmstadt.ukp.dariah.type.DirectSpeech;
+
+/**
+ * Marks the direct speech in a document in which every third sentence is quoted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DirectSpeechAnnotatorBenchmark {
+
+	@Param({"1000", "100000"})
+	public int tokens;
+
+	private AnalysisEngine annotator;
+	private JCas jCas;
+
+	@Setup
+	public void setup() throws UIMAException {
+		annotator = createEngine(DirectSpeechAnnotator.class,
+				DirectSpeechAnnotator.PARAM_START_QUOTE, "»\"„");
+		jCas = SyntheticDocuments.createSegmented(tokens);
+	}
+
+	@Benchmark
+	public void process() throws UIMAException {
+		annotator.process(jCas);
+	}
+
+	@TearDown(Level.Invocation)
+	public void removeDirectSpeech() {
+		jCas.getCas().getIndexRepository().removeAllIncludingSubtypes(JCasUtil.getType(jCas, DirectSpeech.class));
+	}
+}
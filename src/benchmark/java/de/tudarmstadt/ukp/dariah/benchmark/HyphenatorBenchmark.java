@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.davidashen.text.Hyphenator;
+import net.davidashen.util.ErrorHandler;
+
+/**
+ * Hyphenates the words of a text with different hyphenation tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HyphenatorBenchmark {
+
+	@Param({"de-1996", "de-1901", "en-us", "en-gb"})
+	public String table;
+
+	private Hyphenator hyphenator;
+	private List<String> words;
+
+	@Setup
+	public void setup() throws IOException {
+		hyphenator = new Hyphenator();
+		// The tables contain TeX commands the hyphenator skips with a warning
+		hyphenator.setErrorHandler(new ErrorHandler() {
+			public void debug(String guard, String s) {}
+			public void info(String s) {}
+			public void warning(String s) {}
+			public void error(String s) {System.err.println("ERROR: "+s);}
+			public void exception(String s, Exception e) {System.err.println("ERROR: "+s);}
+			public boolean isDebugged(String guard) {return false;}
+		});
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream("configs/hyphenation/hyph-"+table+".tex"), StandardCharsets.UTF_8))) {
+			hyphenator.loadTable(in);
+		}
+
+		// The same words for all tables, so that the tables can be compared
+		File textFile = new File("src/test/resources/kurz/EffiBriestKurz.txt");
+		words = new ArrayList<>();
+		for(String word : new String(Files.readAllBytes(textFile.toPath()), StandardCharsets.UTF_8).split("[^\\p{L}-]+")) {
+			if(!word.isEmpty()) {
+				words.add(word);
+			}
+		}
+	}
+
+	@Benchmark
+	public void hyphenate(Blackhole blackhole) {
+		for(String word : words) {
+			blackhole.consume(hyphenator.hyphenate(word));
+		}
+	}
+}
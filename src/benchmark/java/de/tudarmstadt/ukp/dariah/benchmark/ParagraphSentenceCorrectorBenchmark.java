@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.benchmark;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.tudarmstadt.ukp.dariah.annotator.ParagraphSentenceCorrector;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+
+/**
+ * Splits sentences at paragraph boundaries. In the benchmark document, the last
+ * sentence of every paragraph runs into the next paragraph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParagraphSentenceCorrectorBenchmark {
+
+	@Param({"1000", "100000"})
+	public int tokens;
+
+	private AnalysisEngine corrector;
+	private JCas jCas;
+	private List<int[]> sentences;
+
+	@Setup
+	public void setup() throws UIMAException {
+		corrector = createEngine(ParagraphSentenceCorrector.class);
+		jCas = SyntheticDocuments.createSegmented(tokens);
+
+		// Merge the last sentence of each paragraph with the first sentence of the next one
+		List<Sentence> original = new ArrayList<>(JCasUtil.select(jCas, Sentence.class));
+		sentences = new ArrayList<>();
+		for(int i=0; i<original.size(); i++) {
+			int begin = original.get(i).getBegin();
+			if(i % SyntheticDocuments.SENTENCES_PER_PARAGRAPH == SyntheticDocuments.SENTENCES_PER_PARAGRAPH-1 && i+1 < original.size()) {
+				i++;
+			}
+			sentences.add(new int[] {begin, original.get(i).getEnd()});
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void resetSentences() {
+		jCas.getCas().getIndexRepository().removeAllIncludingSubtypes(JCasUtil.getType(jCas, Sentence.class));
+		for(int[] offsets : sentences) {
+			new Sentence(jCas, offsets[0], offsets[1]).addToIndexes();
+		}
+	}
+
+	@Benchmark
+	public void process() throws UIMAException {
+		corrector.process(jCas);
+	}
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+
+import de.tudarmstadt.ukp.dariah.type.DirectSpeech;
+import de.tudarmstadt.ukp.dariah.type.Hyphenation;
+import de.tudarmstadt.ukp.dariah.type.Section;
+import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceChain;
+import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceLink;
+import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.morph.Morpheme;
+import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.ner.type.NamedEntity;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Lemma;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Paragraph;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import de.tudarmstadt.ukp.dkpro.core.api.semantics.type.SemanticArgument;
+import de.tudarmstadt.ukp.dkpro.core.api.semantics.type.SemanticPredicate;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.chunk.Chunk;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.constituent.Constituent;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.constituent.ROOT;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.Dependency;
+
+/**
+ * Builds documents of a given number of tokens for the benchmarks. Every third
+ * sentence is direct speech, and the paragraphs are separated by blank lines.
+ */
+public final class SyntheticDocuments {
+
+	public static final int TOKENS_PER_SENTENCE = 15;
+	public static final int SENTENCES_PER_PARAGRAPH = 10;
+
+	private static final String[] WORDS = {
+		"Effi", "stand", "am", "Fenster", "und", "sah", "hinaus", "in", "den", "Garten",
+		"der", "Herbst", "kam", "früh", "Innstetten", "sagte", "nichts", "Hohen-Cremmen",
+		"Mittagsstille", "lag", "über", "dem", "Herrenhause", "Briest", "Schaukel"
+	};
+
+	private SyntheticDocuments() {
+	}
+
+	/**
+	 * Creates a document with paragraphs, sentences and tokens
+	 */
+	public static JCas createSegmented(int tokenCount) throws UIMAException {
+		return create(tokenCount, false);
+	}
+
+	/**
+	 * Creates a document with all layers the DARIAHWriter writes: POS, lemma, morphology,
+	 * hyphenation, chunks, named entities, direct speech, sections, dependencies,
+	 * constituents, coreference chains and semantic roles.
+	 */
+	public static JCas createAnnotated(int tokenCount) throws UIMAException {
+		return create(tokenCount, true);
+	}
+
+	private static JCas create(int tokenCount, boolean allLayers) throws UIMAException {
+		JCas jCas = JCasFactory.createJCas();
+		StringBuilder text = new StringBuilder();
+		List<int[]> tokens = new ArrayList<>();
+		List<int[]> sentences = new ArrayList<>();
+		List<int[]> paragraphs = new ArrayList<>();
+
+		int paragraphBegin = 0;
+		for(int t=0; t<tokenCount; ) {
+			int sentenceIndex = sentences.size();
+			boolean directSpeech = sentenceIndex % 3 == 1;
+			if(directSpeech) {
+				text.append('»');
+			}
+			int sentenceBegin = text.length();
+			for(int i=0; i<TOKENS_PER_SENTENCE && t<tokenCount; i++, t++) {
+				if(i > 0) {
+					text.append(' ');
+				}
+				int begin = text.length();
+				text.append(WORDS[(t * 7 + sentenceIndex) % WORDS.length]);
+				tokens.add(new int[] {begin, text.length()});
+			}
+			text.append('.');
+			tokens.add(new int[] {text.length()-1, text.length()});
+			t++;
+			sentences.add(new int[] {sentenceBegin, text.length()});
+			if(directSpeech) {
+				text.append('«');
+			}
+
+			if(sentences.size() % SENTENCES_PER_PARAGRAPH == 0 || t >= tokenCount) {
+				paragraphs.add(new int[] {paragraphBegin, text.length()});
+				text.append("\n\n");
+				paragraphBegin = text.length();
+			} else {
+				text.append(' ');
+			}
+		}
+
+		jCas.setDocumentText(text.toString());
+		jCas.setDocumentLanguage("de");
+		DocumentMetaData metaData = DocumentMetaData.create(jCas);
+		metaData.setDocumentId("synthetic-"+tokenCount);
+
+		for(int[] p : paragraphs) {
+			new Paragraph(jCas, p[0], p[1]).addToIndexes();
+		}
+		for(int[] s : sentences) {
+			new Sentence(jCas, s[0], s[1]).addToIndexes();
+		}
+		for(int[] t : tokens) {
+			new Token(jCas, t[0], t[1]).addToIndexes();
+		}
+
+		if(allLayers) {
+			addLayers(jCas);
+		}
+		return jCas;
+	}
+
+	private static void addLayers(JCas jCas) {
+		int section = 0;
+		for(Paragraph paragraph : JCasUtil.select(jCas, Paragraph.class)) {
+			Section s = new Section(jCas, paragraph.getBegin(), paragraph.getEnd());
+			s.setValue("/TEI/text/body/p["+(++section)+"]");
+			s.addToIndexes();
+		}
+
+		CoreferenceLink[] lastLinks = new CoreferenceLink[3];
+		int tokenIndex = 0;
+		for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
+			List<Token> tokens = JCasUtil.selectCovered(Token.class, sentence);
+
+			if(jCas.getDocumentText().charAt(Math.max(sentence.getBegin()-1, 0)) == '»') {
+				new DirectSpeech(jCas, sentence.getBegin(), sentence.getEnd()).addToIndexes();
+			}
+
+			ROOT root = new ROOT(jCas, sentence.getBegin(), sentence.getEnd());
+			root.setConstituentType("ROOT");
+			Constituent clause = new Constituent(jCas, sentence.getBegin(), sentence.getEnd());
+			clause.setConstituentType("S");
+			clause.setParent(root);
+			root.setChildren(new FSArray(jCas, 1));
+			root.setChildren(0, clause);
+			clause.setChildren(new FSArray(jCas, tokens.size()));
+
+			for(int i=0; i<tokens.size(); i++, tokenIndex++) {
+				Token token = tokens.get(i);
+				String word = token.getCoveredText();
+
+				POS pos = new POS(jCas, token.getBegin(), token.getEnd());
+				pos.setPosValue(i == tokens.size()-1 ? "$." : (i % 2 == 0 ? "NN" : "VVFIN"));
+				pos.addToIndexes();
+				token.setPos(pos);
+
+				Lemma lemma = new Lemma(jCas, token.getBegin(), token.getEnd());
+				lemma.setValue(word.toLowerCase());
+				lemma.addToIndexes();
+				token.setLemma(lemma);
+
+				Morpheme morpheme = new Morpheme(jCas, token.getBegin(), token.getEnd());
+				morpheme.setMorphTag("case=nom|number=sg|gender=fem");
+				morpheme.addToIndexes();
+
+				Hyphenation hyphenation = new Hyphenation(jCas, token.getBegin(), token.getEnd());
+				hyphenation.setValue(word);
+				hyphenation.addToIndexes();
+
+				Dependency dependency = new Dependency(jCas, token.getBegin(), token.getEnd());
+				dependency.setDependent(token);
+				dependency.setGovernor(i == 0 ? token : tokens.get(0));
+				dependency.setDependencyType(i == 0 ? "ROOT" : "nk");
+				dependency.addToIndexes();
+
+				token.setParent(clause);
+				clause.setChildren(i, token);
+
+				if(i % 3 == 0 && i+1 < tokens.size()) {
+					Chunk chunk = new Chunk(jCas, token.getBegin(), tokens.get(i+1).getEnd());
+					chunk.setChunkValue("NP");
+					chunk.addToIndexes();
+				}
+
+				if(tokenIndex % 10 == 0) {
+					NamedEntity ne = new NamedEntity(jCas, token.getBegin(), token.getEnd());
+					ne.setValue("B-PER");
+					ne.addToIndexes();
+
+					// A few long chains that span the whole document
+					int chain = (tokenIndex / 10) % lastLinks.length;
+					CoreferenceLink link = new CoreferenceLink(jCas, token.getBegin(), token.getEnd());
+					link.setReferenceType("NAME");
+					link.addToIndexes();
+					if(lastLinks[chain] == null) {
+						CoreferenceChain coreferenceChain = new CoreferenceChain(jCas);
+						coreferenceChain.setFirst(link);
+						coreferenceChain.addToIndexes();
+					} else {
+						lastLinks[chain].setNext(link);
+					}
+					lastLinks[chain] = link;
+				}
+			}
+			root.addToIndexes();
+			clause.addToIndexes();
+
+			if(tokens.size() >= 3) {
+				SemanticPredicate predicate = new SemanticPredicate(jCas, tokens.get(1).getBegin(), tokens.get(1).getEnd());
+				predicate.setCategory("stehen.01");
+				SemanticArgument agent = new SemanticArgument(jCas, tokens.get(0).getBegin(), tokens.get(0).getEnd());
+				agent.setRole("A0");
+				agent.addToIndexes();
+				SemanticArgument patient = new SemanticArgument(jCas, tokens.get(2).getBegin(), tokens.get(2).getEnd());
+				patient.setRole("A1");
+				patient.addToIndexes();
+				predicate.setArguments(new FSArray(jCas, 2));
+				predicate.setArguments(0, agent);
+				predicate.setArguments(1, patient);
+				predicate.addToIndexes();
+			}
+		}
+	}
+}
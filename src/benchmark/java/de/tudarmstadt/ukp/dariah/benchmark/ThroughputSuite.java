@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+
+import de.tudarmstadt.ukp.dariah.pipeline.FailureReport;
+import de.tudarmstadt.ukp.dariah.pipeline.RunPipeline;
+import de.tudarmstadt.ukp.dariah.pipeline.RunStatistics;
+
+/**
+ * Runs the complete pipeline on fixed corpora for each language config and compares
+ * the throughput with a stored baseline. Each run is started in its own JVM, so that
+ * the runs do not influence each other, and reports the values of the
+ * {@link RunStatistics#SUMMARY_FILENAME run summary}.
+ * <p>
+ * The corpora are built from the files in src/test/resources:
+ * <ul>
+ * <li><b>short</b>: test.txt and eng.txt, mostly measures the model loading</li>
+ * <li><b>novel</b>: the complete Effi Briest as one large document</li>
+ * <li><b>xml</b>: the TEI documents in xml/, read with the XML reader</li>
+ * <li><b>scaled</b>: copies of test.txt and the short Effi Briest excerpt as many documents</li>
+ * </ul>
+ * The program exits with status 1 if a run failed or a value is worse than the
+ * baseline by more than the threshold.
+ */
+public class ThroughputSuite {
+
+	private static final String[] CORPORA = {"short", "novel", "xml", "scaled"};
+
+	/** The measured values; for the first two, higher values are better */
+	private static final String[] METRICS = {"docsPerSecond", "tokensPerSecond", "secondsToFirstDocument", "tailSeconds", "peakHeapBytes"};
+
+	private final File resources = new File("src/test/resources");
+	private final File configs = new File("configs");
+
+	private File workDir = new File("target/throughput");
+	private File baselineFile = new File("src/benchmark/throughput-baseline.properties");
+	private double threshold = 10;
+	private int scale = 20;
+	private int threads = 1;
+	private String heap = "4g";
+	private List<String> languages;
+	private List<String> corpora = Arrays.asList(CORPORA);
+	private String extraConfig;
+
+	public static void main(String[] args) throws Exception {
+		Options options = new Options();
+		options.addOption("help", false, "print this message");
+		options.addOption("languages", true, "Comma separated language codes (default: all language configs)");
+		options.addOption("corpora", true, "Comma separated corpora (default: "+String.join(",", CORPORA)+")");
+		options.addOption("scale", true, "Number of copies in the scaled corpus (default: 20)");
+		options.addOption("config", true, "Additional config files for all runs, e.g. to disable components");
+		options.addOption("threads", true, "Threads of the pipeline (default: 1)");
+		options.addOption("heap", true, "Maximum heap of the pipeline JVM (default: 4g)");
+		options.addOption("baseline", true, "Baseline file (default: src/benchmark/throughput-baseline.properties)");
+		options.addOption("threshold", true, "Allowed regression in percent (default: 10)");
+		options.addOption("work", true, "Folder for the corpora, outputs and logs (default: target/throughput)");
+		options.addOption("update", false, "Store the results as new baseline instead of comparing them");
+
+		CommandLine cmd;
+		try {
+			cmd = new BasicParser().parse(options, args);
+		} catch(ParseException e) {
+			System.err.println(e.getMessage());
+			cmd = null;
+		}
+		if(cmd == null || cmd.hasOption("help")) {
+			new HelpFormatter().printHelp(ThroughputSuite.class.getSimpleName(), options);
+			System.exit(cmd == null ? 2 : 0);
+		}
+
+		ThroughputSuite suite = new ThroughputSuite();
+		if(cmd.hasOption("languages")) {
+			suite.languages = Arrays.asList(cmd.getOptionValue("languages").split(","));
+		} else {
+			suite.languages = suite.findLanguages();
+		}
+		if(cmd.hasOption("corpora")) {
+			suite.corpora = Arrays.asList(cmd.getOptionValue("corpora").split(","));
+			for(String corpus : suite.corpora) {
+				if(!Arrays.asList(CORPORA).contains(corpus)) {
+					System.err.println("Unknown corpus: "+corpus);
+					System.exit(2);
+				}
+			}
+		}
+		if(cmd.hasOption("scale")) {
+			suite.scale = Integer.parseInt(cmd.getOptionValue("scale"));
+		}
+		if(cmd.hasOption("config")) {
+			suite.extraConfig = cmd.getOptionValue("config");
+		}
+		if(cmd.hasOption("threads")) {
+			suite.threads = Integer.parseInt(cmd.getOptionValue("threads"));
+		}
+		if(cmd.hasOption("heap")) {
+			suite.heap = cmd.getOptionValue("heap");
+		}
+		if(cmd.hasOption("baseline")) {
+			suite.baselineFile = new File(cmd.getOptionValue("baseline"));
+		}
+		if(cmd.hasOption("threshold")) {
+			suite.threshold = Double.parseDouble(cmd.getOptionValue("threshold"));
+		}
+		if(cmd.hasOption("work")) {
+			suite.workDir = new File(cmd.getOptionValue("work"));
+		}
+
+		Properties results = new Properties();
+		boolean passed = suite.runAll(results);
+		store(results, new File(suite.workDir, "throughput-results.properties"));
+
+		if(cmd.hasOption("update")) {
+			store(results, suite.baselineFile);
+			System.out.println("Baseline written to "+suite.baselineFile);
+		} else if(suite.baselineFile.exists()) {
+			passed &= suite.compare(results, load(suite.baselineFile));
+		} else {
+			System.out.println("No baseline "+suite.baselineFile+", run with -update to create it");
+		}
+		System.exit(passed ? 0 : 1);
+	}
+
+	private List<String> findLanguages() {
+		List<String> languages = new ArrayList<>();
+		for(String name : new TreeSet<>(Arrays.asList(configs.list()))) {
+			if(name.matches("default_[a-z]+\\.properties")) {
+				languages.add(name.substring("default_".length(), name.length() - ".properties".length()));
+			}
+		}
+		return languages;
+	}
+
+	/**
+	 * Runs the pipeline for each language and corpus and adds the values of the
+	 * summaries to the results, with the keys <code>language.corpus.metric</code>
+	 *
+	 * @return false if a run has failed
+	 */
+	private boolean runAll(Properties results) throws IOException, InterruptedException {
+		boolean passed = true;
+		for(String corpus : corpora) {
+			File input = createCorpus(corpus);
+			for(String language : languages) {
+				String name = language+"."+corpus;
+				System.out.println("Running "+name+"...");
+
+				Properties summary = run(language, corpus, input);
+				if(summary == null) {
+					System.out.println("  FAILED, see "+new File(workDir, name+".log"));
+					passed = false;
+					continue;
+				}
+				for(String metric : METRICS) {
+					results.setProperty(name+"."+metric, summary.getProperty(metric));
+				}
+				System.out.println(String.format(Locale.ROOT, "  %s docs, %s tokens: %s docs/sec, %s tokens/sec, first document after %s s, tail %s s, peak heap %.0f MB",
+						summary.getProperty("documents"), summary.getProperty("tokens"),
+						summary.getProperty("docsPerSecond"), summary.getProperty("tokensPerSecond"),
+						summary.getProperty("secondsToFirstDocument"),
+						summary.getProperty("tailSeconds"),
+						Long.parseLong(summary.getProperty("peakHeapBytes")) / (1024.0 * 1024)));
+			}
+		}
+		return passed;
+	}
+
+	private File createCorpus(String corpus) throws IOException {
+		File dir = new File(workDir, "corpora/"+corpus);
+		FileUtils.deleteDirectory(dir);
+		dir.mkdirs();
+
+		switch(corpus) {
+			case "short":
+				FileUtils.copyFileToDirectory(new File(resources, "test.txt"), dir);
+				FileUtils.copyFileToDirectory(new File(resources, "eng.txt"), dir);
+				break;
+			case "novel":
+				FileUtils.copyFile(new File(resources, "lang/Fontane,-Theodor_Effi Briest.txt"), new File(dir, "EffiBriest.txt"));
+				break;
+			case "xml":
+				FileUtils.copyDirectory(new File(resources, "xml"), dir);
+				break;
+			case "scaled":
+				for(int i=1; i<=scale; i++) {
+					FileUtils.copyFile(new File(resources, "test.txt"), new File(dir, String.format("test-%03d.txt", i)));
+					FileUtils.copyFile(new File(resources, "kurz/EffiBriestKurz.txt"), new File(dir, String.format("EffiBriestKurz-%03d.txt", i)));
+				}
+				break;
+		}
+		return dir;
+	}
+
+	/**
+	 * Runs the pipeline in a new JVM
+	 *
+	 * @return the run summary, or null if the run has failed
+	 */
+	private Properties run(String language, String corpus, File input) throws IOException, InterruptedException {
+		String name = language+"."+corpus;
+		File output = new File(workDir, "output/"+name);
+		FileUtils.deleteDirectory(output);
+		output.mkdirs();
+
+		String config = new File(configs, "default.properties").getAbsolutePath();
+		File languageConfig = new File(configs, "default_"+language+".properties");
+		if(languageConfig.exists()) {
+			config += ","+languageConfig.getAbsolutePath();
+		}
+		if(extraConfig != null) {
+			for(String configFile : extraConfig.split(",")) {
+				config += ","+new File(configFile).getAbsolutePath();
+			}
+		}
+
+		List<String> command = new ArrayList<>(Arrays.asList(
+				new File(System.getProperty("java.home"), "bin/java").getPath(),
+				"-Xmx"+heap,
+				"-cp", System.getProperty("java.class.path"),
+				RunPipeline.class.getName(),
+				"-config", config,
+				"-language", language,
+				"-input", input.getAbsolutePath(),
+				"-output", output.getAbsolutePath(),
+				"-threads", Integer.toString(threads)));
+		if(corpus.equals("xml")) {
+			command.add("-reader");
+			command.add("xml");
+		}
+
+		// The hyphenation tables are loaded relative to the working directory, so the
+		// pipeline runs in the current directory like the runner
+		Process process = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(new File(workDir, name+".log"))
+				.start();
+		process.waitFor();
+
+		File summaryFile = new File(output, RunStatistics.SUMMARY_FILENAME);
+		if(!summaryFile.exists() || new File(output, FailureReport.FILENAME).exists()) {
+			return null;
+		}
+		return load(summaryFile);
+	}
+
+	/**
+	 * Prints a table of the results and their change against the baseline
+	 *
+	 * @return false if a value is worse than the baseline by more than the threshold
+	 */
+	private boolean compare(Properties results, Properties baseline) {
+		boolean passed = true;
+		System.out.println();
+		System.out.println(String.format(Locale.ROOT, "%-40s %16s %16s %9s", "Run", "Baseline", "Current", "Change"));
+		for(String key : new TreeSet<>(results.stringPropertyNames())) {
+			String baselineValue = baseline.getProperty(key);
+			if(baselineValue == null) {
+				System.out.println(String.format(Locale.ROOT, "%-40s %16s %16s", key, "-", results.getProperty(key)));
+				continue;
+			}
+			double before = Double.parseDouble(baselineValue);
+			double now = Double.parseDouble(results.getProperty(key));
+			double change = (before != 0) ? 100.0 * (now - before) / before : 0;
+
+			boolean higherIsBetter = key.endsWith("PerSecond");
+			boolean regression = higherIsBetter ? change < -threshold : change > threshold;
+			passed &= !regression;
+			System.out.println(String.format(Locale.ROOT, "%-40s %16s %16s %+8.1f%%%s", key, baselineValue, results.getProperty(key), change, regression ? "  REGRESSION" : ""));
+		}
+		System.out.println(passed
+				? String.format(Locale.ROOT, "No regression of more than %.1f%%", threshold)
+				: String.format(Locale.ROOT, "Regressions of more than %.1f%% found", threshold));
+		return passed;
+	}
+
+	private static Properties load(File file) throws IOException {
+		Properties properties = new Properties();
+		try(Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			properties.load(in);
+		}
+		return properties;
+	}
+
+	/**
+	 * Writes the properties sorted by key, so that baselines can be compared with diff
+	 */
+	private static void store(Properties properties, File file) throws IOException {
+		file.getAbsoluteFile().getParentFile().mkdirs();
+		try(PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			out.println("# java "+System.getProperty("java.version")+", "+Runtime.getRuntime().availableProcessors()+" cores");
+			for(String key : new TreeSet<>(properties.stringPropertyNames())) {
+				out.println(key+"="+properties.getProperty(key));
+			}
+		}
+	}
+}
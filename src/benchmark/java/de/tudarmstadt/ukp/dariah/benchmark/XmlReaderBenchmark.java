@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.benchmark;
+
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.uima.UIMAException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.util.CasCreationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import de.tudarmstadt.ukp.dariah.IO.FragmentContentHandler;
+import de.tudarmstadt.ukp.dariah.IO.DocumentQueue;
+import de.tudarmstadt.ukp.dariah.IO.TeiReader;
+import de.tudarmstadt.ukp.dariah.IO.XmlReader;
+
+/**
+ * Reads a TEI document with the given number of paragraphs, once only with the SAX
+ * parser and the {@link FragmentContentHandler}, once with the complete XmlReader, and
+ * once with the {@link TeiReader}, which reads only the body without the notes.
+ * All reuse the parser like the readers do. Run it with <code>-prof gc</code> to see
+ * the bytes allocated per document (<code>gc.alloc.rate.norm</code>).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XmlReaderBenchmark {
+
+	@Param({"100", "10000"})
+	public int paragraphs;
+
+	private File xmlFile;
+	private DocumentQueue queue;
+	private CollectionReader reader;
+	private CAS cas;
+	private DocumentQueue teiQueue;
+	private CollectionReader teiReader;
+	private CAS teiCas;
+	private XMLReader xmlReader;
+	private FragmentContentHandler handler;
+
+	@Setup
+	public void setup() throws IOException, UIMAException, ParserConfigurationException, SAXException {
+		Configurator.setLevel(XmlReader.class.getName(), Level.WARN);
+		Configurator.setLevel(TeiReader.class.getName(), Level.WARN);
+
+		xmlFile = File.createTempFile("ddw-benchmark", ".xml");
+		try(PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(xmlFile), StandardCharsets.UTF_8))) {
+			out.println("<TEI><teiHeader><fileDesc><titleStmt><title>Benchmark</title></titleStmt></fileDesc></teiHeader>");
+			out.println("<text><body>");
+			for(int i=0; i<paragraphs; i++) {
+				if(i % 20 == 0) {
+					out.println((i > 0 ? "</div>" : "")+"<div type=\"chapter\" n=\""+(i/20+1)+"\"><head>Kapitel "+(i/20+1)+"</head>");
+				}
+				out.println("<p>In Front des schon seit Kurfürst Georg Wilhelm von der Familie von Briest bewohnten Herrenhauses"
+						+" zu <hi rend=\"italic\">Hohen-Cremmen</hi> fiel heller Sonnenschein<note place=\"foot\">Hohen-Cremmen ist ein"
+						+" fiktiver Ort im Havelland.</note> auf die mittagsstille Dorfstraße.</p>");
+			}
+			out.println("</div></body></text></TEI>");
+		}
+
+		xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+		handler = new FragmentContentHandler();
+		xmlReader.setContentHandler(handler);
+
+		queue = new DocumentQueue();
+		reader = createReader(XmlReader.class,
+				XmlReader.PARAM_LANGUAGE, "de",
+				XmlReader.PARAM_DOCUMENT_QUEUE, queue.getId());
+		cas = CasCreationUtils.createCas(reader.getProcessingResourceMetaData());
+		reader.typeSystemInit(cas.getTypeSystem());
+
+		teiQueue = new DocumentQueue();
+		teiReader = createReader(TeiReader.class,
+				TeiReader.PARAM_LANGUAGE, "de",
+				TeiReader.PARAM_INCLUDE, new String[] {"text/body"},
+				TeiReader.PARAM_EXCLUDE, new String[] {"note", "fw"},
+				TeiReader.PARAM_DOCUMENT_QUEUE, teiQueue.getId());
+		teiCas = CasCreationUtils.createCas(teiReader.getProcessingResourceMetaData());
+		teiReader.typeSystemInit(teiCas.getTypeSystem());
+	}
+
+	@TearDown
+	public void tearDown() {
+		reader.destroy();
+		queue.close();
+		teiReader.destroy();
+		teiQueue.close();
+		xmlFile.delete();
+	}
+
+	@Benchmark
+	public List<String[]> parseFragments() throws Exception {
+		try(InputStream in = new FileInputStream(xmlFile)) {
+			xmlReader.parse(new InputSource(in));
+		}
+		return handler.getTextElements();
+	}
+
+	@Benchmark
+	public void readDocument() throws Exception {
+		queue.add(xmlFile);
+		reader.getNext(cas);
+		cas.reset();
+	}
+
+	@Benchmark
+	public void readTeiDocument() throws Exception {
+		teiQueue.add(xmlFile);
+		teiReader.getNext(teiCas);
+		teiCas.reset();
+	}
+}
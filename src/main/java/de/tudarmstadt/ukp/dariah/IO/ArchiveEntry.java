@@ -0,0 +1,194 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A document inside a ZIP or tar archive, which is read without extracting the archive.
+ * It is handed through the {@link DocumentQueue} like a file: its path is the path of
+ * the archive followed by the path of the entry, and its length is the size of the entry.
+ * The outputs are named after the path of the entry inside the archive, so entries with
+ * the same name in different folders of the archive get outputs of their own.
+ * <p>
+ * Entries of ZIP files are read from the archive when the document is read. Tar archives
+ * can only be read from the beginning, so the content of their entries is read while
+ * the archive is listed.
+ */
+public class ArchiveEntry extends File {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String[] ARCHIVE_EXTENSIONS = {".zip", ".tar", ".tar.gz", ".tgz"};
+
+	private final File archive;
+	private final String entryName;
+	private final long size;
+	private final long lastModified;
+	private final transient ZipFile zipFile;
+	private final transient byte[] content;
+
+	/**
+	 * An entry of a ZIP file, which is read from the opened archive
+	 */
+	public ArchiveEntry(File archive, ZipFile zipFile, ZipEntry entry) {
+		super(archive, entry.getName());
+		this.archive = archive;
+		this.entryName = entry.getName();
+		this.size = entry.getSize();
+		this.lastModified = entry.getTime();
+		this.zipFile = zipFile;
+		this.content = null;
+	}
+
+	/**
+	 * An entry whose content has already been read from the archive
+	 */
+	public ArchiveEntry(File archive, String entryName, long lastModified, byte[] content) {
+		super(archive, entryName);
+		this.archive = archive;
+		this.entryName = entryName;
+		this.size = content.length;
+		this.lastModified = lastModified;
+		this.zipFile = null;
+		this.content = content;
+	}
+
+	/**
+	 * @return true if the file is an archive whose entries can be read as documents
+	 */
+	public static boolean isArchive(File file) {
+		String name = file.getName().toLowerCase();
+		for(String extension : ARCHIVE_EXTENSIONS) {
+			if(name.endsWith(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static boolean isZip(File archive) {
+		return archive.getName().toLowerCase().endsWith(".zip");
+	}
+
+	public File getArchive() {
+		return archive;
+	}
+
+	public String getEntryName() {
+		return entryName;
+	}
+
+	/**
+	 * @return the size of the entry, or -1 if it is unknown
+	 */
+	@Override
+	public long length() {
+		return size;
+	}
+
+	@Override
+	public long lastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * @return the number of bytes of the content that is held in memory
+	 */
+	public long getBufferedBytes() {
+		return (content != null) ? content.length : 0;
+	}
+
+	/**
+	 * @return the content of the entry, if it has been read while listing the archive, or null
+	 */
+	byte[] getContent() {
+		return content;
+	}
+
+	@Override
+	public boolean isFile() {
+		return true;
+	}
+
+	@Override
+	public boolean exists() {
+		return true;
+	}
+
+	/**
+	 * Opens the content of the entry
+	 */
+	public InputStream openStream() throws IOException {
+		if(content != null) {
+			return new ByteArrayInputStream(content);
+		}
+		ZipEntry entry = zipFile.getEntry(entryName);
+		if(entry == null) {
+			throw new IOException("Entry "+entryName+" not found in "+archive);
+		}
+		return zipFile.getInputStream(entry);
+	}
+
+	/**
+	 * @return a <code>jar:</code> URI of the entry, like <code>jar:file:/corpus.zip!/folder/file.txt</code>
+	 */
+	public String getEntryUri() {
+		return getUri(entryName);
+	}
+
+	/**
+	 * @return the <code>jar:</code> URI of the root folder of the archive
+	 */
+	public String getRootUri() {
+		return getUri("");
+	}
+
+	private String getUri(String path) {
+		try {
+			// Encode the path of the entry like the path of a file
+			String encodedPath = new URI(null, null, "/"+path, null).getRawPath();
+			return "jar:"+archive.getAbsoluteFile().toURI()+"!"+encodedPath;
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Opens a file or the entry of an archive
+	 */
+	public static InputStream open(File file) throws IOException {
+		if(file instanceof ArchiveEntry) {
+			return ((ArchiveEntry) file).openStream();
+		}
+		return new FileInputStream(file);
+	}
+
+	/**
+	 * @return the URI of a file or of the entry of an archive, for the document meta data
+	 */
+	public static String getDocumentUri(File file) {
+		if(file instanceof ArchiveEntry) {
+			return ((ArchiveEntry) file).getEntryUri();
+		}
+		return file.getAbsoluteFile().toURI().toString();
+	}
+
+	/**
+	 * @return the base URI of a file or of the entry of an archive, for the document meta data.
+	 * The writers name the outputs after the part of the document URI that follows it: the name
+	 * of a file, or the path of an entry inside the archive.
+	 */
+	public static String getBaseUri(File file) {
+		if(file instanceof ArchiveEntry) {
+			return ((ArchiveEntry) file).getRootUri();
+		}
+		return file.getAbsoluteFile().getParentFile().toURI().toString();
+	}
+}
@@ -0,0 +1,272 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter.Counts;
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter.Fields;
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter.RowHandler;
+import de.tudarmstadt.ukp.dariah.type.DocumentChunk;
+
+/**
+ * The rows of a document that is processed in {@link DocumentChunk chunks}. The rows of
+ * each chunk are written into a part file with the ids and positions within the chunk.
+ * Once all parts are there, they are joined in their order, and the ids and positions
+ * are shifted by those of the preceding chunks, so the rows are the same as if the
+ * document had been processed as a whole.
+ * <p>
+ * The chunks may arrive in any order. Not thread-safe, all chunks of a document are
+ * passed to the same writer.
+ */
+class ChunkedDocument {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// The columns that are shifted, see DARIAHWriter#getHeader
+	private static final int PARAGRAPH_ID = 1;
+	private static final int SENTENCE_ID = 2;
+	private static final int TOKEN_ID = 3;
+	private static final int BEGIN = 4;
+	private static final int END = 5;
+	private static final int DEPENDENCY_HEAD = 13;
+	private static final int COREFERENCE_CHAIN_IDS = 17;
+	/** The first of the semantic argument columns, whose number differs between the chunks */
+	private static final int FIRST_SEMANTIC_ARGUMENT = 21;
+
+	private static final String UNUSED = DARIAHWriter.UNUSED;
+	private static final int UNUSED_INT = DARIAHWriter.UNUSED_INT;
+	private static final String ROOT_HEAD = "-1";
+
+	private final String name;
+	private final String documentHash;
+	private final File[] parts;
+	private final int[] offsets;
+	private final Counts[] counts;
+	private final int[] semanticArguments;
+	private int missing;
+	/** The position, counted by the writer, of the CAS with the last chunk that has been added */
+	private long lastChunk;
+
+	/**
+	 * @param name the relative path of the document, used for the names of the parts
+	 * @param chunks the number of chunks
+	 * @param documentHash the hash of the text of the whole document
+	 */
+	ChunkedDocument(String name, int chunks, String documentHash) {
+		this.name = name;
+		this.documentHash = documentHash;
+		this.parts = new File[chunks];
+		this.offsets = new int[chunks];
+		this.counts = new Counts[chunks];
+		this.semanticArguments = new int[chunks];
+		this.missing = chunks;
+	}
+
+	String getDocumentHash() {
+		return documentHash;
+	}
+
+	long getLastChunk() {
+		return lastChunk;
+	}
+
+	void setLastChunk(long lastChunk) {
+		this.lastChunk = lastChunk;
+	}
+
+	/**
+	 * @return true if all chunks have been added
+	 */
+	boolean isComplete() {
+		return missing == 0;
+	}
+
+	/**
+	 * @return the largest number of semantic argument columns of the chunks
+	 */
+	int getSemanticArguments() {
+		int max = 0;
+		for(int arguments : semanticArguments) {
+			max = Math.max(max, arguments);
+		}
+		return max;
+	}
+
+	/**
+	 * @return true if the chunk has already been added, or belongs to another version of the document
+	 */
+	boolean contains(DocumentChunk chunk) {
+		return chunk.getCount() != parts.length || !documentHash.equals(chunk.getDocumentHash())
+				|| chunk.getIndex() < 0 || chunk.getIndex() >= parts.length || parts[chunk.getIndex()] != null;
+	}
+
+	/**
+	 * Creates the part file of a chunk
+	 *
+	 * @param folder the folder of the part file, or null for the temporary folder
+	 */
+	PartWriter createPart(DocumentChunk chunk, File folder) throws IOException {
+		int index = chunk.getIndex();
+		if(contains(chunk)) {
+			throw new IOException("Unexpected chunk "+index+" of "+name);
+		}
+		File file = File.createTempFile(new File(name).getName()+"."+index+".", ".part", folder);
+		parts[index] = file;
+		offsets[index] = chunk.getOffset();
+		return new PartWriter(index, file);
+	}
+
+	/**
+	 * Joins the parts and passes the rows to the handler, without a header
+	 */
+	void join(RowHandler handler) throws IOException {
+		if(!isComplete()) {
+			throw new IllegalStateException("Not all chunks of "+name+" have been added");
+		}
+		int columns = FIRST_SEMANTIC_ARGUMENT + getSemanticArguments();
+		int paragraphs = 0, sentences = 0, tokens = 0, corefChains = 0;
+		Fields row = new Fields();
+		row.setSize(columns);
+		for(int i = 0; i < parts.length; i++) {
+			try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(parts[i]), BUFFER_SIZE))) {
+				String[] fields;
+				while((fields = readRow(in)) != null) {
+					for(int column = 0; column < columns; column++) {
+						row.set(column, (column < fields.length) ? fields[column] : UNUSED);
+					}
+					row.setInt(PARAGRAPH_ID, shift(fields[PARAGRAPH_ID], paragraphs));
+					row.setInt(SENTENCE_ID, shift(fields[SENTENCE_ID], sentences));
+					row.setInt(TOKEN_ID, shift(fields[TOKEN_ID], tokens));
+					row.setInt(BEGIN, shift(fields[BEGIN], offsets[i]));
+					row.setInt(END, shift(fields[END], offsets[i]));
+					row.setInt(DEPENDENCY_HEAD, ROOT_HEAD.equals(fields[DEPENDENCY_HEAD]) ? -1 : shift(fields[DEPENDENCY_HEAD], tokens));
+					row.set(COREFERENCE_CHAIN_IDS, shiftChainIds(fields[COREFERENCE_CHAIN_IDS], corefChains));
+					handler.row(row);
+				}
+			}
+			paragraphs += counts[i].paragraphs;
+			sentences += counts[i].sentences;
+			tokens += counts[i].tokens;
+			corefChains += counts[i].corefChains;
+		}
+	}
+
+	private static int shift(String value, int offset) {
+		if(UNUSED.equals(value)) {
+			return UNUSED_INT;
+		}
+		return Integer.parseInt(value) + offset;
+	}
+
+	/**
+	 * Shifts ids like <code>B-3,I-5</code>
+	 */
+	private static String shiftChainIds(String value, int offset) {
+		if(offset == 0 || UNUSED.equals(value)) {
+			return value;
+		}
+		StringBuilder ids = new StringBuilder(value.length() + 4);
+		for(String id : value.split(",")) {
+			if(ids.length() > 0) {
+				ids.append(',');
+			}
+			ids.append(id, 0, 2).append(Integer.parseInt(id.substring(2)) + offset);
+		}
+		return ids.toString();
+	}
+
+	/**
+	 * Deletes the part files
+	 */
+	void delete() {
+		for(File part : parts) {
+			if(part != null) {
+				part.delete();
+			}
+		}
+	}
+
+	/**
+	 * Each row is stored as the number of fields followed by the fields with their length in
+	 * UTF-8, so the fields are read back exactly, whichever characters they contain
+	 */
+	private static String[] readRow(DataInputStream in) throws IOException {
+		int length;
+		try {
+			length = in.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+		String[] fields = new String[length];
+		for(int i = 0; i < length; i++) {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			fields[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return fields;
+	}
+
+	/**
+	 * Writes the rows of a chunk into its part file
+	 */
+	class PartWriter implements RowHandler {
+		private final int index;
+		private final DataOutputStream out;
+
+		private PartWriter(int index, File file) throws IOException {
+			this.index = index;
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+		}
+
+		@Override
+		public void header(String[] columns) {
+			semanticArguments[index] = columns.length - FIRST_SEMANTIC_ARGUMENT;
+		}
+
+		@Override
+		public void row(Fields fields) {
+			try {
+				out.writeInt(fields.size());
+				for(int i = 0; i < fields.size(); i++) {
+					byte[] bytes = fields.get(i).getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Closes the part file and records the numbers of the chunk, which are the
+		 * offsets of the following chunks
+		 */
+		void close(Counts chunkCounts) throws IOException {
+			out.close();
+			counts[index] = chunkCounts;
+			missing--;
+		}
+
+		/**
+		 * Closes the part file after a failure, the chunk is still missing
+		 */
+		void abort() {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// The part is deleted anyway
+			}
+			parts[index].delete();
+			parts[index] = null;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionUtils;
+
+/**
+ * A document in the {@link ColumnarFormat columnar layout}, loaded with only the columns
+ * that are needed. For example, the frequencies of the POS tags are counted with
+ * <pre>
+ * ColumnarDocument document = ColumnarDocument.read(file, "POS");
+ * int[] frequencies = new int[document.getDictionary("POS").length];
+ * for(int code : document.getCodes("POS")) {
+ *     frequencies[code]++;
+ * }
+ * </pre>
+ * Files compressed by the writer, like <code>.dcol.gz</code>, are decompressed while reading.
+ */
+public class ColumnarDocument {
+
+	private final int rowCount;
+	private final List<String> columnNames;
+	private final Map<String, int[]> numbers = new HashMap<>();
+	private final Map<String, int[]> codes = new HashMap<>();
+	private final Map<String, String[]> dictionaries = new HashMap<>();
+
+	private ColumnarDocument(int rowCount, List<String> columnNames) {
+		this.rowCount = rowCount;
+		this.columnNames = Collections.unmodifiableList(columnNames);
+	}
+
+	/**
+	 * Reads the given columns of a document. The blocks of the other columns are skipped.
+	 * @param columns the names of the columns to load, or none to load all columns
+	 */
+	public static ColumnarDocument read(File file, String... columns) throws IOException {
+		try(InputStream in = CompressionUtils.getInputStream(file.getName(), new BufferedInputStream(new FileInputStream(file)))) {
+			return read(in, columns);
+		}
+	}
+
+	/**
+	 * Reads the given columns of a document from a stream, see {@link #read(File, String...)}
+	 */
+	public static ColumnarDocument read(InputStream stream, String... columns) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		byte[] magic = new byte[ColumnarFormat.MAGIC.length];
+		in.readFully(magic);
+		if(!Arrays.equals(magic, ColumnarFormat.MAGIC)) {
+			throw new IOException("Not a columnar document");
+		}
+		byte version = in.readByte();
+		if(version != ColumnarFormat.VERSION) {
+			throw new IOException("Unsupported version "+version+" of the columnar format");
+		}
+
+		int rowCount = readVarInt(in);
+		int columnCount = readVarInt(in);
+		String[] names = new String[columnCount];
+		byte[] types = new byte[columnCount];
+		int[] lengths = new int[columnCount];
+		for(int i = 0; i < columnCount; i++) {
+			names[i] = in.readUTF();
+			types[i] = in.readByte();
+			lengths[i] = readVarInt(in);
+		}
+
+		Set<String> selected = (columns.length > 0) ? new HashSet<>(Arrays.asList(columns)) : null;
+		ColumnarDocument document = new ColumnarDocument(rowCount, Arrays.asList(names));
+		for(int i = 0; i < columnCount; i++) {
+			if(selected != null && !selected.contains(names[i])) {
+				IOUtils.skipFully(in, lengths[i]);
+				continue;
+			}
+			byte[] block = new byte[lengths[i]];
+			in.readFully(block);
+			if(types[i] == ColumnarFormat.TYPE_DELTA) {
+				document.numbers.put(names[i], decodeDelta(block, rowCount));
+			} else {
+				document.decodeDictionary(names[i], block, rowCount);
+			}
+		}
+		return document;
+	}
+
+	private static int[] decodeDelta(byte[] block, int rowCount) {
+		int[] values = new int[rowCount];
+		int[] position = new int[1];
+		int previous = 0;
+		for(int row = 0; row < rowCount; row++) {
+			previous += ColumnarFormat.unzigzag(readVarInt(block, position));
+			values[row] = previous;
+		}
+		return values;
+	}
+
+	private void decodeDictionary(String column, byte[] block, int rowCount) {
+		int[] position = new int[1];
+		String[] dictionary = new String[readVarInt(block, position)];
+		for(int i = 0; i < dictionary.length; i++) {
+			int length = readVarInt(block, position);
+			dictionary[i] = new String(block, position[0], length, StandardCharsets.UTF_8);
+			position[0] += length;
+		}
+		int[] rowCodes = new int[rowCount];
+		for(int row = 0; row < rowCount; row++) {
+			rowCodes[row] = readVarInt(block, position);
+		}
+		dictionaries.put(column, dictionary);
+		codes.put(column, rowCodes);
+	}
+
+	private static int readVarInt(byte[] block, int[] position) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = block[position[0]++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while(b < 0);
+		return value;
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while(b < 0);
+		return value;
+	}
+
+	/**
+	 * @return the number of rows, i.e. of tokens
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return the names of all columns of the document, whether they are loaded or not
+	 */
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * @return true if the column has been loaded
+	 */
+	public boolean isLoaded(String column) {
+		return numbers.containsKey(column) || codes.containsKey(column);
+	}
+
+	/**
+	 * @return the values of a {@link ColumnarFormat#TYPE_DELTA delta encoded} column like
+	 * <code>Begin</code>, with {@link ColumnarFormat#UNUSED_INT} for unused fields
+	 */
+	public int[] getInts(String column) {
+		return get(numbers, column, "an integer");
+	}
+
+	/**
+	 * @return for each row the index of its value in the {@link #getDictionary dictionary}
+	 * of a dictionary encoded column like <code>POS</code>
+	 */
+	public int[] getCodes(String column) {
+		return get(codes, column, "a dictionary");
+	}
+
+	/**
+	 * @return the distinct values of a dictionary encoded column, the most frequent first
+	 */
+	public String[] getDictionary(String column) {
+		return get(dictionaries, column, "a dictionary");
+	}
+
+	/**
+	 * @return the value of a row as it is written by the {@link DARIAHWriter}
+	 */
+	public String getString(String column, int row) {
+		if(numbers.containsKey(column)) {
+			int value = numbers.get(column)[row];
+			return (value == ColumnarFormat.UNUSED_INT) ? ColumnarFormat.UNUSED : Integer.toString(value);
+		}
+		return getDictionary(column)[getCodes(column)[row]];
+	}
+
+	private <T> T get(Map<String, T> values, String column, String type) {
+		T value = values.get(column);
+		if(value == null) {
+			if(!columnNames.contains(column)) {
+				throw new IllegalArgumentException("No column "+column);
+			}
+			if(!isLoaded(column)) {
+				throw new IllegalArgumentException("Column "+column+" has not been loaded");
+			}
+			throw new IllegalArgumentException("Column "+column+" is not "+type+" column");
+		}
+		return value;
+	}
+}
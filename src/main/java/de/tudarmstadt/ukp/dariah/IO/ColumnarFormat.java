@@ -0,0 +1,72 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The binary columnar layout of the {@link ColumnarWriter}. It has the same columns and
+ * rows as the output of the {@link DARIAHWriter}, but stores each column in a block of
+ * its own, so a reader can load only the columns it needs:
+ * <pre>
+ * "DCOL" version:byte rows:varint columns:varint
+ * for each column: name:UTF type:byte blockLength:varint
+ * for each column: block
+ * </pre>
+ * Columns with positions and ids are {@link #TYPE_DELTA delta encoded}, all other columns
+ * are {@link #TYPE_DICTIONARY dictionary encoded}. Numbers are stored as variable-length
+ * integers with 7 bits per byte, so small numbers take one byte.
+ */
+public final class ColumnarFormat {
+
+	static final byte[] MAGIC = "DCOL".getBytes(StandardCharsets.US_ASCII);
+	static final byte VERSION = 1;
+
+	/**
+	 * Integer column: each row stores the difference to the previous row as zigzag
+	 * varint, so ids and positions that grow slowly take one byte per row
+	 */
+	public static final byte TYPE_DELTA = 1;
+
+	/**
+	 * String column: the distinct values, the most frequent first, followed by the
+	 * varint index of the value of each row
+	 */
+	public static final byte TYPE_DICTIONARY = 2;
+
+	/** The value of an integer column for the unused field <code>_</code> */
+	public static final int UNUSED_INT = -2;
+	static final String UNUSED = "_";
+
+	private static final Set<String> DELTA_COLUMNS = new HashSet<>(Arrays.asList(
+			"ParagraphId", "SentenceId", "TokenId", "Begin", "End", "DependencyHead", "SemanticArgumentIndex"));
+
+	private ColumnarFormat() {
+	}
+
+	/**
+	 * @return the type in which the column with the given name is stored
+	 */
+	public static byte getType(String column) {
+		return DELTA_COLUMNS.contains(column) ? TYPE_DELTA : TYPE_DICTIONARY;
+	}
+
+	static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
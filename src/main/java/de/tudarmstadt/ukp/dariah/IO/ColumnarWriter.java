@@ -0,0 +1,176 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.uima.fit.descriptor.TypeCapability;
+
+/**
+ * Writes the same rows and columns as the {@link DARIAHWriter} in the binary
+ * {@link ColumnarFormat columnar layout}. The repetitive tag columns are dictionary
+ * encoded and the ids and positions are delta encoded, so the output is several times
+ * smaller than the tab separated file, and {@link ColumnarDocument} loads only the
+ * columns an analysis needs without parsing text.
+ * <p>
+ * Set {@link #PARAM_FILENAME_SUFFIX} to <code>.dcol</code>, the suffix of this format.
+ */
+@TypeCapability(inputs = { "de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData",
+		"de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence",
+		"de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token",
+		"de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.morph.Morpheme",
+		"de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS",
+		"de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Lemma",
+		"de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.Dependency" })
+public class ColumnarWriter extends DARIAHWriter {
+
+	public static final String FILENAME_SUFFIX = ".dcol";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@Override
+	protected RowWriter createRowWriter(final OutputStream aOut) {
+		return new RowWriter() {
+			private Column[] columns;
+			private String[] names;
+			private int rows;
+
+			@Override
+			public void header(String[] header) {
+				names = header;
+				columns = new Column[header.length];
+				for(int i = 0; i < header.length; i++) {
+					columns[i] = (ColumnarFormat.getType(header[i]) == ColumnarFormat.TYPE_DELTA) ? new DeltaColumn() : new DictionaryColumn();
+				}
+			}
+
+			@Override
+			public void row(Fields fields) {
+				for(int i = 0; i < fields.size(); i++) {
+					columns[i].add(fields, i);
+				}
+				rows++;
+			}
+
+			@Override
+			public void close() throws IOException {
+				byte[][] blocks = new byte[columns.length][];
+				for(int i = 0; i < blocks.length; i++) {
+					blocks[i] = columns[i].toBlock();
+				}
+
+				try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(aOut, BUFFER_SIZE))) {
+					out.write(ColumnarFormat.MAGIC);
+					out.writeByte(ColumnarFormat.VERSION);
+					ColumnarFormat.writeVarInt(out, rows);
+					ColumnarFormat.writeVarInt(out, blocks.length);
+					for(int i = 0; i < blocks.length; i++) {
+						out.writeUTF(names[i]);
+						out.writeByte(ColumnarFormat.getType(names[i]));
+						ColumnarFormat.writeVarInt(out, blocks[i].length);
+					}
+					for(byte[] block : blocks) {
+						out.write(block);
+					}
+				}
+			}
+		};
+	}
+
+	private interface Column {
+		void add(Fields fields, int column);
+
+		byte[] toBlock() throws IOException;
+	}
+
+	/**
+	 * Stores the difference of each value to the value of the previous row
+	 */
+	private static class DeltaColumn implements Column {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private int previous = 0;
+
+		@Override
+		public void add(Fields fields, int column) {
+			int number = fields.getInt(column);
+			try {
+				ColumnarFormat.writeVarInt(out, ColumnarFormat.zigzag(number - previous));
+			} catch (IOException e) {
+				// ByteArrayOutputStream does not throw
+				throw new IllegalStateException(e);
+			}
+			previous = number;
+		}
+
+		@Override
+		public byte[] toBlock() {
+			return bytes.toByteArray();
+		}
+	}
+
+	/**
+	 * Stores the distinct values once, and for each row the index of its value.
+	 * The values are sorted by frequency, so the most frequent ones get one-byte indexes.
+	 */
+	private static class DictionaryColumn implements Column {
+		private final Map<String, Integer> codes = new HashMap<>();
+		private String[] values = new String[64];
+		private int[] counts = new int[64];
+		private int[] rows = new int[1024];
+		private int rowCount = 0;
+
+		@Override
+		public void add(Fields fields, int column) {
+			String value = fields.get(column);
+			Integer code = codes.get(value);
+			if(code == null) {
+				code = codes.size();
+				codes.put(value, code);
+				if(code == values.length) {
+					values = Arrays.copyOf(values, code * 2);
+					counts = Arrays.copyOf(counts, code * 2);
+				}
+				values[code] = value;
+			}
+			counts[code]++;
+			if(rowCount == rows.length) {
+				rows = Arrays.copyOf(rows, rowCount * 2);
+			}
+			rows[rowCount++] = code;
+		}
+
+		@Override
+		public byte[] toBlock() throws IOException {
+			final int size = codes.size();
+			Integer[] byFrequency = new Integer[size];
+			for(int i = 0; i < size; i++) {
+				byFrequency[i] = i;
+			}
+			Arrays.sort(byFrequency, (a, b) -> Integer.compare(counts[b], counts[a]));
+			int[] recode = new int[size];
+			for(int i = 0; i < size; i++) {
+				recode[byFrequency[i]] = i;
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			ColumnarFormat.writeVarInt(out, size);
+			for(int i = 0; i < size; i++) {
+				byte[] value = values[byFrequency[i]].getBytes(StandardCharsets.UTF_8);
+				ColumnarFormat.writeVarInt(out, value.length);
+				out.write(value);
+			}
+			for(int i = 0; i < rowCount; i++) {
+				ColumnarFormat.writeVarInt(out, recode[rows[i]]);
+			}
+			return bytes.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.hash.Hashing;
+
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionUtils;
+
+/**
+ * An append-only journal in the output folder with one line for every document whose
+ * output has been written completely: the document, a hash of its text, the fingerprint
+ * of the configuration it was processed with and the size of the output. For
+ * <code>-resume</code>, the journal is loaded once at startup. A document is skipped if it
+ * has been completed with the same configuration and its output still has the recorded
+ * size, so only the outputs of completed documents are looked at. Documents that were
+ * processed with another configuration, and outputs that were interrupted by a crash or
+ * changed afterwards, are not counted as completed.
+ * <p>
+ * The hash of the text is compared with {@link #isCompleted(String, File, Charset)} where
+ * reading the input again is cheap compared to the analysis, as in the watch and the server
+ * mode, so a document that has been changed under the same name is processed again. When
+ * listing a whole corpus for <code>-resume</code>, only the names are compared.
+ * <p>
+ * As UIMA writers are created from descriptions, they find the journal by its
+ * {@link #getId() id}, which is passed as parameter.
+ */
+public class CompletionJournal implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger(CompletionJournal.class);
+
+	public static final String FILENAME = "completed.journal";
+
+	/** Hash of documents whose text is unknown, because they were completed before the journal existed */
+	private static final String UNKNOWN_HASH = "-";
+	/**
+	 * Fingerprint of the outputs that were written before the journal existed. Their
+	 * configuration is unknown, they are counted as completed as by earlier versions.
+	 */
+	private static final String LEGACY_FINGERPRINT = "legacy";
+
+	/** The configuration, the text and the output of a completed document */
+	private static final class Record {
+		final String fingerprint;
+		final String textHash;
+		final long outputBytes;
+
+		Record(String fingerprint, String textHash, long outputBytes) {
+			this.fingerprint = fingerprint;
+			this.textHash = textHash;
+			this.outputBytes = outputBytes;
+		}
+	}
+
+	private static final Map<String, CompletionJournal> journals = new ConcurrentHashMap<>();
+	private static final AtomicInteger ids = new AtomicInteger();
+
+	private final String id;
+	private final File journalFile;
+	private final String fingerprint;
+
+	/**
+	 * The record of each completed document. It is only kept once the journal has been
+	 * loaded, a run without <code>-resume</code> only appends to the journal.
+	 */
+	private final Map<String, Record> completed = new ConcurrentHashMap<>();
+	/** The suffix of the outputs, set by {@link #load(String)} */
+	private volatile String outputSuffix;
+	/** The length of each output in the shards, if the outputs are appended into shards */
+	private volatile Map<String, Long> shardedOutputs;
+	private Writer out;
+
+	/**
+	 * @param outputFolder the folder with the outputs, which contains the journal
+	 * @param fingerprint identifies the configuration of the pipeline, see {@link #hash(String)}
+	 */
+	public CompletionJournal(File outputFolder, String fingerprint) {
+		this.journalFile = new File(outputFolder, FILENAME);
+		this.fingerprint = fingerprint;
+		this.id = "journal-"+ids.incrementAndGet();
+		journals.put(id, this);
+	}
+
+	/**
+	 * Returns the journal with the given id, or null if it does not exist or has been closed
+	 */
+	public static CompletionJournal get(String id) {
+		return journals.get(id);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the SHA-1 hash of the text as hex string
+	 */
+	public static String hash(String text) {
+		return Hashing.sha1().hashString(text, StandardCharsets.UTF_8).toString();
+	}
+
+	/**
+	 * Returns the name under which a document is recorded. It is the name of the
+	 * output file without the suffix, as it is generated by the writer.
+	 */
+	public static String getDocumentKey(String filename) {
+		// reproduce the encoding generated by the output file writer ... cf. #26
+		return new File(".").toURI().relativize(new File(filename).toURI()).toString();
+	}
+
+	/**
+	 * Reads the documents that have been completed in earlier runs. If the output folder
+	 * has no journal yet, the existing outputs with the given suffix are taken over once,
+	 * as they have been written by a version without journal. Only outputs that end with
+	 * a complete row are taken over, an output that was interrupted by a crash is written again.
+	 */
+	public synchronized void load(String outputSuffix) throws IOException {
+		this.outputSuffix = outputSuffix;
+		if(!journalFile.exists()) {
+			importOutputs(outputSuffix);
+			return;
+		}
+
+		int lines = 0, outdated = 0;
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = in.readLine()) != null) {
+				String[] fields = line.split("\t");
+				if(fields.length != 4) {
+					// A line that has not been written completely
+					continue;
+				}
+				lines++;
+				// Later lines replace earlier ones, if a document has been processed again
+				try {
+					completed.put(fields[0], new Record(fields[2], fields[1], Long.parseLong(fields[3])));
+				} catch (NumberFormatException e) {
+					continue;
+				}
+			}
+		}
+		for(Record record : completed.values()) {
+			if(!isCurrentConfiguration(record)) {
+				outdated++;
+			}
+		}
+		logger.info(MessageFormat.format("Read {0} completed documents from {1}", lines, journalFile));
+		if(outdated > 0) {
+			logger.info(MessageFormat.format("{0} documents were processed with another configuration and are processed again", outdated));
+		}
+	}
+
+	/**
+	 * Compares the outputs with their length in the shards instead of the size of their
+	 * own files, see {@link OutputShards#readLengths(File)}. Outputs that are not in the
+	 * shards, as they were written by a run without shards, are still compared with their files.
+	 */
+	public void setShardedOutputs(Map<String, Long> outputLengths) {
+		this.shardedOutputs = new ConcurrentHashMap<>(outputLengths);
+	}
+
+	private void importOutputs(String outputSuffix) throws IOException {
+		File outputFolder = journalFile.getParentFile();
+		if(!outputFolder.isDirectory()) {
+			return;
+		}
+		int count = 0, incomplete = 0;
+		// The outputs are named after the input files including their extension, unlike e.g. the stage metrics
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(outputFolder.toPath(), "*.*"+outputSuffix)) {
+			for(Path output : stream) {
+				BasicFileAttributes attributes = Files.readAttributes(output, BasicFileAttributes.class);
+				if(!attributes.isRegularFile() || attributes.size() == 0) {
+					continue;
+				}
+				if(!endsWithCompleteRow(output.toFile())) {
+					logger.warn("The output "+output+" is incomplete and is written again");
+					incomplete++;
+					continue;
+				}
+				String name = output.getFileName().toString();
+				record(name.substring(0, name.length()-outputSuffix.length()), UNKNOWN_HASH, LEGACY_FINGERPRINT, attributes.size());
+				count++;
+			}
+		}
+		logger.info(MessageFormat.format("Created {0} with the {1} existing outputs", journalFile, count));
+		if(incomplete > 0) {
+			logger.info(MessageFormat.format("{0} existing outputs are incomplete and are processed again", incomplete));
+		}
+	}
+
+	/**
+	 * Checks that an output ends with a line break, after a row with as many fields as the
+	 * header. Compressed outputs are decompressed, a truncated stream fails.
+	 */
+	private static boolean endsWithCompleteRow(File output) {
+		try(InputStream in = CompressionUtils.getInputStream(output.getName(), new FileInputStream(output))) {
+			byte[] buffer = new byte[64 * 1024];
+			int headerFields = -1;
+			int fields = 1;
+			int last = -1;
+			int read;
+			while((read = in.read(buffer)) >= 0) {
+				for(int i = 0; i < read; i++) {
+					if(buffer[i] == '\t') {
+						fields++;
+					} else if(buffer[i] == '\n') {
+						if(headerFields < 0) {
+							headerFields = fields;
+						} else if(fields != headerFields) {
+							return false;
+						}
+						fields = 1;
+					}
+				}
+				if(read > 0) {
+					last = buffer[read-1];
+				}
+			}
+			return last == '\n';
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private boolean isCurrentConfiguration(Record record) {
+		return record != null && (fingerprint.equals(record.fingerprint) || LEGACY_FINGERPRINT.equals(record.fingerprint));
+	}
+
+	/**
+	 * Checks the configuration, and that the output still has the size it had when the
+	 * document was completed
+	 */
+	private boolean isCurrent(String documentKey, Record record) {
+		if(!isCurrentConfiguration(record)) {
+			return false;
+		}
+		Map<String, Long> sharded = shardedOutputs;
+		Long outputBytes = (sharded != null) ? sharded.get(documentKey) : null;
+		if(outputBytes == null) {
+			outputBytes = new File(journalFile.getParentFile(), documentKey+outputSuffix).length();
+		}
+		if(outputBytes != record.outputBytes) {
+			logger.info("The output of "+documentKey+" is missing or has been changed since it was completed");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the document has been completed with the current configuration
+	 * and its output is unchanged
+	 */
+	public boolean isCompleted(String documentKey) {
+		return isCurrent(documentKey, completed.get(documentKey));
+	}
+
+	/**
+	 * Like {@link #isCompleted(String)}, but also compares the hash of the text, so that a
+	 * document that has been changed since it was completed is processed again. The file is
+	 * only read if the document has been completed.
+	 *
+	 * @param file the input file, which contains the text of the document
+	 * @param encoding the encoding of the file
+	 */
+	public boolean isCompleted(String documentKey, File file, Charset encoding) throws IOException {
+		Record record = completed.get(documentKey);
+		if(!isCurrent(documentKey, record)) {
+			return false;
+		}
+		if(UNKNOWN_HASH.equals(record.textHash)) {
+			return true;
+		}
+		// Decoded like the text reader, which replaces malformed input as well
+		String text = new String(Files.readAllBytes(file.toPath()), encoding);
+		if(!record.textHash.equals(hash(text))) {
+			logger.info("The text of "+file.getName()+" has been changed since it was completed");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Records a document. Must only be called after its output has been flushed and closed.
+	 * @param documentKey see {@link #getDocumentKey(String)}
+	 * @param textHash the hash of the document text, see {@link #hash(String)}
+	 * @param outputBytes the size of the output
+	 */
+	public synchronized void completed(String documentKey, String textHash, long outputBytes) throws IOException {
+		record(documentKey, textHash, fingerprint, outputBytes);
+	}
+
+	private void record(String documentKey, String textHash, String documentFingerprint, long outputBytes) throws IOException {
+		if(out == null) {
+			journalFile.getAbsoluteFile().getParentFile().mkdirs();
+			boolean incompleteLine = endsWithIncompleteLine();
+			out = new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8);
+			if(incompleteLine) {
+				// Do not append to the line of a document that was interrupted
+				out.write("\n");
+			}
+		}
+		out.write(documentKey+"\t"+textHash+"\t"+documentFingerprint+"\t"+outputBytes+"\n");
+		out.flush();
+		if(outputSuffix != null) {
+			// Only looked up when resuming, e.g. by the watcher when a completed file is changed
+			completed.put(documentKey, new Record(documentFingerprint, textHash, outputBytes));
+			if(shardedOutputs != null) {
+				shardedOutputs.put(documentKey, outputBytes);
+			}
+		}
+	}
+
+	private boolean endsWithIncompleteLine() throws IOException {
+		if(journalFile.length() == 0) {
+			return false;
+		}
+		try(RandomAccessFile file = new RandomAccessFile(journalFile, "r")) {
+			file.seek(file.length()-1);
+			return file.read() != '\n';
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		journals.remove(id);
+		if(out != null) {
+			out.close();
+			out = null;
+		}
+	}
+}
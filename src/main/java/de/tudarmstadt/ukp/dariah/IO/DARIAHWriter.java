@@ -22,27 +22,48 @@ import static org.apache.commons.io.IOUtils.closeQuietly;
 import static org.apache.uima.fit.util.JCasUtil.select;
 import static org.apache.uima.fit.util.JCasUtil.selectCovered;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
-import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
-import org.apache.commons.lang.StringUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.TypeCapability;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.text.AnnotationIndex;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceInitializationException;
 
 import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceChain;
 import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceLink;
@@ -52,6 +73,7 @@ import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
 import de.tudarmstadt.ukp.dkpro.core.api.ner.type.NamedEntity;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionMethod;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Paragraph;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
@@ -63,6 +85,7 @@ import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.Dependency;
 import de.tudarmstadt.ukp.dkpro.core.io.penntree.PennTreeNode;
 import de.tudarmstadt.ukp.dkpro.core.io.penntree.PennTreeUtils;
 import de.tudarmstadt.ukp.dariah.type.DirectSpeech;
+import de.tudarmstadt.ukp.dariah.type.DocumentChunk;
 import de.tudarmstadt.ukp.dariah.type.Hyphenation;
 import de.tudarmstadt.ukp.dariah.type.Section;
 
@@ -79,8 +102,35 @@ import de.tudarmstadt.ukp.dariah.type.Section;
 public class DARIAHWriter
 extends JCasFileWriter_ImplBase
 {
-	private static final String UNUSED = "_";
-	private static final int UNUSED_INT = -2;
+	private static final Logger logger = LogManager.getLogger(DARIAHWriter.class);
+
+	static final String UNUSED = "_";
+	/** An unused integer field, see {@link Fields} */
+	static final int UNUSED_INT = -2;
+
+	private static final String[] COLUMNS = {
+			"SectionId",
+			"ParagraphId",
+			"SentenceId",
+			"TokenId",
+			"Begin",
+			"End",
+			"Token",
+			"Lemma",
+			"CPOS",
+			"POS",
+			"Chunk",
+			"Morphology",
+			"Hyphenation",
+			"DependencyHead",
+			"DependencyRelation",
+			"NamedEntity",
+			"QuoteMarker",
+			"CoreferenceChainIds",
+			"SyntaxTree",
+			"Predicate",
+			"SemanticArgumentIndex"
+	};
 
 	/**
 	 * Name of configuration parameter that contains the character encoding used by the input files.
@@ -113,64 +163,665 @@ extends JCasFileWriter_ImplBase
 	@ConfigurationParameter(name = PARAM_WRITE_DEPENDENCY, mandatory = true, defaultValue = "true")
 	private boolean writeDependency;
 
+	/**
+	 * Id of the {@link CompletionJournal} in which every completely written document is recorded
+	 */
+	public static final String PARAM_COMPLETION_JOURNAL = "completionJournal";
+	@ConfigurationParameter(name = PARAM_COMPLETION_JOURNAL, mandatory = false)
+	private String completionJournalId;
+
+	private CompletionJournal completionJournal;
+
+	/**
+	 * Level from 1 (fastest) to 9 (smallest) for outputs that are compressed with
+	 * {@link CompressionMethod#GZIP}, see {@link #PARAM_COMPRESSION}. By default, the
+	 * default level of gzip is used.
+	 */
+	public static final String PARAM_COMPRESSION_LEVEL = "compressionLevel";
+	@ConfigurationParameter(name = PARAM_COMPRESSION_LEVEL, mandatory = true, defaultValue = "-1")
+	private int compressionLevel;
+
+	private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+	/** The size in chars of the buffer into which the rows are written */
+	private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Id of the {@link OutputShards} into which the outputs are appended. If not set,
+	 * every document is written to its own file.
+	 */
+	public static final String PARAM_OUTPUT_SHARDS = "outputShards";
+	@ConfigurationParameter(name = PARAM_OUTPUT_SHARDS, mandatory = false)
+	private String outputShardsId;
+
+	private OutputShards outputShards;
+
+	/**
+	 * The number of documents that can be in the pipeline at once, e.g. the size of the CAS
+	 * pool of a staged pipeline. A chunk can only be overtaken by as many other documents, so
+	 * a chunked document that has received no chunk for longer has lost a chunk to a failure.
+	 * Its part files are deleted right away, not only at the end of the run.
+	 */
+	public static final String PARAM_DOCUMENTS_IN_FLIGHT = "documentsInFlight";
+	@ConfigurationParameter(name = PARAM_DOCUMENTS_IN_FLIGHT, mandatory = true, defaultValue = "1")
+	private int documentsInFlight;
+
+	/**
+	 * Id of the {@link WriteBehindQueue} through which the outputs are written in a thread
+	 * of its own. If not set, the outputs are written when the document is processed.
+	 */
+	public static final String PARAM_WRITE_BEHIND_QUEUE = "writeBehindQueue";
+	@ConfigurationParameter(name = PARAM_WRITE_BEHIND_QUEUE, mandatory = false)
+	private String writeBehindQueueId;
+
+	private WriteBehindQueue writeBehindQueue;
+
+	/**
+	 * The documents of which some chunks have been written into part files, by relative path
+	 */
+	private final Map<String, ChunkedDocument> chunkedDocuments = new HashMap<>();
+	/** The number of CASes that have been passed to the writer */
+	private long processedCases;
+
+	private final BioLabels chunkLabels = new BioLabels(false);
+	private final BioLabels neLabels = new BioLabels(true);
+
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		if(completionJournalId != null) {
+			completionJournal = CompletionJournal.get(completionJournalId);
+			if(completionJournal == null) {
+				throw new ResourceInitializationException(new IllegalStateException("No completion journal with id "+completionJournalId));
+			}
+		}
+		if(outputShardsId != null) {
+			outputShards = OutputShards.get(outputShardsId);
+			if(outputShards == null) {
+				throw new ResourceInitializationException(new IllegalStateException("No output shards with id "+outputShardsId));
+			}
+			// Each document is a gzip member of its own, so it can be decompressed alone
+			if(getCompressionMethod() != CompressionMethod.NONE && getCompressionMethod() != CompressionMethod.GZIP) {
+				throw new ResourceInitializationException(new IllegalArgumentException("Output shards can only be compressed with gzip"));
+			}
+		}
+		if(writeBehindQueueId != null) {
+			writeBehindQueue = WriteBehindQueue.get(writeBehindQueueId);
+			if(writeBehindQueue == null) {
+				throw new ResourceInitializationException(new IllegalStateException("No write-behind queue with id "+writeBehindQueueId));
+			}
+		}
+	}
+
 	@Override
 	public void process(JCas aJCas)	throws AnalysisEngineProcessException{
 		
-		PrintWriter out = null;
+		processedCases++;
 		try {
-			
-			out = new PrintWriter(new OutputStreamWriter(getOutputStream(aJCas, filenameSuffix), encoding));
-			convert(aJCas, out);
+			Collection<DocumentChunk> chunks = select(aJCas, DocumentChunk.class);
+			if(chunks.isEmpty()) {
+				String textHash = (completionJournal != null) ? CompletionJournal.hash(aJCas.getDocumentText()) : null;
+				if(writeBehindQueue != null) {
+					// The rows do not refer to the CAS, so it can be released before they are written
+					RowBatch.Builder batch = new RowBatch.Builder();
+					convert(aJCas, batch);
+					writeDocument(aJCas, textHash, batch.build()::replay, null);
+				} else {
+					writeDocument(aJCas, textHash, handler -> convert(aJCas, handler), null);
+				}
+			} else {
+				// The output is written once all chunks of the document are there
+				ChunkedDocument document = addChunk(aJCas, chunks.iterator().next());
+				if(document.isComplete()) {
+					chunkedDocuments.remove(getRelativePath(aJCas));
+					writeDocument(aJCas, document.getDocumentHash(), handler -> {
+						handler.header(getHeader(document.getSemanticArguments()));
+						document.join(handler);
+					}, document::delete);
+				}
+			}
 		}
 		catch (Exception e) {
 			throw new AnalysisEngineProcessException(e);
 		}
 		finally {
-			closeQuietly(out);
+			expireChunkedDocuments();
 		}
 		
 	}
 
-	private void convert(JCas aJCas, PrintWriter aOut)
+	/**
+	 * Deletes the parts of the chunked documents that cannot be completed anymore, because
+	 * one of their chunks has failed, see {@link #PARAM_DOCUMENTS_IN_FLIGHT}
+	 */
+	private void expireChunkedDocuments() {
+		Iterator<Map.Entry<String, ChunkedDocument>> it = chunkedDocuments.entrySet().iterator();
+		while(it.hasNext()) {
+			Map.Entry<String, ChunkedDocument> document = it.next();
+			if(processedCases - document.getValue().getLastChunk() >= documentsInFlight) {
+				logger.warn(MessageFormat.format("Not all chunks of {0} have been processed, no output is written", document.getKey()));
+				document.getValue().delete();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Passes the header and the rows of a document to a handler
+	 */
+	private interface DocumentRows {
+		void writeTo(RowHandler handler) throws IOException;
+	}
+
+	/**
+	 * Writes the output of a document, or adds it to the write-behind queue
+	 *
+	 * @param aTextHash the hash of the text for the completion journal, or null without journal
+	 * @param aCleanup called after the output has been written or has failed, or null
+	 */
+	private void writeDocument(JCas aJCas, String aTextHash, DocumentRows aRows, Runnable aCleanup) throws IOException {
+		String relativePath = getRelativePath(aJCas);
+		if(writeBehindQueue == null) {
+			try {
+				writeOutput(relativePath, aTextHash, aRows, false);
+			} finally {
+				if(aCleanup != null) {
+					aCleanup.run();
+				}
+			}
+			return;
+		}
+
+		try {
+			writeBehindQueue.submit(getDocumentFile(aJCas), () -> {
+				try {
+					writeOutput(relativePath, aTextHash, aRows, true);
+				} finally {
+					if(aCleanup != null) {
+						aCleanup.run();
+					}
+				}
+			});
+		} catch (IOException e) {
+			if(aCleanup != null) {
+				aCleanup.run();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the input file of the document, or null if it has not been read from a file
+	 */
+	private static File getDocumentFile(JCas aJCas) {
+		String uri = DocumentMetaData.get(aJCas).getDocumentUri();
+		if(uri == null || !uri.startsWith("file:")) {
+			return null;
+		}
+		try {
+			return new File(new URI(uri));
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the output of a document and records it as completed
+	 *
+	 * @param aSync whether the output is synced to the storage before it is recorded
+	 */
+	private void writeOutput(String aRelativePath, String aTextHash, DocumentRows aRows, boolean aSync) throws IOException {
+		OutputStream out = null;
+		try {
+			CountingOutputStream counter = null;
+			ByteArrayOutputStream shardOutput = null;
+			String outputName = null;
+			if(outputShards != null) {
+				// The output is appended to the shard at once, when it is complete
+				shardOutput = new ByteArrayOutputStream();
+				out = (getCompressionMethod() == CompressionMethod.GZIP) ? new LeveledGZIPOutputStream(shardOutput, compressionLevel) : shardOutput;
+			} else {
+				// Without target location, the output is written to the console like by the base class
+				NamedOutputStream output = (getTargetLocation() == null) ? new NamedOutputStream(null, new CloseShieldOutputStream(System.out))
+						: getOutputStream(aRelativePath, filenameSuffix);
+				outputName = output.getName();
+				counter = new CountingOutputStream(output);
+				out = counter;
+			}
+			RowWriter writer = createRowWriter(out);
+			aRows.writeTo(writer);
+			writer.close();
+
+			long outputBytes;
+			if(outputShards != null) {
+				outputBytes = outputShards.append(aRelativePath, shardOutput, aSync);
+			} else {
+				if(aSync && isOwnFile()) {
+					sync(new File(outputName));
+				}
+				// The journal compares the size with the file, which is smaller than the rows if it is compressed
+				outputBytes = isOwnFile() ? new File(outputName).length() : counter.getByteCount();
+			}
+			if(completionJournal != null) {
+				completionJournal.completed(aRelativePath, aTextHash, outputBytes);
+			}
+		}
+		finally {
+			closeQuietly(out);
+		}
+	}
+
+	/**
+	 * @return true if each output is written into a file of its own, and not into a ZIP
+	 * file or a single target file
+	 */
+	private boolean isOwnFile() {
+		return getTargetLocation() != null && !getTargetLocation().startsWith(JAR_PREFIX) && !Boolean.TRUE.equals(getContext().getConfigParameterValue(PARAM_SINGULAR_TARGET));
+	}
+
+	/**
+	 * Forces the content of a file that has been closed to the storage
+	 */
+	private static void sync(File file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Writes the rows of a chunk into a part file
+	 *
+	 * @return the document of the chunk
+	 */
+	private ChunkedDocument addChunk(JCas aJCas, DocumentChunk aChunk) throws IOException {
+		String relativePath = getRelativePath(aJCas);
+		ChunkedDocument document = chunkedDocuments.get(relativePath);
+		if(document != null && document.contains(aChunk)) {
+			// The document is read again, e.g. because it has been changed in the input folder
+			logger.warn(MessageFormat.format("Not all chunks of {0} have been processed, starting again", relativePath));
+			document.delete();
+			document = null;
+		}
+		if(document == null) {
+			document = new ChunkedDocument(relativePath, aChunk.getCount(), aChunk.getDocumentHash());
+			chunkedDocuments.put(relativePath, document);
+		}
+
+		document.setLastChunk(processedCases);
+		ChunkedDocument.PartWriter part = document.createPart(aChunk, getPartFolder());
+		try {
+			Counts counts = convert(aJCas, part);
+			part.close(counts);
+		} catch (IOException | RuntimeException e) {
+			part.abort();
+			throw e;
+		}
+		return document;
+	}
+
+	/**
+	 * @return the output folder, or null for the temporary folder if the outputs are
+	 * written into a ZIP file or a single target file
+	 */
+	private File getPartFolder() throws IOException {
+		if(!isOwnFile()) {
+			return null;
+		}
+		File folder = new File(getTargetLocation());
+		FileUtils.forceMkdir(folder);
+		return folder;
+	}
+
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+		if(writeBehindQueue != null) {
+			// The base class closes a ZIP file or single target file, into which the queue may still write
+			try {
+				writeBehindQueue.awaitWritten();
+			} catch (IOException e) {
+				throw new AnalysisEngineProcessException(e);
+			}
+		}
+		super.collectionProcessComplete();
+		// A chunk failed, so the document has no output
+		for(Map.Entry<String, ChunkedDocument> document : chunkedDocuments.entrySet()) {
+			logger.warn(MessageFormat.format("Not all chunks of {0} have been processed, no output is written", document.getKey()));
+			document.getValue().delete();
+		}
+		chunkedDocuments.clear();
+	}
+
+	/**
+	 * Writes the output of the document and closes the stream
+	 */
+	protected void write(JCas aJCas, OutputStream aOut) throws IOException {
+		RowWriter writer = createRowWriter(aOut);
+		convert(aJCas, writer);
+		writer.close();
+	}
+
+	/**
+	 * @return a handler that writes the rows in the format of this writer into the stream
+	 */
+	protected RowWriter createRowWriter(OutputStream aOut) throws IOException {
+		return new TsvRowWriter(new PrintWriter(new BufferedWriter(new OutputStreamWriter(aOut, encoding), WRITER_BUFFER_SIZE)));
+	}
+
+	/**
+	 * Receives the rows of a document from {@link DARIAHWriter#convert(JCas, RowHandler)}
+	 */
+	interface RowHandler {
+		/**
+		 * Called once before the rows with the names of the columns
+		 */
+		void header(String[] columns);
+
+		/**
+		 * Called for each token with one field per column. The fields are reused for
+		 * the next row, so they must not be kept.
+		 */
+		void row(Fields fields);
+	}
+
+	/**
+	 * The fields of a row. Ids and positions are stored as ints, with {@link DARIAHWriter#UNUSED_INT}
+	 * for an unused field, and the token as its range of the document text, so neither
+	 * becomes a String unless a handler asks for one with {@link #get(int)}.
+	 */
+	static final class Fields {
+		private String[] strings = new String[0];
+		private int[] begins = new int[0];
+		private int[] ends = new int[0];
+		private int size;
+
+		int size() {
+			return size;
+		}
+
+		/**
+		 * Sets the number of fields, their values are set afterwards
+		 */
+		void setSize(int aSize) {
+			if(aSize > strings.length) {
+				strings = Arrays.copyOf(strings, aSize);
+				begins = Arrays.copyOf(begins, aSize);
+				ends = Arrays.copyOf(ends, aSize);
+			}
+			size = aSize;
+		}
+
+		void set(int column, String value) {
+			// A missing value is written as an empty field
+			String text = (value == null) ? "" : value;
+			set(column, text, 0, text.length());
+		}
+
+		/**
+		 * Sets the field to the part of the text from begin to end
+		 */
+		void set(int column, String text, int begin, int end) {
+			strings[column] = text;
+			begins[column] = begin;
+			ends[column] = end;
+		}
+
+		/**
+		 * Appends the text of a field that is not an integer field
+		 */
+		void appendTo(int column, StringBuilder text) {
+			text.append(strings[column], begins[column], ends[column]);
+		}
+
+		void setInt(int column, int value) {
+			strings[column] = null;
+			begins[column] = value;
+		}
+
+		boolean isInt(int column) {
+			return strings[column] == null;
+		}
+
+		/**
+		 * @return the value of an integer field, or of a field with a number as text
+		 */
+		int getInt(int column) {
+			if(isInt(column)) {
+				return begins[column];
+			}
+			String value = get(column);
+			return UNUSED.equals(value) ? UNUSED_INT : Integer.parseInt(value);
+		}
+
+		String get(int column) {
+			if(isInt(column)) {
+				return (begins[column] == UNUSED_INT) ? UNUSED : Integer.toString(begins[column]);
+			}
+			String text = strings[column];
+			return (begins[column] == 0 && ends[column] == text.length()) ? text : text.substring(begins[column], ends[column]);
+		}
+	}
+
+	/**
+	 * Writes the rows into an output stream, see {@link DARIAHWriter#createRowWriter(OutputStream)}
+	 */
+	interface RowWriter extends RowHandler {
+		/**
+		 * Called after the last row, writes what is left and closes the stream
+		 */
+		void close() throws IOException;
+	}
+
+	/**
+	 * Writes one line per row with the fields separated by tabs. Each line is put
+	 * together in a buffer that is reused for all rows, with the numbers written digit
+	 * by digit, and like before, without whitespace at its beginning and end.
+	 */
+	private static class TsvRowWriter implements RowWriter {
+		private final PrintWriter out;
+		private char[] line = new char[1024];
+		private int length;
+
+		TsvRowWriter(PrintWriter out) {
+			this.out = out;
+		}
+
+		@Override
+		public void header(String[] columns) {
+			length = 0;
+			for(int i = 0; i < columns.length; i++) {
+				if(i > 0) {
+					append('\t');
+				}
+				append(columns[i], 0, columns[i].length());
+			}
+			writeLine();
+		}
+
+		@Override
+		public void row(Fields fields) {
+			length = 0;
+			for(int i = 0; i < fields.size(); i++) {
+				if(i > 0) {
+					append('\t');
+				}
+				if(fields.isInt(i)) {
+					appendInt(fields.begins[i]);
+				} else {
+					append(fields.strings[i], fields.begins[i], fields.ends[i]);
+				}
+			}
+			writeLine();
+		}
+
+		private void writeLine() {
+			int start = 0;
+			int end = length;
+			while(start < end && line[start] <= ' ') {
+				start++;
+			}
+			while(end > start && line[end-1] <= ' ') {
+				end--;
+			}
+			out.write(line, start, end - start);
+			out.write('\n');
+		}
+
+		private void append(char c) {
+			ensureCapacity(1);
+			line[length++] = c;
+		}
+
+		private void append(String text, int begin, int end) {
+			ensureCapacity(end - begin);
+			text.getChars(begin, end, line, length);
+			length += end - begin;
+		}
+
+		private void appendInt(int value) {
+			if(value == UNUSED_INT) {
+				append(UNUSED, 0, UNUSED.length());
+				return;
+			}
+			// At most 10 digits and the sign
+			ensureCapacity(11);
+			long number = value;
+			if(number < 0) {
+				line[length++] = '-';
+				number = -number;
+			}
+			int digits = 1;
+			for(long n = number; n >= 10; n /= 10) {
+				digits++;
+			}
+			for(int i = length + digits - 1; i >= length; i--) {
+				line[i] = (char) ('0' + number % 10);
+				number /= 10;
+			}
+			length += digits;
+		}
+
+		private void ensureCapacity(int chars) {
+			if(length + chars > line.length) {
+				line = Arrays.copyOf(line, Math.max(line.length * 2, length + chars));
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+			// PrintWriter does not throw, a document only counts as completed if everything has been written
+			if(out.checkError()) {
+				throw new IOException("Error when writing the output");
+			}
+		}
+	}
+
+	/**
+	 * The chunk and named entity tags with the BIO prefix, so the labels are not put
+	 * together again for every token
+	 */
+	private static final class BioLabels {
+		private final boolean removeTagging;
+		private final Map<String, String> beginLabels = new HashMap<>();
+		private final Map<String, String> insideLabels = new HashMap<>();
+
+		/**
+		 * @param removeTagging whether a BIO prefix of the tag, like <code>B-</code>, is removed
+		 */
+		BioLabels(boolean removeTagging) {
+			this.removeTagging = removeTagging;
+		}
+
+		String get(String tag, boolean begin) {
+			Map<String, String> labels = begin ? beginLabels : insideLabels;
+			String label = labels.get(tag);
+			if(label == null) {
+				String value = tag;
+				if(removeTagging && tag.length() > 1 && tag.charAt(1) == '-') {
+					value = tag.substring(2); //Remove IOB tagging from Stanford Tagger
+				}
+				label = (begin ? "B-" : "I-") + value;
+				labels.put(tag, label);
+			}
+			return label;
+		}
+	}
+
+	/**
+	 * The numbers of paragraphs, sentences, tokens and coreference chains of a document,
+	 * which are the offsets of the ids in the following {@link DocumentChunk chunk}
+	 */
+	static final class Counts {
+		final int paragraphs;
+		final int sentences;
+		final int tokens;
+		final int corefChains;
+
+		Counts(int paragraphs, int sentences, int tokens, int corefChains) {
+			this.paragraphs = paragraphs;
+			this.sentences = sentences;
+			this.tokens = tokens;
+			this.corefChains = corefChains;
+		}
+	}
+
+	/**
+	 * Compresses gzip outputs with the configured level and writes them in large blocks,
+	 * as the runs are limited by the speed of the storage. The other methods, and
+	 * outputs into a ZIP file or a single target file, are left to the base class.
+	 */
+	@Override
+	protected NamedOutputStream getOutputStream(String aRelativePath, String aExtension) throws IOException {
+		if(getCompressionMethod() != CompressionMethod.GZIP || !isOwnFile()) {
+			return super.getOutputStream(aRelativePath, aExtension);
+		}
+
+		File file = new File(getTargetLocation(), aRelativePath + aExtension + CompressionMethod.GZIP.getExtension());
+		if(!Boolean.TRUE.equals(getContext().getConfigParameterValue(PARAM_OVERWRITE)) && file.exists()) {
+			throw new IOException("Target file [" + file + "] already exists and overwriting not enabled.");
+		}
+		FileUtils.forceMkdir(file.getParentFile());
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file), COMPRESSION_BUFFER_SIZE);
+		return new NamedOutputStream(file.getAbsolutePath(), new LeveledGZIPOutputStream(out, compressionLevel));
+	}
+
+	private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+		LeveledGZIPOutputStream(OutputStream out, int level) throws IOException {
+			super(out, COMPRESSION_BUFFER_SIZE);
+			if(level != Deflater.DEFAULT_COMPRESSION) {
+				def.setLevel(level);
+			}
+		}
+	}
+
+	void convert(JCas aJCas, final PrintWriter aOut)
 	{
-		int paragraphId = 0, sentenceId = 0, tokenId = 0;
+		convert(aJCas, new TsvRowWriter(aOut));
+	}
 
-		
+	/**
+	 * Builds the rows of the document, one per token, and passes them to the handler
+	 *
+	 * @return the numbers of paragraphs, sentences, tokens and coreference chains
+	 */
+	Counts convert(JCas aJCas, RowHandler aHandler)
+	{
+		int paragraphId = 0, sentenceId = 0, tokenId = 0;
 
-		Map<Token, Collection<NamedEntity>> neCoveringMap = JCasUtil.indexCovering(aJCas, Token.class, NamedEntity.class);
-		Map<Token, Collection<Chunk>> chunksCoveringMap = JCasUtil.indexCovering(aJCas, Token.class, Chunk.class);
 		
-		Map<Token, Collection<Section>> sectionCoveringMap = JCasUtil.indexCovering(aJCas, Token.class, Section.class);
-		Map<Token, Collection<DirectSpeech>> directSpeechCoveringMap = JCasUtil.indexCovering(aJCas, Token.class, DirectSpeech.class);
 
-		Map<Token, Collection<SemanticPredicate>> predIdx = JCasUtil.indexCovered(aJCas, Token.class,
-                SemanticPredicate.class);
-		
-		Map<SemanticPredicate, Collection<Token>> pred2TokenIdx = JCasUtil.indexCovering(aJCas, SemanticPredicate.class, Token.class);
+		// The tokens are visited in the order of the text, so the annotations that cover
+		// them are found in one pass over each index instead of a map per layer
+		CoveringAnnotations<NamedEntity> neCovering = new CoveringAnnotations<>(aJCas, NamedEntity.class);
+		CoveringAnnotations<Chunk> chunksCovering = new CoveringAnnotations<>(aJCas, Chunk.class);
 		
-        Map<SemanticArgument, Collection<Token>> argIdx = JCasUtil.indexCovered(aJCas, SemanticArgument.class, Token.class);
+		CoveringAnnotations<Section> sectionCovering = new CoveringAnnotations<>(aJCas, Section.class);
+		CoveringAnnotations<DirectSpeech> directSpeechCovering = new CoveringAnnotations<>(aJCas, DirectSpeech.class);
         
         
         //Coreference
-        Map<Token, Collection<CoreferenceLink>> corefLinksCoveringMap = JCasUtil.indexCovering(aJCas, Token.class, CoreferenceLink.class);
-        HashMap<CoreferenceLink, CoreferenceChain> linkToChainMap = new HashMap<>();
-        HashMap<CoreferenceChain, Integer> corefChainToIntMap = new HashMap<>();
-        
-        int corefChainId = 0;
-        for (CoreferenceChain chain : JCasUtil.select(aJCas, CoreferenceChain.class)) {
-        	
-        	CoreferenceLink link = chain.getFirst();
-        	int count = 0;
-			while(link != null) {
-				linkToChainMap.put(link, chain);
-				link = link.getNext();
-				count++;
-			}
-			if(count > 0) {
-	        	corefChainToIntMap.put(chain, corefChainId);
-				corefChainId++;			
-			}
-		}
+        CoveringAnnotations<CoreferenceLink> corefLinksCovering = new CoveringAnnotations<>(aJCas, CoreferenceLink.class);
+        CoreferenceChainIds corefChainIds = new CoreferenceChainIds(aJCas);
         
         
         HashMap<Token, Row> ctokens = new LinkedHashMap<Token, Row>();
@@ -218,6 +869,8 @@ extends JCasFileWriter_ImplBase
 	            
 
 	            List<SemanticPredicate> preds = selectCovered(SemanticPredicate.class, sentence);
+	            // The predicates before this one cannot be covered by the following tokens
+	            int firstPred = 0;
 	            
 				for (int i = 0; i < tokens.size(); i++) {
 					Row row = new Row();
@@ -241,71 +894,34 @@ extends JCasFileWriter_ImplBase
 					}
 					
 					// Section ID
-					Collection<Section> section = sectionCoveringMap.get(row.token);
-					if(section.size() > 0)
-						row.sectionId = section.toArray(new Section[0])[0].getValue();
+					Section section = sectionCovering.first(row.token);
+					if(section != null)
+						row.sectionId = section.getValue();
 
 					// Named entities
-					Collection<NamedEntity> ne = neCoveringMap.get(row.token);
-					if(ne.size() > 0)
-						row.ne = ne.toArray(new NamedEntity[0])[0];
+					row.ne = neCovering.first(row.token);
 					
 					// Chunk
-					Collection<Chunk> chunks = chunksCoveringMap.get(row.token);
-					if(chunks.size() > 0)
-						row.chunk = chunks.toArray(new Chunk[0])[0];
+					row.chunk = chunksCovering.first(row.token);
 					
 					//Quote annotation
-					Collection<DirectSpeech> ds = directSpeechCoveringMap.get(row.token);
-					if(ds.size() > 0)
-						row.directSpeech = ds.toArray(new DirectSpeech[0])[0];
+					row.directSpeech = directSpeechCovering.first(row.token);
 					
 					//Coref
-					Collection<CoreferenceLink> corefLinks = corefLinksCoveringMap.get(row.token);
-					row.corefChains = UNUSED;
-					if(corefLinks.size() > 0) {
-						
-						
-						String[] chainIds = new String[corefLinks.size()];
-//						StringBuilder chainIdsStr = new StringBuilder();
-						
-						int k=0;
-						for(CoreferenceLink link : corefLinks) {
-							CoreferenceChain chain = linkToChainMap.get(link);
-							int chainId = corefChainToIntMap.get(chain);
-							
-							//chainIds[k++] = chainId;
-							
-							String BIOMarker = "I";
-							if(link.getCoveredText().substring(0, row.token.getCoveredText().length()).equals(row.token.getCoveredText())) {
-								BIOMarker = "B";
+					row.corefChains = corefChainIds.get(corefLinksCovering.all(row.token), row.token);
+					
+					//Predicate, the first one within the token, and the column of the last one
+					while (firstPred < preds.size() && preds.get(firstPred).getBegin() < row.token.getBegin()) {
+						firstPred++;
+					}
+					for (int p = firstPred; p < preds.size() && preds.get(p).getBegin() <= row.token.getEnd(); p++) {
+						if (preds.get(p).getEnd() <= row.token.getEnd()) {
+							if (row.pred == null) {
+								row.pred = preds.get(p);
 							}
-							chainIds[k++] = BIOMarker+"-"+chainId;
-						}
-						
-						//Sort without the BIO marker
-						Arrays.sort(chainIds, new Comparator<String>() {
-						    public int compare(String idx1, String idx2) {
-						    	Integer id1 = new Integer(idx1.substring(2));
-						    	Integer id2 = new Integer(idx2.substring(2));
-						    	
-						        return Integer.compare(id1, id2);
-						    }
-						});
-						 
-						StringBuilder chainIdsStr = new StringBuilder();
-						for(String chainId : chainIds) {
-							chainIdsStr.append(chainId+",");
+							row.semanticArgIndex = p;
 						}
-						
-						row.corefChains = chainIdsStr.substring(0, chainIdsStr.length()-1);
 					}
-					
-					//Predicate
-	                Collection<SemanticPredicate> predsForToken = predIdx.get(row.token);
-	                if (predsForToken != null && !predsForToken.isEmpty()) {
-	                    row.pred = predsForToken.iterator().next();
-	                }
 
 					ctokens.put(row.token, row);
 					tokenId++;
@@ -320,18 +936,12 @@ extends JCasFileWriter_ImplBase
 	            for (int p = 0; p < preds.size(); p++) {
 	                FSArray args = preds.get(p).getArguments();	 
 	                
-	                //Set the column position info
-	                Collection<Token> tokensOfPredicate = pred2TokenIdx.get(preds.get(p));
-	                for(Token t: tokensOfPredicate) {
-	                	Row row = ctokens.get(t);
-	                	row.semanticArgIndex = p;
-	                }
-	                
-	                //Set the arguments information
+	                //Set the arguments information for the tokens within the argument
 	                for (SemanticArgument arg : select(args, SemanticArgument.class)) {
-	                    for (Token t : argIdx.get(arg)) {
-	                        Row row = ctokens.get(t);
-	                        row.args[p] = arg;
+	                    for (int t = firstTokenFrom(tokens, arg.getBegin()); t < tokens.size() && tokens.get(t).getBegin() <= arg.getEnd(); t++) {
+	                        if (tokens.get(t).getEnd() <= arg.getEnd()) {
+	                            ctokens.get(tokens.get(t)).args[p] = arg;
+	                        }
 	                    }
 	                }
 	            }
@@ -350,19 +960,243 @@ extends JCasFileWriter_ImplBase
 			maxPredArguments = Math.max(maxPredArguments, row.args.length);
 		}
 		
-		aOut.printf("%s\n",StringUtils.join(getHeader(maxPredArguments), "\t").trim());
-		
+		aHandler.header(getHeader(maxPredArguments));
 		
+		String text = aJCas.getDocumentText();
+		Fields fields = new Fields();
+		fields.setSize(COLUMNS.length + maxPredArguments);
 		for (Row row : ctokens.values()) {
-			String[] output = getData(ctokens, maxPredArguments, row);					
-			aOut.printf("%s\n",StringUtils.join(output, "\t").trim());
+			setFields(fields, text, ctokens, row);
+			aHandler.row(fields);
 		}    
 			
-		
-		       
+		return new Counts(paragraphId, sentenceId, tokenId, corefChainIds.getChainCount());
+	}
+
+	/**
+	 * @return the index of the first of the tokens, which are sorted by their begin, that
+	 * begins at or after the position
+	 */
+	private static int firstTokenFrom(List<Token> tokens, int position) {
+		int low = 0;
+		int high = tokens.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (tokens.get(middle).getBegin() < position) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
 	}
 
-	private String[] getData(HashMap<Token, Row> ctokens, int numPredArguments, Row row) {
+	/**
+	 * The ids of the coreference chains of the links that cover a token, like
+	 * <code>I-3,B-5</code>. The chains are numbered in their index order, skipping chains
+	 * without links, and the id of each link is looked up by its address in a sorted
+	 * array. A link is the beginning (B) of a mention if it begins with the token.
+	 * <p>
+	 * The ids of a token are sorted as ints, twice the chain id plus one for B, so the
+	 * I of a chain comes before its B like in the index order of the links, and only
+	 * put together as text if there are several.
+	 */
+	private static final class CoreferenceChainIds {
+		/** The address of each link in the upper and its chain id in the lower 32 bits, sorted */
+		private final long[] links;
+		private final int chainCount;
+		private int[] codes = new int[8];
+		/** The text of the ids by code, for the tokens with one link */
+		private String[] labels = new String[0];
+		private final StringBuilder ids = new StringBuilder();
+
+		CoreferenceChainIds(JCas aJCas) {
+			long[] chainLinks = new long[64];
+			int size = 0;
+			int chainId = 0;
+			for (CoreferenceChain chain : select(aJCas, CoreferenceChain.class)) {
+				CoreferenceLink link = chain.getFirst();
+				if (link == null) {
+					continue;
+				}
+				while (link != null) {
+					if (size == chainLinks.length) {
+						chainLinks = Arrays.copyOf(chainLinks, size * 2);
+					}
+					chainLinks[size++] = ((long) link.getAddress() << 32) | chainId;
+					link = link.getNext();
+				}
+				chainId++;
+			}
+			links = Arrays.copyOf(chainLinks, size);
+			Arrays.sort(links);
+			chainCount = chainId;
+		}
+
+		int getChainCount() {
+			return chainCount;
+		}
+
+		/**
+		 * @param covering the links that cover the token in index order
+		 * @return the ids of the chains of the links, or _ if there are none
+		 */
+		String get(List<CoreferenceLink> covering, Token token) {
+			int size = 0;
+			for (int i = 0; i < covering.size(); i++) {
+				CoreferenceLink link = covering.get(i);
+				int chainId = getChainId(link);
+				if (chainId < 0) {
+					// A link that is not part of a chain has no id
+					continue;
+				}
+				if (size == codes.length) {
+					codes = Arrays.copyOf(codes, size * 2);
+				}
+				codes[size++] = chainId * 2 + ((link.getBegin() == token.getBegin()) ? 1 : 0);
+			}
+			if (size == 0) {
+				return UNUSED;
+			}
+			if (size == 1) {
+				return getLabel(codes[0]);
+			}
+			Arrays.sort(codes, 0, size);
+			ids.setLength(0);
+			for (int i = 0; i < size; i++) {
+				if (i > 0) {
+					ids.append(',');
+				}
+				appendLabel(ids, codes[i]);
+			}
+			return ids.toString();
+		}
+
+		/**
+		 * @return the id of the chain of the link, the last one if it is part of several, or -1
+		 */
+		private int getChainId(CoreferenceLink link) {
+			long address = link.getAddress();
+			// The first entry after those of the link
+			int low = 0;
+			int high = links.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if ((links[middle] >> 32) <= address) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (low == 0 || (links[low - 1] >> 32) != address) {
+				return -1;
+			}
+			return (int) links[low - 1];
+		}
+
+		private String getLabel(int code) {
+			if (code >= labels.length) {
+				labels = Arrays.copyOf(labels, Math.max(code + 1, labels.length * 2));
+			}
+			if (labels[code] == null) {
+				labels[code] = appendLabel(new StringBuilder(), code).toString();
+			}
+			return labels[code];
+		}
+
+		private static StringBuilder appendLabel(StringBuilder text, int code) {
+			return text.append(((code & 1) == 1) ? "B-" : "I-").append(code >> 1);
+		}
+	}
+
+	/**
+	 * Finds the annotations of one type that cover a token, like
+	 * {@link JCasUtil#indexCovering(JCas, Class, Class)}, but without a map of all tokens.
+	 * If the tokens are passed in the order of their begin, the index is read only once,
+	 * keeping the annotations that have begun and not yet ended. Types without annotations
+	 * are not looked at.
+	 */
+	private static final class CoveringAnnotations<T extends Annotation> {
+		private final AnnotationIndex<Annotation> index;
+		private final boolean empty;
+		/** The annotations that begin before the last token and end after its begin, in index order */
+		private final List<T> open = new ArrayList<>();
+		private final List<T> covering = new ArrayList<>();
+		private FSIterator<Annotation> iterator;
+		private T next;
+		private int lastBegin = Integer.MAX_VALUE;
+
+		CoveringAnnotations(JCas aJCas, Class<T> type) {
+			index = aJCas.getAnnotationIndex(JCasUtil.getType(aJCas, type));
+			empty = index.size() == 0;
+		}
+
+		/**
+		 * @return the first annotation in index order that covers the token, or null
+		 */
+		T first(Token token) {
+			if (empty) {
+				return null;
+			}
+			moveTo(token);
+			for (int i = 0; i < open.size(); i++) {
+				if (open.get(i).getEnd() >= token.getEnd()) {
+					return open.get(i);
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * @return the annotations that cover the token in index order, the list is reused
+		 * for the next token
+		 */
+		List<T> all(Token token) {
+			covering.clear();
+			if (!empty) {
+				moveTo(token);
+				for (int i = 0; i < open.size(); i++) {
+					if (open.get(i).getEnd() >= token.getEnd()) {
+						covering.add(open.get(i));
+					}
+				}
+			}
+			return covering;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void moveTo(Token token) {
+			int begin = token.getBegin();
+			if (begin < lastBegin) {
+				// The first token, or a token before the previous one
+				open.clear();
+				iterator = index.iterator();
+				next = iterator.isValid() ? (T) iterator.get() : null;
+			}
+			lastBegin = begin;
+
+			while (next != null && next.getBegin() <= begin) {
+				open.add(next);
+				iterator.moveToNext();
+				next = iterator.isValid() ? (T) iterator.get() : null;
+			}
+			// Annotations that end before the token cannot cover the following tokens either
+			int kept = 0;
+			for (int i = 0; i < open.size(); i++) {
+				T annotation = open.get(i);
+				if (annotation.getEnd() >= begin) {
+					open.set(kept++, annotation);
+				}
+			}
+			open.subList(kept, open.size()).clear();
+		}
+	}
+
+	/**
+	 * Sets the fields of the row of a token, with one field per semantic argument column
+	 * of the header
+	 */
+	private void setFields(Fields fields, String text, HashMap<Token, Row> ctokens, Row row) {
 		String lemma = UNUSED;
 		if (writeLemma && (row.token.getLemma() != null)) {
 			lemma = row.token.getLemma().getValue();
@@ -392,11 +1226,6 @@ extends JCasFileWriter_ImplBase
 			}
 		}
 
-		String head = UNUSED;
-		if (headId != UNUSED_INT) {
-			head = Integer.toString(headId);
-		}
-
 		String morphology = UNUSED;
 		if (writeMorph && (row.morphology != null)) {
 			morphology = row.morphology.getMorphTag();
@@ -407,32 +1236,15 @@ extends JCasFileWriter_ImplBase
 			hyphenation = row.hyphenation.getValue();
 		}
 		
+		//BIO-Tagging, B for beginning tag, I for all intermediate tags
 		String chunk = UNUSED;
 		if(row.chunk != null) {
-			chunk = row.chunk.getChunkValue(); //Remove IOB tagging from Stanford Tagger
-			//BIO-Tagging, B for beginning tag, I for all intermediate tags
-			if(row.chunk.getBegin() == row.token.getBegin()) {
-				chunk = "B-"+chunk;
-			} else {
-				chunk = "I-"+chunk;
-			}
+			chunk = chunkLabels.get(row.chunk.getChunkValue(), row.chunk.getBegin() == row.token.getBegin());
 		}
 
-
 		String ne = UNUSED;
-
 		if(row.ne != null) {
-			if(row.ne.getValue().length() > 1 && row.ne.getValue().substring(1, 2).equals("-"))
-				ne = row.ne.getValue().substring(2); //Remove IOB tagging from Stanford Tagger
-			else
-				ne = row.ne.getValue();
-			
-			//BIO-Tagging, B for beginning tag, I for all intermediate tags
-			if(row.ne.getBegin() == row.token.getBegin()) {
-				ne = "B-"+ne;
-			} else {
-				ne = "I-"+ne;
-			}
+			ne = neLabels.get(row.ne.getValue(), row.ne.getBegin() == row.token.getBegin());
 		}
 
 		String quoteMarker = "0";
@@ -440,98 +1252,55 @@ extends JCasFileWriter_ImplBase
 			quoteMarker = "1";
 		}
 		
-	
-		
-		
-
-		
 		String parseFragment = UNUSED;
 		if(row.parseFragment != null)
 			parseFragment = row.parseFragment;
 		
-		 String fillpred = UNUSED;
-         String pred = UNUSED;
-         String semanticArgumentIndex = UNUSED;
-         
-         if (row.pred != null) {
-             fillpred = "Y";
-             pred = row.pred.getCategory();
-             semanticArgumentIndex = String.valueOf(row.semanticArgIndex);
-         }
-         
-
-         String[] apreds = new String[numPredArguments];
-         for(int i=0;i<apreds.length; i++) {
-        	 apreds[i] = UNUSED;
-        	 
-        	 if(row.args.length > i && row.args[i] != null) {
-        		 apreds[i] = row.args[i].getRole();
-        	 }
-         }
-        
-         
-
-
-		String[] output = new String[] {
-				row.sectionId,
-				Integer.toString(row.paragraphId),
-				Integer.toString(row.sentenceId),
-				Integer.toString(row.tokenId),
-				Integer.toString(row.token.getBegin()),
-				Integer.toString(row.token.getEnd()),
-				row.token.getCoveredText(), 
-				lemma, 
-				cpos, 
-				pos, 
-				chunk,
-				morphology, 
-				hyphenation,
-				head, 
-				deprel,
-				ne,
-				quoteMarker,
-				row.corefChains,
-				parseFragment,				
-				pred,
-				semanticArgumentIndex,
-				StringUtils.join(apreds, '\t')
-				
-		};
-		return output;
+		String pred = UNUSED;
+		int semanticArgumentIndex = UNUSED_INT;
+		if (row.pred != null) {
+			pred = row.pred.getCategory();
+			semanticArgumentIndex = row.semanticArgIndex;
+		}
+
+		fields.set(0, row.sectionId);
+		fields.setInt(1, row.paragraphId);
+		fields.setInt(2, row.sentenceId);
+		fields.setInt(3, row.tokenId);
+		fields.setInt(4, row.token.getBegin());
+		fields.setInt(5, row.token.getEnd());
+		fields.set(6, text, row.token.getBegin(), row.token.getEnd());
+		fields.set(7, lemma);
+		fields.set(8, cpos);
+		fields.set(9, pos);
+		fields.set(10, chunk);
+		fields.set(11, morphology);
+		fields.set(12, hyphenation);
+		fields.setInt(13, headId);
+		fields.set(14, deprel);
+		fields.set(15, ne);
+		fields.set(16, quoteMarker);
+		fields.set(17, row.corefChains);
+		fields.set(18, parseFragment);
+		fields.set(19, pred);
+		fields.setInt(20, semanticArgumentIndex);
+
+		for (int i = COLUMNS.length; i < fields.size(); i++) {
+			int arg = i - COLUMNS.length;
+			if (arg < row.args.length && row.args[arg] != null) {
+				fields.set(i, row.args[arg].getRole());
+			} else {
+				fields.set(i, UNUSED);
+			}
+		}
 	}
 
 	private String[] getHeader(int numPredArguments) {
-		List<String> header = new LinkedList<String>(Arrays.asList(new String[] {
-				"SectionId",
-				"ParagraphId",
-				"SentenceId",
-				"TokenId",
-				"Begin",
-				"End",
-				"Token",
-				"Lemma",
-				"CPOS",
-				"POS",
-				"Chunk",
-				"Morphology",
-				"Hyphenation",
-				"DependencyHead",
-				"DependencyRelation",
-				"NamedEntity",
-				"QuoteMarker",
-				"CoreferenceChainIds",
-				"SyntaxTree",
-				"Predicate",
-				"SemanticArgumentIndex"
-		}));
-		
+		String[] header = Arrays.copyOf(COLUMNS, COLUMNS.length + numPredArguments);
 		for(int i=0;i<numPredArguments;i++) {
-			header.add("SemanticArgument"+i);
+			header[COLUMNS.length + i] = "SemanticArgument"+i;
 		}
-		
-		
-
-		return header.toArray(new String[0]);
+		return header;
 	}
 	
 	public static String[] toPrettyPennTree(PennTreeNode aNode)
@@ -0,0 +1,172 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The order in which the {@link DocumentQueue} hands out the input files. Except for
+ * {@link Policy#FOUND}, all input files must be listed before they can be sorted, so
+ * the first document only starts after the listing.
+ */
+public class DocumentOrder {
+
+	private static final Logger logger = LogManager.getLogger(DocumentOrder.class);
+
+	public enum Policy {
+		/** In the order in which the files are found, while the listing continues */
+		FOUND,
+		/** The largest files first, so that a long novel does not delay the end of a run */
+		LARGEST,
+		/** The smallest files first, for the first results as early as possible */
+		SMALLEST,
+		/** The files with the oldest modification time first */
+		OLDEST,
+		/** The files of a priority list first, in the order of the list, then the others as found */
+		PRIORITY
+	}
+
+	public static final DocumentOrder FOUND = new DocumentOrder(Policy.FOUND, null);
+
+	private static final String PRIORITY_PREFIX = "priority:";
+
+	private final Policy policy;
+	/** For {@link Policy#PRIORITY}, the position of each file name or path in the list */
+	private final Map<String, Integer> priorities;
+
+	private DocumentOrder(Policy policy, Map<String, Integer> priorities) {
+		this.policy = policy;
+		this.priorities = priorities;
+	}
+
+	/**
+	 * Parses an order like <code>largest</code> or <code>priority:list.txt</code>
+	 */
+	public static DocumentOrder parse(String order) throws IOException {
+		if(order.toLowerCase().startsWith(PRIORITY_PREFIX)) {
+			return fromPriorityList(new File(order.substring(PRIORITY_PREFIX.length())));
+		}
+		Policy policy;
+		try {
+			policy = Policy.valueOf(order.toUpperCase());
+		} catch(IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown order: "+order+". Use found, largest, smallest, oldest or "+PRIORITY_PREFIX+"<file>");
+		}
+		if(policy == Policy.PRIORITY) {
+			throw new IllegalArgumentException("The priority order needs a list: "+PRIORITY_PREFIX+"<file>");
+		}
+		return new DocumentOrder(policy, null);
+	}
+
+	/**
+	 * Reads a priority list with one file name or path per line. Empty lines and lines
+	 * starting with # are ignored.
+	 */
+	public static DocumentOrder fromPriorityList(File listFile) throws IOException {
+		Map<String, Integer> priorities = new HashMap<>();
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(listFile), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = in.readLine()) != null) {
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String key = line.contains(File.separator) || line.contains("/") ? new File(line).getAbsolutePath() : line;
+				if(!priorities.containsKey(key)) {
+					priorities.put(key, priorities.size());
+				}
+			}
+		}
+		return new DocumentOrder(Policy.PRIORITY, priorities);
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return true if the files are handed out as they are found, without waiting for the listing
+	 */
+	public boolean isStreaming() {
+		return policy == Policy.FOUND;
+	}
+
+	/**
+	 * Sorts the files by this order. Files with the same rank keep the order in which they were found.
+	 * Files whose attributes cannot be read, e.g. because they have been removed in the meantime,
+	 * are put last.
+	 */
+	public void sort(List<File> files) {
+		if(policy == Policy.FOUND) {
+			return;
+		}
+		// Read the attributes of each file only once
+		final Map<File, Long> ranks = new HashMap<>(files.size() * 2);
+		for(File file : files) {
+			long rank;
+			try {
+				rank = rank(file);
+			} catch (IOException e) {
+				logger.warn("Cannot read the attributes of "+file+", it is processed last: "+e.getMessage());
+				rank = Long.MAX_VALUE;
+			}
+			ranks.put(file, rank);
+		}
+		Collections.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return Long.compare(ranks.get(a), ranks.get(b));
+			}
+		});
+	}
+
+	private long rank(File file) throws IOException {
+		switch(policy) {
+			case LARGEST:
+				return -size(file);
+			case SMALLEST:
+				return size(file);
+			case OLDEST:
+				return lastModified(file);
+			case PRIORITY:
+				Integer priority = priorities.get(file.getAbsolutePath());
+				if(priority == null) {
+					priority = priorities.get(file.getName());
+				}
+				return (priority != null) ? priority : Long.MAX_VALUE;
+			default:
+				return 0;
+		}
+	}
+
+	private static BasicFileAttributes attributes(File file) throws IOException {
+		return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+	}
+
+	private static long size(File file) throws IOException {
+		// Archive entries are not files of the file system
+		return (file instanceof ArchiveEntry) ? file.length() : attributes(file).size();
+	}
+
+	private static long lastModified(File file) throws IOException {
+		return (file instanceof ArchiveEntry) ? file.lastModified() : attributes(file).lastModifiedTime().toMillis();
+	}
+
+	@Override
+	public String toString() {
+		return policy.name().toLowerCase();
+	}
+}
@@ -0,0 +1,506 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+/**
+ * The input files of a pipeline. The input paths are listed by a background thread,
+ * and the files are handed out in the order in which they are found while the listing
+ * continues, so the first document is processed right away even for folders with
+ * millions of files. The queue is bounded: the listing waits while the readers are
+ * behind, so the memory does not grow with the number of files. Another
+ * {@link DocumentOrder order} can be set, in which case the files are sorted after
+ * the listing.
+ * <p>
+ * An input path may also be a ZIP or tar archive, whose entries are handed out as
+ * {@link ArchiveEntry ArchiveEntries} without extracting the archive. As the entries
+ * of tar archives are read while listing, the queue also limits the bytes it holds.
+ * For the same reason, tar archives can only be listed in the order in which the
+ * entries are found: sorting them would hold the whole archive in memory.
+ * <p>
+ * Several readers may poll concurrently. As UIMA readers are created from descriptions,
+ * they find their queue by its {@link #getId() id}, which is passed as parameter.
+ */
+public class DocumentQueue implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger(DocumentQueue.class);
+
+	public static final int DEFAULT_CAPACITY = 1000;
+
+	/** The bytes of read archive entries the queue holds at most, unless a single entry is larger */
+	public static final long MAX_BUFFERED_BYTES = 64 * 1024 * 1024;
+
+	private static final long POLL_INTERVAL_MS = 200;
+
+	private static final Map<String, DocumentQueue> queues = new ConcurrentHashMap<>();
+	private static final AtomicInteger ids = new AtomicInteger();
+
+	private final String id;
+	private final BlockingQueue<File> files;
+	private final ThreadLocal<File> lastPolledFile = new ThreadLocal<>();
+
+	/** Set when no more files will be added */
+	private volatile boolean ended = false;
+	private Thread lister;
+	/** The files the current listing has found, only used by the lister thread */
+	private int listed;
+	private DocumentOrder order = DocumentOrder.FOUND;
+	private volatile Charset completedTextEncoding;
+
+	/** The ZIP archives that are open for the entries in the queue */
+	private final List<ZipFile> archives = Collections.synchronizedList(new ArrayList<ZipFile>());
+	private final Object bufferLock = new Object();
+	private long bufferedBytes = 0;
+
+	public DocumentQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public DocumentQueue(int capacity) {
+		this.files = new ArrayBlockingQueue<>(capacity);
+		this.id = "documents-"+ids.incrementAndGet();
+		queues.put(id, this);
+	}
+
+	/**
+	 * Returns the queue with the given id, or null if it does not exist or has been closed
+	 */
+	public static DocumentQueue get(String id) {
+		return queues.get(id);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Sets the order in which the files of the following {@link #readFilePaths listings} are handed out
+	 */
+	public synchronized void setOrder(DocumentOrder order) {
+		this.order = order;
+	}
+
+	/**
+	 * Compares the text of the files that have been completed with the hash in the journal,
+	 * so that changed files are processed again. The files are read once more for this, so
+	 * it is meant for small jobs, like those of the server.
+	 *
+	 * @param encoding the encoding of the text files, or null to compare only the names
+	 */
+	public void setCompletedTextEncoding(Charset encoding) {
+		this.completedTextEncoding = encoding;
+	}
+
+	/**
+	 * Lists the files of the input path in a background thread and adds them to the queue.
+	 * The path may be a file, a folder, whose files with the given extension are added,
+	 * a ZIP or tar archive, whose entries with the given extension are added, or a pattern with wildcards like <code>corpus/**&#47;*.txt</code>.
+	 * When all files are listed, the end of the input is signalled.
+	 * @param completed if set, the documents that have already been completed are skipped
+	 * @throws FileNotFoundException if the path does not exist; nothing is added in this case
+	 * @throws IllegalArgumentException if the path is a tar archive and the {@link #setOrder order}
+	 * is not streaming; nothing is added in this case
+	 */
+	public void readFilePaths(String sourceLocation, String fileExtension, CompletionJournal completed) throws FileNotFoundException {
+		readFilePaths(Collections.singletonList(sourceLocation), fileExtension, completed);
+	}
+
+	/**
+	 * Lists the files of several input paths one after another, see {@link #readFilePaths(String, String, CompletionJournal)}
+	 */
+	public synchronized void readFilePaths(final List<String> sourceLocations, final String fileExtension, final CompletionJournal completed) throws FileNotFoundException {
+		for(String sourceLocation : sourceLocations) {
+			File path = sourceLocation.contains("*") ? getPatternBaseDirectory(sourceLocation) : new File(sourceLocation);
+			if(!path.exists()) {
+				throw new FileNotFoundException("Path "+sourceLocation+" does not point to a valid file or directory");
+			}
+			if(isTar(path) && !order.isStreaming()) {
+				throw new IllegalArgumentException("The entries of the tar archive "+sourceLocation+" can only be processed in the order in which they are found");
+			}
+		}
+
+		final DocumentOrder order = this.order;
+		lister = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				listed = 0;
+				try {
+					// Unless the files are processed as found, they are collected and sorted first
+					List<File> collected = order.isStreaming() ? null : new ArrayList<File>();
+					try {
+						for(String sourceLocation : sourceLocations) {
+							list(sourceLocation, fileExtension, completed, collected);
+						}
+						logger.info(MessageFormat.format("Found {0} input files", listed));
+					} catch (IOException e) {
+						// The files that have been found are still processed, also when they are sorted
+						logger.error("Error when listing the input files, only the "+listed+" files found so far are processed", e);
+					}
+					if(collected != null) {
+						order.sort(collected);
+						for(File file : collected) {
+							add(file);
+						}
+					}
+				} catch (InterruptedException e) {
+					// closed
+				} finally {
+					endInput();
+				}
+			}
+		}, "input-lister");
+		lister.setDaemon(true);
+		lister.start();
+	}
+
+	private void list(String sourceLocation, String fileExtension, final CompletionJournal completed, final List<File> collected) throws IOException, InterruptedException {
+		if(sourceLocation.contains("*")) {
+			// Match the files like Ant's DirectoryScanner, but while walking the tree
+			final Path base = getPatternBaseDirectory(sourceLocation).toPath();
+			String pattern = sourceLocation.substring(getPatternBase(sourceLocation).length())
+					.replace('/', File.separatorChar).replace('\\', File.separatorChar);
+			if(pattern.startsWith(File.separator)) {
+				pattern = pattern.substring(1);
+			}
+			if(pattern.endsWith(File.separator)) {
+				pattern += "**";
+			}
+			final String includePattern = pattern;
+
+			Files.walkFileTree(base, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					String relative = base.relativize(dir).toString();
+					if(relative.isEmpty() || (SelectorUtils.matchPatternStart(includePattern, relative, false) && !isExcluded(relative))) {
+						return FileVisitResult.CONTINUE;
+					}
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					String relative = base.relativize(file).toString();
+					if(!attrs.isRegularFile() || !SelectorUtils.matchPath(includePattern, relative, false) || isExcluded(relative)) {
+						return FileVisitResult.CONTINUE;
+					}
+					if(isCompleted(file.getFileName().toString(), file.toFile(), completed)) {
+						return FileVisitResult.CONTINUE;
+					}
+					try {
+						found(file.toFile(), collected);
+						return FileVisitResult.CONTINUE;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return FileVisitResult.TERMINATE;
+					}
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException e) {
+					logger.warn("Cannot read "+file+": "+e.getMessage());
+					return FileVisitResult.CONTINUE;
+				}
+			});
+			if(Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			return;
+		}
+
+		File inputPath = new File(sourceLocation);
+		if(inputPath.isFile() && ArchiveEntry.isArchive(inputPath)) {
+			if(ArchiveEntry.isZip(inputPath)) {
+				listZip(inputPath, fileExtension, completed, collected);
+			} else {
+				listTar(inputPath, fileExtension, completed, collected);
+			}
+			return;
+		}
+		if(inputPath.isFile()) {
+			if(!isCompleted(inputPath.getName(), inputPath, completed)) {
+				found(inputPath, collected);
+			}
+			return;
+		}
+
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(inputPath.toPath())) {
+			for(Path path : stream) {
+				File file = path.toFile();
+				if(file.isFile() && file.toString().endsWith(fileExtension)) {
+					if(isCompleted(file.getName(), file, completed)) {
+						continue;
+					}
+					found(file, collected);
+				}
+			}
+		}
+	}
+
+	private void listZip(File archive, String fileExtension, CompletionJournal completed, List<File> collected) throws IOException, InterruptedException {
+		ZipFile zip = new ZipFile(archive);
+		// The entries are read from the archive by the readers, so it stays open until the queue is reset or closed
+		archives.add(zip);
+		Enumeration<? extends ZipEntry> entries = zip.entries();
+		while(entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			if(entry.isDirectory() || !entry.getName().endsWith(fileExtension)) {
+				continue;
+			}
+			// The outputs of entries are named after their path in the archive, like the files of a folder tree
+			if(isCompleted(entry.getName(), null, completed)) {
+				continue;
+			}
+			found(new ArchiveEntry(archive, zip, entry), collected);
+		}
+	}
+
+	/**
+	 * @return true if the file is a tar archive, whose entries can only be read from the beginning
+	 */
+	public static boolean isTar(File file) {
+		return file.isFile() && ArchiveEntry.isArchive(file) && !ArchiveEntry.isZip(file);
+	}
+
+	private void listTar(File archive, String fileExtension, CompletionJournal completed, List<File> collected) throws IOException, InterruptedException {
+		InputStream in = new BufferedInputStream(new FileInputStream(archive));
+		if(!archive.getName().toLowerCase().endsWith(".tar")) {
+			in = new GzipCompressorInputStream(in, true);
+		}
+		try(TarArchiveInputStream tar = new TarArchiveInputStream(in)) {
+			TarArchiveEntry entry;
+			while((entry = tar.getNextTarEntry()) != null) {
+				if(!entry.isFile() || !entry.getName().endsWith(fileExtension)) {
+					continue;
+				}
+				if(isCompleted(entry.getName(), null, completed)) {
+					continue;
+				}
+				if(entry.getSize() > Integer.MAX_VALUE) {
+					logger.error(MessageFormat.format("The entry {0} of {1} is too large to be read ({2} bytes) and is skipped",
+							entry.getName(), archive.getName(), entry.getSize()));
+					continue;
+				}
+				// A tar archive can only be read from the beginning, so the content is read now
+				byte[] content = IOUtils.toByteArray(tar, entry.getSize());
+				found(new ArchiveEntry(archive, entry.getName(), entry.getModTime().getTime(), content), collected);
+			}
+		}
+	}
+
+	/**
+	 * @return the directory part of a pattern with wildcards, including the trailing separator
+	 */
+	private static String getPatternBase(String sourceLocation) {
+		int asterisk = sourceLocation.indexOf('*');
+		int separator = Math.max(
+				sourceLocation.lastIndexOf(File.separatorChar, asterisk),
+				sourceLocation.lastIndexOf('/', asterisk));
+		return (separator >= 0) ? sourceLocation.substring(0, separator+1) : "";
+	}
+
+	private static File getPatternBaseDirectory(String sourceLocation) {
+		String base = getPatternBase(sourceLocation);
+		return new File(base.isEmpty() ? "." : base);
+	}
+
+	private static boolean isExcluded(String relativePath) {
+		for(String exclude : DirectoryScanner.getDefaultExcludes()) {
+			if(SelectorUtils.matchPath(exclude.replace('/', File.separatorChar), relativePath, false)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void found(File file, List<File> collected) throws InterruptedException {
+		listed++;
+		if(collected != null) {
+			collected.add(file);
+		} else {
+			add(file);
+		}
+	}
+
+	/**
+	 * @param file the file to compare with the recorded text, or null to compare only the name
+	 */
+	private boolean isCompleted(String filename, File file, CompletionJournal completed) {
+		if(completed == null) {
+			return false;
+		}
+		String documentKey = CompletionJournal.getDocumentKey(filename);
+		Charset encoding = completedTextEncoding;
+		if(file == null || encoding == null) {
+			return completed.isCompleted(documentKey);
+		}
+		try {
+			return completed.isCompleted(documentKey, file, encoding);
+		} catch (IOException e) {
+			// The reader reports the file as failed
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the file the DARIAHWriter writes for the given input file name
+	 * @param outputSuffix the suffix of the outputs, like <code>.csv</code> or <code>.csv.gz</code>
+	 */
+	public static File getOutputFile(String filename, String outputLocation, String outputSuffix) {
+		return new File(outputLocation, CompletionJournal.getDocumentKey(filename)+outputSuffix);
+	}
+
+	/**
+	 * Appends the file at the end of the queue, waiting while the queue is full, or
+	 * while it holds too many bytes of read archive entries
+	 */
+	public void add(File file) throws InterruptedException {
+		long bytes = getBufferedBytes(file);
+		if(bytes > 0) {
+			synchronized(bufferLock) {
+				// A single large entry is admitted when the queue holds no other
+				while(bufferedBytes > 0 && bufferedBytes + bytes > MAX_BUFFERED_BYTES) {
+					bufferLock.wait();
+				}
+				bufferedBytes += bytes;
+			}
+		}
+		files.put(file);
+	}
+
+	private static long getBufferedBytes(File file) {
+		return (file instanceof ArchiveEntry) ? ((ArchiveEntry) file).getBufferedBytes() : 0;
+	}
+
+	private void released(File file) {
+		long bytes = getBufferedBytes(file);
+		if(bytes > 0) {
+			synchronized(bufferLock) {
+				bufferedBytes -= bytes;
+				bufferLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Signals that no more files will be added. The readers get the remaining files,
+	 * and then learn that the input has ended.
+	 */
+	public void endInput() {
+		ended = true;
+	}
+
+	/**
+	 * Retrieves and removes the first file of the queue. If the queue is empty, waits
+	 * until a file is added or the input has ended.
+	 * @return the file, or null if the input has ended
+	 */
+	public File poll() throws InterruptedException {
+		File file = null;
+		while(file == null) {
+			boolean lastChance = ended;
+			file = files.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+			if(file == null && lastChance) {
+				// The input had ended before the queue was found empty
+				break;
+			}
+		}
+		if(file != null) {
+			released(file);
+		}
+		lastPolledFile.set(file);
+		return file;
+	}
+
+	/**
+	 * Returns the file that was polled last by the calling thread
+	 */
+	public File getLastPolledFile() {
+		return lastPolledFile.get();
+	}
+
+	/**
+	 * Stops the listing and removes all files, so that the queue can be used for new input
+	 */
+	public synchronized void reset() throws InterruptedException {
+		stopLister();
+		files.clear();
+		synchronized(bufferLock) {
+			bufferedBytes = 0;
+		}
+		closeArchives();
+		ended = false;
+	}
+
+	/**
+	 * Stops the listing. The files in the queue are still handed out, then the input ends.
+	 * The entries of ZIP archives can no longer be read, as the archives are closed.
+	 */
+	@Override
+	public synchronized void close() {
+		try {
+			stopLister();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		endInput();
+		closeArchives();
+		queues.remove(id);
+	}
+
+	private void closeArchives() {
+		synchronized(archives) {
+			for(ZipFile zip : archives) {
+				try {
+					zip.close();
+				} catch (IOException e) {
+					logger.warn("Cannot close "+zip.getName()+": "+e.getMessage());
+				}
+			}
+			archives.clear();
+		}
+	}
+
+	private void stopLister() throws InterruptedException {
+		if(lister != null) {
+			lister.interrupt();
+			lister.join();
+			lister = null;
+		}
+	}
+}
@@ -1,70 +1,114 @@
 package de.tudarmstadt.ukp.dariah.IO;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
+/**
+ * Collects the text of the elements of an XML document together with the XPath of each
+ * element, like <code>//TEI[1]/text[1]/body[1]/p[3]</code>. The text of an element is its
+ * own text without the text of its child elements; elements without text are skipped.
+ * The elements are collected in the order in which they are closed, so child elements
+ * come before their parent.
+ * <p>
+ * One handler is used for all documents of a reader: the open elements are kept on a
+ * stack whose buffers are reused, and the XPath is only built for elements with text.
+ */
 public class FragmentContentHandler extends DefaultHandler {
 
-    private String xPath = "/";
-    private XMLReader xmlReader;
-    private FragmentContentHandler parent;
-    private StringBuilder characters = new StringBuilder();
-    private Map<String, Integer> elementNameCount = new HashMap<String, Integer>();
-    
-    private LinkedList<String[]> textElements; // = new LinkedList<>();
+	private static final int INITIAL_DEPTH = 32;
 
-    public FragmentContentHandler(XMLReader xmlReader, LinkedList<String[]> textElements) {
-        this.xmlReader = xmlReader;
-        this.textElements = textElements;
-    }
+	private final List<String[]> textElements = new ArrayList<>();
+	private final StringBuilder xPath = new StringBuilder();
 
-    private FragmentContentHandler(String xPath, XMLReader xmlReader, FragmentContentHandler parent, LinkedList<String[]> textElements) {
-        this(xmlReader, textElements);
-        this.xPath = xPath;
-        this.parent = parent;
-    }
+	/** The open elements, the root element at depth 1 */
+	private String[] names = new String[INITIAL_DEPTH];
+	/** The position of each open element among its siblings with the same name, starting with 1 */
+	private int[] positions = new int[INITIAL_DEPTH];
+	/** The text of each open element */
+	private StringBuilder[] texts = new StringBuilder[INITIAL_DEPTH];
+	/** The names of the child elements of each open element, depth 0 for the root element */
+	private SiblingCounts[] children = new SiblingCounts[INITIAL_DEPTH];
+	private int depth;
 
-    @Override
-    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
-        Integer count = elementNameCount.get(qName);
-        if(null == count) {
-            count = 1;
-        } else {
-            count++;
-        }
-        elementNameCount.put(qName, count);
-        String childXPath = xPath + "/" + qName + "[" + count + "]";
+	/**
+	 * @return the XPath and the trimmed text of each element with text, of the last parsed document
+	 */
+	public List<String[]> getTextElements() {
+		return textElements;
+	}
 
-        int attsLength = atts.getLength();
-        for(int x=0; x<attsLength; x++) {
-            //System.out.println(childXPath + "[@" + atts.getQName(x) + "='" + atts.getValue(x) + ']');
-        }
+	@Override
+	public void startDocument() throws SAXException {
+		textElements.clear();
+		depth = 0;
+		getSiblingCounts(0).clear();
+	}
 
-        FragmentContentHandler child = new FragmentContentHandler(childXPath, xmlReader, this, textElements);
-        xmlReader.setContentHandler(child);
-    }
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		int position = children[depth].increment(qName);
+		depth++;
+		if(depth == names.length) {
+			int length = depth * 2;
+			names = Arrays.copyOf(names, length);
+			positions = Arrays.copyOf(positions, length);
+			texts = Arrays.copyOf(texts, length);
+			children = Arrays.copyOf(children, length);
+		}
+		names[depth] = qName;
+		positions[depth] = position;
+		if(texts[depth] == null) {
+			texts[depth] = new StringBuilder();
+		} else {
+			texts[depth].setLength(0);
+		}
+		getSiblingCounts(depth).clear();
+	}
 
-    @Override
-    public void endElement(String uri, String localName, String qName) throws SAXException {
-        String value = characters.toString().trim();
-        if(value.length() > 0) {
-//            System.out.println(xPath + "='" + value + "'");
-        	textElements.add(new String[] {xPath, value });
-        }
-        xmlReader.setContentHandler(parent);
-    }
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		StringBuilder text = texts[depth];
+		int start = 0;
+		int end = text.length();
+		while(start < end && text.charAt(start) <= ' ') {
+			start++;
+		}
+		while(end > start && text.charAt(end-1) <= ' ') {
+			end--;
+		}
+		if(start < end) {
+			textElements.add(new String[] {buildXPath(), text.substring(start, end)});
+		}
+		names[depth] = null;
+		depth--;
+	}
 
-    @Override
-    public void characters(char[] ch, int start, int length) throws SAXException {
-        characters.append(ch, start, length);
-    }
-    
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		// Text outside of the root element is ignored
+		if(depth > 0) {
+			texts[depth].append(ch, start, length);
+		}
+	}
 
+	private String buildXPath() {
+		xPath.setLength(0);
+		xPath.append('/');
+		for(int i = 1; i <= depth; i++) {
+			xPath.append('/').append(names[i]).append('[').append(positions[i]).append(']');
+		}
+		return xPath.toString();
+	}
 
-}
\ No newline at end of file
+	private SiblingCounts getSiblingCounts(int depth) {
+		if(children[depth] == null) {
+			children[depth] = new SiblingCounts();
+		}
+		return children[depth];
+	}
+}
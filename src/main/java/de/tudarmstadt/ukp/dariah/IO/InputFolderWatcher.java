@@ -0,0 +1,227 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watches the input folder for new files and adds them to a {@link DocumentQueue}.
+ * A file is only added once its size and modification time have not changed for
+ * a few seconds, so files that are still being copied are not processed too early.
+ * The files that exist when the watcher is started are added as well. The input of
+ * the queue only ends when the watcher is closed, until then the readers wait for new files.
+ */
+public class InputFolderWatcher implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger(InputFolderWatcher.class);
+
+	/** How long a file must stay unchanged before it is processed */
+	private static final long QUIET_PERIOD_MS = 2000;
+	private static final long POLL_INTERVAL_MS = 500;
+
+	private final DocumentQueue queue;
+	private final Path directory;
+	private final String fileExtension;
+	private final CompletionJournal completed;
+	private final Charset textEncoding;
+
+	/** Files that have been seen, but are not stable yet: size, modification time, time of the last change */
+	private final Map<Path, long[]> candidates = new HashMap<>();
+	/**
+	 * Without a journal only: modification times of the files that have already been added,
+	 * so they are not added again when the folder is scanned after an overflow. A file is forgotten once it is
+	 * removed from the folder.
+	 */
+	private final Map<Path, Long> addedFiles = new HashMap<>();
+
+	private volatile boolean closed = false;
+	private WatchService watchService;
+	private Thread thread;
+
+	/**
+	 * @param completed if set, the documents that have already been completed are skipped
+	 * @param textEncoding the encoding of text files, whose text is compared with the journal, so
+	 * that a file that is changed after it has been completed is processed again; null to compare
+	 * only the names
+	 */
+	public InputFolderWatcher(DocumentQueue queue, String sourceLocation, String fileExtension, CompletionJournal completed, Charset textEncoding) throws FileNotFoundException {
+		File inputPath = new File(sourceLocation);
+		if(!inputPath.isDirectory()) {
+			throw new FileNotFoundException("Path "+sourceLocation+" does not point to a directory that could be watched");
+		}
+		this.queue = queue;
+		this.directory = inputPath.toPath();
+		this.fileExtension = fileExtension;
+		this.completed = completed;
+		this.textEncoding = textEncoding;
+	}
+
+	/**
+	 * Registers the folder and starts a thread that adds the files to the queue
+	 */
+	public void start() throws IOException {
+		watchService = directory.getFileSystem().newWatchService();
+		directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+		// Scan after registering, so that no file is missed
+		scanDirectory();
+
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "input-watcher");
+		thread.setDaemon(true);
+		thread.start();
+
+		logger.info("Watching "+directory.toAbsolutePath()+" for new files");
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		if(thread != null) {
+			thread.interrupt();
+		}
+		if(watchService != null) {
+			watchService.close();
+		}
+		queue.endInput();
+	}
+
+	private void watch() {
+		try {
+			while(!closed) {
+				WatchKey key = watchService.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+				if(key != null) {
+					for(WatchEvent<?> event : key.pollEvents()) {
+						if(event.kind() == OVERFLOW) {
+							scanDirectory();
+						} else if(event.kind() == ENTRY_DELETE) {
+							Path file = directory.resolve((Path) event.context());
+							candidates.remove(file);
+							addedFiles.remove(file);
+						} else {
+							addCandidate(directory.resolve((Path) event.context()));
+						}
+					}
+					if(!key.reset()) {
+						logger.error("The input folder "+directory.toAbsolutePath()+" cannot be watched anymore");
+						break;
+					}
+				}
+				addStableCandidates();
+			}
+		} catch (InterruptedException e) {
+			// closed
+		} catch (Exception e) {
+			if(!closed) {
+				logger.error("Error when watching the input folder "+directory.toAbsolutePath(), e);
+			}
+		}
+	}
+
+	private void scanDirectory() throws IOException {
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for(Path file : stream) {
+				addCandidate(file);
+			}
+		}
+	}
+
+	private void addCandidate(Path file) {
+		if(file.toString().endsWith(fileExtension) && !candidates.containsKey(file)) {
+			candidates.put(file, null);
+		}
+	}
+
+	private void addStableCandidates() throws InterruptedException {
+		long now = System.currentTimeMillis();
+
+		Iterator<Map.Entry<Path, long[]>> it = candidates.entrySet().iterator();
+		while(it.hasNext()) {
+			Map.Entry<Path, long[]> candidate = it.next();
+			Path file = candidate.getKey();
+
+			BasicFileAttributes attributes;
+			try {
+				attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			} catch (IOException e) {
+				// The file has been removed again
+				it.remove();
+				continue;
+			}
+			if(!attributes.isRegularFile()) {
+				it.remove();
+				continue;
+			}
+
+			long size = attributes.size();
+			long modified = attributes.lastModifiedTime().toMillis();
+			long[] observation = candidate.getValue();
+
+			if(observation == null || observation[0] != size || observation[1] != modified) {
+				candidate.setValue(new long[] {size, modified, now});
+			} else if(now - observation[2] >= QUIET_PERIOD_MS) {
+				it.remove();
+				add(file, modified);
+			}
+		}
+	}
+
+	private void add(Path file, long modified) throws InterruptedException {
+		if(completed != null) {
+			// The journal knows the files that have been processed, they need not be kept here
+			if(isCompleted(file)) {
+				return;
+			}
+		} else {
+			Long addedModified = addedFiles.get(file);
+			if(addedModified != null && addedModified == modified) {
+				// Already added, the event was caused by something else than a change of the content
+				return;
+			}
+			addedFiles.put(file, modified);
+		}
+
+		logger.info("New input file: "+file.getFileName());
+		queue.add(file.toFile());
+	}
+
+	private boolean isCompleted(Path file) {
+		String documentKey = CompletionJournal.getDocumentKey(file.getFileName().toString());
+		if(textEncoding == null) {
+			return completed.isCompleted(documentKey);
+		}
+		try {
+			return completed.isCompleted(documentKey, file.toFile(), textEncoding);
+		} catch (IOException e) {
+			// The reader reports the file as failed
+			return false;
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Output files, called shards, into which the outputs of many documents are appended,
+ * instead of writing one file per document. For corpora with millions of small documents,
+ * this keeps the number of files in the output folder small. A shard is closed when it
+ * reaches the target size, and the next document starts a new shard.
+ * <p>
+ * Each shard has an index file with one line per document: the document, the byte offset
+ * and the length of its output in the shard, so a single document can be read with one
+ * seek. A later run never appends to the shards of an earlier run, it starts new ones;
+ * a document that has been processed again is read from the newest shard.
+ * <p>
+ * As UIMA writers are created from descriptions, they find the shards by their
+ * {@link #getId() id}, which is passed as parameter.
+ */
+public class OutputShards implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger(OutputShards.class);
+
+	public static final String SHARD_PREFIX = "shard-";
+	public static final String INDEX_SUFFIX = ".index";
+
+	private static final Map<String, OutputShards> shards = new ConcurrentHashMap<>();
+	private static final AtomicInteger ids = new AtomicInteger();
+
+	private final String id;
+	private final File outputFolder;
+	private final String suffix;
+	private final long targetSize;
+
+	private int nextShard;
+	private File shardFile;
+	private FileOutputStream shard;
+	private Writer index;
+	private long shardSize;
+
+	/**
+	 * @param outputFolder the folder of the shards
+	 * @param suffix the suffix of the shards, like <code>.csv</code>
+	 * @param targetSize the size in bytes at which a shard is closed
+	 */
+	public OutputShards(File outputFolder, String suffix, long targetSize) {
+		this.outputFolder = outputFolder;
+		this.suffix = suffix;
+		this.targetSize = targetSize;
+		this.nextShard = findLastShard(outputFolder) + 1;
+		this.id = "shards-"+ids.incrementAndGet();
+		shards.put(id, this);
+	}
+
+	/**
+	 * Returns the shards with the given id, or null if they do not exist or have been closed
+	 */
+	public static OutputShards get(String id) {
+		return shards.get(id);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Appends the output of a document to the current shard and records it in the index.
+	 * @param documentKey the name under which the document is recorded, see {@link CompletionJournal#getDocumentKey(String)}
+	 * @return the number of bytes that have been written
+	 */
+	public long append(String documentKey, ByteArrayOutputStream output) throws IOException {
+		return append(documentKey, output, false);
+	}
+
+	/**
+	 * Appends the output of a document, see {@link #append(String, ByteArrayOutputStream)}
+	 * @param sync whether the output is synced to the storage before it is recorded in the index
+	 */
+	public synchronized long append(String documentKey, ByteArrayOutputStream output, boolean sync) throws IOException {
+		if(shard == null) {
+			openShard();
+		}
+		long offset = shardSize;
+		output.writeTo(shard);
+		shard.flush();
+		if(sync) {
+			shard.getFD().sync();
+		}
+		shardSize += output.size();
+		// The index line is written after the output, so an interrupted output is never indexed
+		index.write(documentKey+"\t"+offset+"\t"+output.size()+"\n");
+		index.flush();
+
+		if(shardSize >= targetSize) {
+			closeShard();
+		}
+		return output.size();
+	}
+
+	private void openShard() throws IOException {
+		outputFolder.mkdirs();
+		shardFile = new File(outputFolder, String.format("%s%05d%s", SHARD_PREFIX, nextShard++, suffix));
+		shard = new FileOutputStream(shardFile);
+		index = new OutputStreamWriter(new FileOutputStream(getIndexFile(shardFile)), StandardCharsets.UTF_8);
+		shardSize = 0;
+	}
+
+	private void closeShard() throws IOException {
+		try {
+			shard.close();
+			index.close();
+		} finally {
+			shard = null;
+			index = null;
+		}
+		logger.debug(MessageFormat.format("Closed {0} with {1} bytes", shardFile, shardSize));
+	}
+
+	private static File getIndexFile(File shardFile) {
+		return new File(shardFile.getPath()+INDEX_SUFFIX);
+	}
+
+	/**
+	 * @return the number of the last shard in the folder, or -1 if it has no shards
+	 */
+	private static int findLastShard(File outputFolder) {
+		File[] indexFiles = listIndexFiles(outputFolder);
+		if(indexFiles.length == 0) {
+			return -1;
+		}
+		String name = indexFiles[indexFiles.length-1].getName();
+		return Integer.parseInt(name.substring(SHARD_PREFIX.length(), name.indexOf('.')));
+	}
+
+	/**
+	 * @return the index files of the shards in the folder, sorted by the number of the shard
+	 */
+	private static File[] listIndexFiles(File outputFolder) {
+		File[] indexFiles = outputFolder.listFiles((dir, name) -> name.startsWith(SHARD_PREFIX) && name.endsWith(INDEX_SUFFIX));
+		if(indexFiles == null) {
+			return new File[0];
+		}
+		Arrays.sort(indexFiles);
+		return indexFiles;
+	}
+
+	/**
+	 * Reads the output of a document from the shards in the folder. The index files are
+	 * searched from the newest to the oldest shard, and the output is read with one seek.
+	 * @return the output, compressed like the shard
+	 * @throws FileNotFoundException if no shard contains the document
+	 */
+	public static byte[] read(File outputFolder, String documentKey) throws IOException {
+		File[] indexFiles = listIndexFiles(outputFolder);
+		Collections.reverse(Arrays.asList(indexFiles));
+		for(File indexFile : indexFiles) {
+			long[] location = find(indexFile, documentKey);
+			if(location != null) {
+				String indexPath = indexFile.getPath();
+				File shardFile = new File(indexPath.substring(0, indexPath.length()-INDEX_SUFFIX.length()));
+				byte[] output = new byte[(int) location[1]];
+				try(RandomAccessFile in = new RandomAccessFile(shardFile, "r")) {
+					in.seek(location[0]);
+					in.readFully(output);
+				}
+				return output;
+			}
+		}
+		throw new FileNotFoundException("No output for "+documentKey+" in the shards of "+outputFolder);
+	}
+
+	/**
+	 * Reads the length of the output of every document from the index files in the folder,
+	 * for {@link CompletionJournal#setShardedOutputs(Map)}. For a document that has been
+	 * processed again, it is the length of its newest output.
+	 */
+	public static Map<String, Long> readLengths(File outputFolder) throws IOException {
+		Map<String, Long> lengths = new HashMap<>();
+		for(File indexFile : listIndexFiles(outputFolder)) {
+			try(BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+				String line;
+				while((line = in.readLine()) != null) {
+					String[] fields = line.split("\t");
+					if(fields.length == 3) {
+						lengths.put(fields[0], Long.parseLong(fields[2]));
+					}
+				}
+			}
+		}
+		return lengths;
+	}
+
+	/**
+	 * @return the offset and the length of the document in the shard, or null
+	 */
+	private static long[] find(File indexFile, String documentKey) throws IOException {
+		long[] location = null;
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = in.readLine()) != null) {
+				String[] fields = line.split("\t");
+				// Later lines replace earlier ones, if a document has been written again
+				if(fields.length == 3 && fields[0].equals(documentKey)) {
+					location = new long[] {Long.parseLong(fields[1]), Long.parseLong(fields[2])};
+				}
+			}
+		}
+		return location;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		shards.remove(id);
+		if(shard != null) {
+			closeShard();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter.Fields;
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter.RowHandler;
+
+/**
+ * The rows of a document in a compact form that does not refer to the CAS, so they can
+ * be written after the CAS has been released, see {@link WriteBehindQueue}. The text of
+ * all fields is kept in one string and each field takes one int: the end of its text,
+ * or the value of an integer field.
+ * <p>
+ * A batch is immutable once it has been {@link Builder#build() built}, and can be
+ * written by another thread.
+ */
+final class RowBatch {
+
+	private final String[] header;
+	private final int columns;
+	private final int rows;
+	private final String text;
+	private final int[] values;
+	private final BitSet intFields;
+
+	private RowBatch(String[] header, int rows, String text, int[] values, BitSet intFields) {
+		this.header = header;
+		this.columns = header.length;
+		this.rows = rows;
+		this.text = text;
+		this.values = values;
+		this.intFields = intFields;
+	}
+
+	int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Passes the header and the rows to the handler, like {@link DARIAHWriter#convert(org.apache.uima.jcas.JCas, RowHandler)}
+	 */
+	void replay(RowHandler handler) {
+		handler.header(header.clone());
+		Fields fields = new Fields();
+		fields.setSize(columns);
+		int field = 0;
+		int begin = 0;
+		for(int row = 0; row < rows; row++) {
+			for(int column = 0; column < columns; column++, field++) {
+				if(intFields.get(field)) {
+					fields.setInt(column, values[field]);
+				} else {
+					fields.set(column, text, begin, values[field]);
+					begin = values[field];
+				}
+			}
+			handler.row(fields);
+		}
+	}
+
+	/**
+	 * Collects the rows from {@link DARIAHWriter#convert(org.apache.uima.jcas.JCas, RowHandler)}
+	 */
+	static final class Builder implements RowHandler {
+		private String[] header;
+		private int rows;
+		private final StringBuilder text = new StringBuilder();
+		private int[] values = new int[1024];
+		private final BitSet intFields = new BitSet();
+		private int size;
+
+		@Override
+		public void header(String[] columns) {
+			header = columns;
+		}
+
+		@Override
+		public void row(Fields fields) {
+			if(fields.size() != header.length) {
+				throw new IllegalArgumentException("The row has "+fields.size()+" fields instead of "+header.length);
+			}
+			if(size + fields.size() > values.length) {
+				values = Arrays.copyOf(values, Math.max(values.length * 2, size + fields.size()));
+			}
+			for(int column = 0; column < fields.size(); column++) {
+				if(fields.isInt(column)) {
+					intFields.set(size);
+					values[size++] = fields.getInt(column);
+				} else {
+					fields.appendTo(column, text);
+					values[size++] = text.length();
+				}
+			}
+			rows++;
+		}
+
+		RowBatch build() {
+			if(header == null) {
+				throw new IllegalStateException("No header has been passed");
+			}
+			return new RowBatch(header, rows, text.toString(), Arrays.copyOf(values, size), (BitSet) intFields.clone());
+		}
+	}
+}
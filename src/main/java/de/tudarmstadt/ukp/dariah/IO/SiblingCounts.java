@@ -0,0 +1,39 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.util.Arrays;
+
+/**
+ * Counts the child elements of an XML element by name, for the positions in the XPath
+ * of the elements. Elements have few distinct child names, so they are searched linearly.
+ * The counts are reused for the next element at the same depth.
+ */
+class SiblingCounts {
+	private String[] names = new String[8];
+	private int[] counts = new int[8];
+	private int size;
+
+	/**
+	 * @return the number of children with the name, including the new one
+	 */
+	int increment(String name) {
+		for(int i = 0; i < size; i++) {
+			// XML parsers usually pass the same String instance for the same name
+			if(names[i] == name || names[i].equals(name)) {
+				return ++counts[i];
+			}
+		}
+		if(size == names.length) {
+			names = Arrays.copyOf(names, size * 2);
+			counts = Arrays.copyOf(counts, size * 2);
+		}
+		names[size] = name;
+		counts[size] = 1;
+		size++;
+		return 1;
+	}
+
+	void clear() {
+		Arrays.fill(names, 0, size, null);
+		size = 0;
+	}
+}
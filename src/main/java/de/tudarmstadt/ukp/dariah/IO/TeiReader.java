@@ -0,0 +1,428 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.uima.UimaContext;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.fit.component.CasCollectionReader_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.descriptor.TypeCapability;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Progress;
+
+import de.tudarmstadt.ukp.dariah.type.Section;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+
+/**
+ * Reads TEI and other XML files in one streaming pass with StAX. Only the text of the
+ * {@link #PARAM_INCLUDE included} elements is read, and the {@link #PARAM_EXCLUDE excluded}
+ * elements are skipped with all their content, so for example the <code>teiHeader</code>,
+ * notes and forme works never become part of the document.
+ * <p>
+ * Elements are given as paths of element names, like <code>text/body</code>, which match
+ * elements with this path at any depth; a path starting with <code>/</code>, like
+ * <code>/TEI/text</code>, must start at the root element. Namespaces are ignored.
+ * <p>
+ * Whitespace is collapsed to a single space. Elements whose parent holds no text of its
+ * own, like <code>p</code> or <code>l</code> in a <code>div</code>, are separated by an
+ * empty line, so they become paragraphs; elements inside text, like <code>hi</code>, are
+ * kept inline. Each run of text is covered by a {@link Section} whose value is the XPath of
+ * the element that contains it, in the same form as the {@link XmlReader} writes it.
+ */
+@TypeCapability(
+		outputs={
+				"de.tudarmstadt.ukp.dariah.type.Section",
+				"de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData"})
+public class TeiReader extends CasCollectionReader_ImplBase {
+
+	/**
+	 * Set this as the language of the produced documents.
+	 */
+	public static final String PARAM_LANGUAGE = ComponentParameters.PARAM_LANGUAGE;
+	@ConfigurationParameter(name=PARAM_LANGUAGE, mandatory=false)
+	private String language;
+
+	/**
+	 * Paths of the elements whose text is read, like <code>text/body</code>.
+	 * If none are given, the text of the whole document is read.
+	 */
+	public static final String PARAM_INCLUDE = "includeElements";
+	@ConfigurationParameter(name=PARAM_INCLUDE, mandatory=false, defaultValue={})
+	private String[] includeElements;
+
+	/**
+	 * Paths of the elements that are skipped with all their content, like <code>note</code>.
+	 */
+	public static final String PARAM_EXCLUDE = "excludeElements";
+	@ConfigurationParameter(name=PARAM_EXCLUDE, mandatory=false, defaultValue={})
+	private String[] excludeElements;
+
+	/**
+	 * Id of the {@link DocumentQueue} the input files are taken from.
+	 */
+	public static final String PARAM_DOCUMENT_QUEUE = "documentQueue";
+	@ConfigurationParameter(name=PARAM_DOCUMENT_QUEUE, mandatory=true)
+	private String documentQueueId;
+
+	private static final Logger logger = LogManager.getLogger(TeiReader.class);
+
+	private static final int INITIAL_DEPTH = 32;
+
+	private DocumentQueue documentQueue;
+	private XMLInputFactory inputFactory;
+	private String[][] includePaths;
+	private String[][] excludePaths;
+
+	/**
+	 * The file that has been taken from the queue by {@link #hasNext()}
+	 * and will be read by the next call of {@link #getNext(CAS)}
+	 */
+	private File nextFile;
+
+	/*
+	 * The state of the document that is read. The element stack and the buffers are
+	 * reused for the next document.
+	 */
+	private final StringBuilder text = new StringBuilder();
+	private final StringBuilder xPath = new StringBuilder();
+	/** The local names of the open elements, the root element at depth 1 */
+	private String[] localNames = new String[INITIAL_DEPTH];
+	/** The names of the open elements with prefix, for the XPath */
+	private String[] qNames = new String[INITIAL_DEPTH];
+	/** The position of each open element among its siblings with the same name */
+	private int[] positions = new int[INITIAL_DEPTH];
+	/** Whether each open element holds text of its own, so its children are inline */
+	private boolean[] hasText = new boolean[INITIAL_DEPTH];
+	/** The names of the child elements of each open element, depth 0 for the root element */
+	private SiblingCounts[] children = new SiblingCounts[INITIAL_DEPTH];
+	/** A number that tells the open elements apart from earlier elements at the same depth */
+	private int[] serials = new int[INITIAL_DEPTH];
+	/** The XPath of each open element, once it has been built */
+	private String[] xPaths = new String[INITIAL_DEPTH];
+	private int nextSerial;
+	private int depth;
+	/** The depth of the outermost included element, or 0 if no open element is included */
+	private int includedDepth;
+	/** The element whose text the current section covers, or 0 if no section is open */
+	private int sectionSerial;
+	private String sectionXPath;
+	private int sectionBegin;
+	private int sectionEnd;
+	private boolean pendingSpace;
+	private boolean pendingBreak;
+
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		documentQueue = DocumentQueue.get(documentQueueId);
+		if(documentQueue == null) {
+			throw new ResourceInitializationException(new IllegalStateException("No document queue with the id "+documentQueueId));
+		}
+		includePaths = parsePaths(includeElements);
+		excludePaths = parsePaths(excludeElements);
+
+		inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		for(int i = 0; i < INITIAL_DEPTH; i++) {
+			children[i] = new SiblingCounts();
+		}
+	}
+
+	private static String[][] parsePaths(String[] elements) {
+		List<String[]> paths = new ArrayList<>();
+		for(String element : elements) {
+			if(!element.trim().isEmpty()) {
+				// A path starting at the root element keeps an empty first name
+				paths.add(element.trim().split("/"));
+			}
+		}
+		return paths.toArray(new String[0][]);
+	}
+
+	@Override
+	public void getNext(CAS aCAS) throws IOException, CollectionException {
+		JCas jcas;
+		try {
+			jcas = aCAS.getJCas();
+		}
+		catch (CASException e) {
+			throw new CollectionException(e);
+		}
+
+		if(!hasNext()) {
+			throw new CollectionException(new FileNotFoundException("No more input files available"));
+		}
+		File xmlFile = nextFile;
+		nextFile = null;
+
+		try {
+			logger.info("Process file: "+xmlFile.getName());
+
+			try(InputStream in = new BufferedInputStream(ArchiveEntry.open(xmlFile))) {
+				read(jcas, in);
+			}
+			jcas.setDocumentText(text.toString());
+			jcas.setDocumentLanguage(language);
+
+			DocumentMetaData docMetaData = DocumentMetaData.create(aCAS);
+			docMetaData.setDocumentTitle(xmlFile.getName());
+			docMetaData.setDocumentId(xmlFile.getAbsolutePath());
+			docMetaData.setDocumentBaseUri(ArchiveEntry.getBaseUri(xmlFile));
+			docMetaData.setDocumentUri(ArchiveEntry.getDocumentUri(xmlFile));
+		} catch (Exception e) {
+			throw new CollectionException(e);
+		}
+	}
+
+	/**
+	 * Reads the document text into {@link #text} and adds the sections to the CAS
+	 */
+	private void read(JCas jcas, InputStream in) throws XMLStreamException {
+		text.setLength(0);
+		depth = 0;
+		hasText[0] = false;
+		children[0].clear();
+		includedDepth = (includePaths.length == 0) ? -1 : 0;
+		nextSerial = 0;
+		sectionSerial = 0;
+		pendingSpace = false;
+		pendingBreak = false;
+
+		XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+		try {
+			while(reader.hasNext()) {
+				switch(reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					startElement(reader);
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					endElement();
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					if(depth > 0 && includedDepth != 0) {
+						characters(jcas, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					}
+					break;
+				default:
+					break;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		closeSection(jcas);
+	}
+
+	private void startElement(XMLStreamReader reader) throws XMLStreamException {
+		String localName = reader.getLocalName();
+		String prefix = reader.getPrefix();
+		String qName = (prefix == null || prefix.isEmpty()) ? localName : prefix+":"+localName;
+		push(localName, qName, children[depth].increment(qName));
+
+		if(matches(excludePaths)) {
+			pop();
+			skipElement(reader);
+			return;
+		}
+		if(includedDepth == 0 && matches(includePaths)) {
+			includedDepth = depth;
+		}
+		if(includedDepth != 0) {
+			boundary();
+		}
+	}
+
+	private void endElement() {
+		if(includedDepth != 0) {
+			boundary();
+		}
+		if(includedDepth == depth) {
+			includedDepth = 0;
+		}
+		pop();
+	}
+
+	/**
+	 * Skips the element whose start has just been read, without reading its content
+	 */
+	private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int level = 1;
+		while(level > 0) {
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				level++;
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				level--;
+			}
+		}
+	}
+
+	/**
+	 * The start or the end of an element separates paragraphs, unless the enclosing element
+	 * holds text of its own
+	 */
+	private void boundary() {
+		if(!hasText[depth-1]) {
+			pendingBreak = true;
+		}
+	}
+
+	/**
+	 * Appends the text with collapsed whitespace, in runs of non-whitespace characters
+	 */
+	private void characters(JCas jcas, char[] ch, int start, int length) {
+		int end = start + length;
+		int i = start;
+		while(i < end) {
+			if(isWhitespace(ch[i])) {
+				pendingSpace = true;
+				i++;
+				continue;
+			}
+			int run = i;
+			while(i < end && !isWhitespace(ch[i])) {
+				i++;
+			}
+			if(text.length() > 0) {
+				if(pendingBreak) {
+					text.append("\n\n");
+				} else if(pendingSpace) {
+					text.append(' ');
+				}
+			}
+			pendingBreak = false;
+			pendingSpace = false;
+			if(sectionSerial != serials[depth]) {
+				// The text of another element starts. The XPath is only built for elements with text,
+				// and once per element if its text continues after a child element
+				closeSection(jcas);
+				sectionSerial = serials[depth];
+				if(xPaths[depth] == null) {
+					xPaths[depth] = buildXPath();
+				}
+				sectionXPath = xPaths[depth];
+				sectionBegin = text.length();
+			}
+			hasText[depth] = true;
+			text.append(ch, run, i - run);
+			sectionEnd = text.length();
+		}
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+	}
+
+	private void closeSection(JCas jcas) {
+		if(sectionSerial == 0) {
+			return;
+		}
+		Section section = new Section(jcas, sectionBegin, sectionEnd);
+		section.setValue(sectionXPath);
+		section.addToIndexes();
+		sectionSerial = 0;
+	}
+
+	/**
+	 * @return the XPath of the innermost open element, like <code>//TEI[1]/text[1]</code>
+	 */
+	private String buildXPath() {
+		xPath.setLength(0);
+		xPath.append('/');
+		for(int i = 1; i <= depth; i++) {
+			xPath.append('/').append(qNames[i]).append('[').append(positions[i]).append(']');
+		}
+		return xPath.toString();
+	}
+
+	/**
+	 * @return true if one of the paths matches the path of the innermost open element
+	 */
+	private boolean matches(String[][] paths) {
+		for(String[] path : paths) {
+			boolean fromRoot = path[0].isEmpty();
+			int length = fromRoot ? path.length - 1 : path.length;
+			if(length > depth || (fromRoot && length != depth)) {
+				continue;
+			}
+			boolean match = true;
+			for(int i = 0; match && i < length; i++) {
+				match = path[path.length - 1 - i].equals(localNames[depth - i]);
+			}
+			if(match) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void push(String localName, String qName, int position) {
+		depth++;
+		if(depth == localNames.length) {
+			int length = depth * 2;
+			localNames = Arrays.copyOf(localNames, length);
+			qNames = Arrays.copyOf(qNames, length);
+			positions = Arrays.copyOf(positions, length);
+			hasText = Arrays.copyOf(hasText, length);
+			serials = Arrays.copyOf(serials, length);
+			xPaths = Arrays.copyOf(xPaths, length);
+			children = Arrays.copyOf(children, length);
+			for(int i = depth; i < length; i++) {
+				children[i] = new SiblingCounts();
+			}
+		}
+		localNames[depth] = localName;
+		qNames[depth] = qName;
+		positions[depth] = position;
+		hasText[depth] = false;
+		serials[depth] = ++nextSerial;
+		children[depth].clear();
+	}
+
+	private void pop() {
+		localNames[depth] = null;
+		qNames[depth] = null;
+		xPaths[depth] = null;
+		depth--;
+	}
+
+	@Override
+	public Progress[] getProgress() {
+		return null;
+	}
+
+	@Override
+	public boolean hasNext() throws IOException, CollectionException {
+		// Take the file already here, so that concurrent readers sharing the
+		// queue never see a file that another reader takes in the meantime
+		if(nextFile == null) {
+			try {
+				nextFile = documentQueue.poll();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CollectionException(e);
+			}
+		}
+		return nextFile != null;
+	}
+}
@@ -1,33 +1,59 @@
 package de.tudarmstadt.ukp.dariah.IO;
 
-import static org.apache.commons.io.IOUtils.closeQuietly;
-
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.uima.UimaContext;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
 import org.apache.uima.collection.CollectionException;
 import org.apache.uima.fit.component.CasCollectionReader_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.Progress;
 
+import de.tudarmstadt.ukp.dariah.pipeline.DocumentTimes;
+import de.tudarmstadt.ukp.dariah.type.DocumentChunk;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+import de.tudarmstadt.ukp.dkpro.core.tokit.ParagraphSplitter;
 
 /**
  * Outputs which file is currently read
+ * <p>
+ * The file is read through a channel in blocks, and each block is decoded into a char buffer
+ * of the maximal length of the text, so the text is copied only once more into the document.
+ * The file is closed as soon as it has been read. The block buffer and a char buffer for
+ * texts of up to {@link #BUFFER_SIZE} chars are kept for the next document, so a reader keeps
+ * about 1.5 MB however large the documents are.
+ * <p>
+ * Documents that are longer than {@link #PARAM_CHUNK_SIZE} are split at paragraph breaks into
+ * chunks, which are processed in CASes of their own and marked with a {@link DocumentChunk}.
+ * The {@link DARIAHWriter} joins their rows into one output.
  * @author reimers
  *
  */
-public class TextReaderWithInfo extends CasCollectionReader_ImplBase {
+public class TextReaderWithInfo extends CasCollectionReader_ImplBase implements TimedReader {
 
 	/**
 	 * Set this as the language of the produced documents.
@@ -43,7 +69,75 @@ public class TextReaderWithInfo extends CasCollectionReader_ImplBase {
 	@ConfigurationParameter(name = PARAM_ENCODING, mandatory = true, defaultValue = "UTF-8")
 	private String encoding;
 	
+	/**
+	 * Id of the {@link DocumentQueue} the input files are taken from.
+	 */
+	public static final String PARAM_DOCUMENT_QUEUE = "documentQueue";
+	@ConfigurationParameter(name=PARAM_DOCUMENT_QUEUE, mandatory=true)
+	private String documentQueueId;
+
+	/**
+	 * Documents with more characters are split into chunks of at most this size, at the
+	 * paragraph breaks of {@link #PARAM_PARAGRAPH_PATTERN}. A paragraph that is longer
+	 * is not split. 0 turns the chunking off.
+	 */
+	public static final String PARAM_CHUNK_SIZE = "chunkSize";
+	@ConfigurationParameter(name = PARAM_CHUNK_SIZE, mandatory = true, defaultValue = "0")
+	private int chunkSize;
+
+	/**
+	 * The paragraph breaks at which documents are split into chunks, the same pattern as
+	 * the one of the {@link ParagraphSplitter}, so that the chunks have the same paragraphs
+	 * as the whole document.
+	 */
+	public static final String PARAM_PARAGRAPH_PATTERN = "paragraphPattern";
+	@ConfigurationParameter(name = PARAM_PARAGRAPH_PATTERN, mandatory = true, defaultValue = ParagraphSplitter.DOUBLE_LINE_BREAKS_PATTERN)
+	private String paragraphPattern;
+
 	private static final Logger logger = LogManager.getLogger(TextReaderWithInfo.class);
+
+	/**
+	 * The size of the blocks in which the files are read, and the number of chars up to
+	 * which the char buffer is kept for the next document
+	 */
+	private static final int BUFFER_SIZE = 512 * 1024;
+
+	private DocumentQueue documentQueue;
+	private CharsetDecoder decoder;
+	private ByteBuffer bytes;
+	private CharBuffer chars;
+
+	private final long[] readTime = new long[2];
+	private final long[] decodeTime = new long[2];
+	
+	/**
+	 * The file that has been taken from the queue by {@link #hasNext()}
+	 * and will be read by the next call of {@link #getNext(CAS)}
+	 */
+	private File nextFile;
+
+	/** The document whose chunks are read, or null */
+	private File chunkedFile;
+	private String chunkedText;
+	private String chunkedTextHash;
+	private List<int[]> chunks;
+	private int nextChunk;
+
+	private Pattern paragraphBreak;
+
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		documentQueue = DocumentQueue.get(documentQueueId);
+		if(documentQueue == null) {
+			throw new ResourceInitializationException(new IllegalStateException("No document queue with the id "+documentQueueId));
+		}
+		// Like an InputStreamReader, replace malformed input instead of failing
+		decoder = Charset.forName(encoding).newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		paragraphBreak = Pattern.compile(paragraphPattern);
+	}
 	
 	@Override
 	public void getNext(CAS aCAS) throws IOException, CollectionException {
@@ -55,33 +149,264 @@ public class TextReaderWithInfo extends CasCollectionReader_ImplBase {
 			throw new CollectionException(e);
 		}
 
+		if(!hasNext()) {
+			throw new CollectionException(new FileNotFoundException("No more input files available"));
+		}
+
+		if(chunkedFile != null) {
+			getNextChunk(jcas);
+			return;
+		}
+		File file = nextFile;
+		nextFile = null;
+
 		try {		
-			File file = GlobalFileStorage.getInstance().poll();
 			
 			logger.info("Process file: "+file.getName());
 			
-			InputStream is = null;
-			try {
-				is = new BufferedInputStream(new FileInputStream(file));				
-				aCAS.setDocumentText(IOUtils.toString(is, encoding));				
-			}
-			finally {
-				closeQuietly(is);
+			String text = readText(file);
+			if(chunkSize > 0 && text.length() > chunkSize) {
+				List<int[]> textChunks = split(text);
+				if(textChunks.size() > 1) {
+					logger.info(MessageFormat.format("Split {0} into {1} chunks", file.getName(), textChunks.size()));
+					chunkedFile = file;
+					chunkedText = text;
+					chunkedTextHash = CompletionJournal.hash(text);
+					chunks = textChunks;
+					nextChunk = 0;
+					getNextChunk(jcas);
+					return;
+				}
 			}
-
-	        jcas.setDocumentLanguage(language);
-	        
-	        DocumentMetaData docMetaData = DocumentMetaData.create(aCAS);
-            docMetaData.setDocumentTitle(file.getName());
-            docMetaData.setDocumentId(file.getAbsolutePath());            
-            docMetaData.setDocumentBaseUri(file.getAbsoluteFile().getParentFile().toURI().toString());            
-            docMetaData.setDocumentUri(file.toURI().toString());
+			aCAS.setDocumentText(text);
+			setMetaData(jcas, file);
 		} catch(Exception e) {
 			throw new CollectionException(e);
 		}
 		
 	}
 
+	/**
+	 * Sets the text of the next chunk of the current document, and marks it with its
+	 * position in the document
+	 */
+	private void getNextChunk(JCas jcas) throws CollectionException {
+		int index = nextChunk++;
+		int[] chunk = chunks.get(index);
+		if(index > 0) {
+			// The file has been read with the first chunk
+			readTime[0] = readTime[1] = 0;
+			decodeTime[0] = decodeTime[1] = 0;
+		}
+
+		try {
+			jcas.setDocumentText(chunkedText.substring(chunk[0], chunk[1]));
+			setMetaData(jcas, chunkedFile);
+
+			DocumentChunk annotation = new DocumentChunk(jcas, 0, chunk[1] - chunk[0]);
+			annotation.setIndex(index);
+			annotation.setCount(chunks.size());
+			annotation.setOffset(chunk[0]);
+			annotation.setDocumentHash(chunkedTextHash);
+			annotation.addToIndexes();
+		} catch(Exception e) {
+			throw new CollectionException(e);
+		} finally {
+			if(nextChunk == chunks.size()) {
+				chunkedFile = null;
+				chunkedText = null;
+				chunkedTextHash = null;
+				chunks = null;
+			}
+		}
+	}
+
+	/**
+	 * Splits the text at the paragraph breaks into chunks of at most {@link #PARAM_CHUNK_SIZE}
+	 * characters, unless a paragraph is longer. The breaks are found in the same way as by the
+	 * {@link ParagraphSplitter}. The breaks between the chunks are not part of any chunk.
+	 *
+	 * @return the begin and end of each chunk
+	 */
+	private List<int[]> split(String text) {
+		List<int[]> textChunks = new ArrayList<>();
+		Matcher matcher = paragraphBreak.matcher(text);
+		int begin = 0;
+		int position = 0;
+		// The last break after the begin of the chunk at which it can be cut
+		int breakStart = -1;
+		int breakEnd = -1;
+		while(matcher.find(position)) {
+			// Breaks after an empty paragraph or at the end of the text are kept within the
+			// chunk, so that the chunks have the same paragraphs as the whole text
+			if(matcher.start() > position && matcher.end() < text.length()) {
+				if(matcher.start() - begin > chunkSize && breakStart > begin) {
+					textChunks.add(new int[] {begin, breakStart});
+					begin = breakEnd;
+				}
+				breakStart = matcher.start();
+				breakEnd = matcher.end();
+			}
+			position = matcher.end();
+		}
+		if(text.length() - begin > chunkSize && breakStart > begin) {
+			textChunks.add(new int[] {begin, breakStart});
+			begin = breakEnd;
+		}
+		textChunks.add(new int[] {begin, text.length()});
+		return textChunks;
+	}
+
+	private void setMetaData(JCas jcas, File file) {
+		jcas.setDocumentLanguage(language);
+
+		DocumentMetaData docMetaData = DocumentMetaData.create(jcas);
+		docMetaData.setDocumentTitle(file.getName());
+		docMetaData.setDocumentId(file.getAbsolutePath());
+		docMetaData.setDocumentBaseUri(ArchiveEntry.getBaseUri(file));
+		docMetaData.setDocumentUri(ArchiveEntry.getDocumentUri(file));
+	}
+
+	/**
+	 * Reads the file block by block and decodes each block, and measures both steps
+	 */
+	private String readText(File file) throws IOException {
+		readTime[0] = readTime[1] = 0;
+		decodeTime[0] = decodeTime[1] = 0;
+		decoder.reset();
+
+		if(file instanceof ArchiveEntry && ((ArchiveEntry) file).getContent() != null) {
+			// The entries of tar archives have been read while listing
+			byte[] content = ((ArchiveEntry) file).getContent();
+			return toText(decode(ByteBuffer.wrap(content), getCharBuffer(content.length), true));
+		}
+
+		try(ReadableByteChannel channel = openChannel(file)) {
+			long size = (channel instanceof FileChannel) ? ((FileChannel) channel).size() : file.length();
+			if(size > Integer.MAX_VALUE) {
+				throw new IOException("File "+file+" is too large: "+size+" bytes");
+			}
+			// The size of archive entries may be unknown, then the char buffer grows
+			CharBuffer output = getCharBuffer((int) Math.max(size, 0));
+			ByteBuffer input = getByteBuffer();
+			boolean endOfInput = false;
+			while(!endOfInput) {
+				long wallStart = System.nanoTime();
+				long cpuStart = DocumentTimes.currentThreadCpuTime();
+				endOfInput = channel.read(input) < 0;
+				readTime[0] += System.nanoTime() - wallStart;
+				readTime[1] = addCpuTime(readTime[1], cpuStart);
+
+				input.flip();
+				output = decode(input, output, endOfInput);
+				// Keep the bytes of a character that continues in the next block
+				input.compact();
+			}
+			return toText(output);
+		}
+	}
+
+	private static ReadableByteChannel openChannel(File file) throws IOException {
+		if(file instanceof ArchiveEntry) {
+			return Channels.newChannel(((ArchiveEntry) file).openStream());
+		}
+		return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * @return the buffer the blocks of the file are read into, which is kept for the next document
+	 */
+	private ByteBuffer getByteBuffer() {
+		if(bytes == null) {
+			bytes = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+		bytes.clear();
+		return bytes;
+	}
+
+	/**
+	 * @return a buffer for the text of a file with the given number of bytes. The maximal
+	 * number of chars is known from the size, so the text fits into the buffer.
+	 */
+	private CharBuffer getCharBuffer(int size) {
+		int maxChars = (int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(size * (double) decoder.maxCharsPerByte()));
+		if(chars != null && chars.capacity() >= maxChars) {
+			chars.clear();
+			return chars;
+		}
+		return CharBuffer.allocate(Math.max(maxChars, 1024));
+	}
+
+	/**
+	 * Decodes the bytes of the input into the output, which is replaced by a larger buffer if
+	 * it is full
+	 *
+	 * @return the output
+	 */
+	private CharBuffer decode(ByteBuffer input, CharBuffer output, boolean endOfInput) throws CharacterCodingException {
+		long wallStart = System.nanoTime();
+		long cpuStart = DocumentTimes.currentThreadCpuTime();
+
+		CoderResult result;
+		while((result = decoder.decode(input, output, endOfInput)).isOverflow()) {
+			output = grow(output);
+		}
+		if(!result.isUnderflow()) {
+			result.throwException();
+		}
+		if(endOfInput) {
+			while((result = decoder.flush(output)).isOverflow()) {
+				output = grow(output);
+			}
+			if(!result.isUnderflow()) {
+				result.throwException();
+			}
+		}
+
+		decodeTime[0] += System.nanoTime() - wallStart;
+		decodeTime[1] = addCpuTime(decodeTime[1], cpuStart);
+		return output;
+	}
+
+	private static CharBuffer grow(CharBuffer output) {
+		CharBuffer larger = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE, output.capacity() * 2L));
+		output.flip();
+		larger.put(output);
+		return larger;
+	}
+
+	private String toText(CharBuffer output) {
+		output.flip();
+		String text = output.toString();
+		// Keep the buffer for the next document, unless it is for a large file
+		if(output.capacity() <= BUFFER_SIZE) {
+			chars = output;
+		}
+		return text;
+	}
+
+	/**
+	 * Adds the CPU time since the start to the total of the blocks, which stays
+	 * {@link DocumentTimes#NO_CPU_TIME} if the JVM cannot measure it
+	 */
+	private static long addCpuTime(long total, long cpuStart) {
+		long cpuTime = DocumentTimes.cpuTimeSince(cpuStart);
+		if(total == DocumentTimes.NO_CPU_TIME || cpuTime == DocumentTimes.NO_CPU_TIME) {
+			return DocumentTimes.NO_CPU_TIME;
+		}
+		return total + cpuTime;
+	}
+
+	@Override
+	public long[] getReadTime() {
+		return readTime;
+	}
+
+	@Override
+	public long[] getDecodeTime() {
+		return decodeTime;
+	}
+
 	@Override
 	public Progress[] getProgress() {
 		return null;
@@ -91,7 +416,22 @@ public class TextReaderWithInfo extends CasCollectionReader_ImplBase {
 	public boolean hasNext()
 		throws IOException, CollectionException {
 		
-		return !GlobalFileStorage.getInstance().isEmpty();		
+		// The chunks of a document are read one after the other by the same reader
+		if(chunkedFile != null) {
+			return true;
+		}
+
+		// Take the file already here, so that concurrent readers sharing the
+		// queue never see a file that another reader takes in the meantime
+		if(nextFile == null) {
+			try {
+				nextFile = documentQueue.poll();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CollectionException(e);
+			}
+		}
+		return nextFile != null;		
 	}
 
 	
@@ -0,0 +1,24 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+/**
+ * A collection reader that measures the steps of reading a document, so that the
+ * time spent on the file system and on decoding the text can be told apart in the
+ * metrics of a run.
+ */
+public interface TimedReader {
+
+	/**
+	 * @return the wall and the CPU time in nanoseconds, as <code>{wall, cpu}</code>, that the
+	 * last call of <code>getNext</code> spent reading the bytes of the document. The CPU time
+	 * is {@link de.tudarmstadt.ukp.dariah.pipeline.DocumentTimes#NO_CPU_TIME} if the JVM cannot
+	 * measure it.
+	 */
+	long[] getReadTime();
+
+	/**
+	 * @return the wall and the CPU time in nanoseconds, as <code>{wall, cpu}</code>, that the
+	 * last call of <code>getNext</code> spent decoding the bytes into the document text, the
+	 * CPU time as for {@link #getReadTime()}
+	 */
+	long[] getDecodeTime();
+}
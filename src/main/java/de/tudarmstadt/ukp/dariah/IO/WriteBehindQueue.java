@@ -0,0 +1,177 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes the outputs of the documents in a thread of its own, so the analysis of the
+ * next document does not wait for slow storage. The writers pass the rows of a document
+ * as a {@link RowBatch}, which does not refer to the CAS, and the CAS is released right
+ * away. The queue is bounded: when it is full, the writers wait until an output has been
+ * written, so the batches cannot fill the heap.
+ * <p>
+ * The outputs are written one after another in the order in which they have been
+ * submitted. Each output is flushed and synced to the storage before the document is
+ * recorded as completed, and a document whose output fails is logged and passed to the
+ * {@link FailureListener}.
+ * <p>
+ * As UIMA writers are created from descriptions, they find the queue by its
+ * {@link #getId() id}, which is passed as parameter.
+ */
+public class WriteBehindQueue implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger(WriteBehindQueue.class);
+
+	private static final Map<String, WriteBehindQueue> queues = new ConcurrentHashMap<>();
+	private static final AtomicInteger ids = new AtomicInteger();
+
+	/** Stops the thread, after the outputs before it have been written */
+	private static final Output END = new Output(null, () -> {});
+
+	private final String id;
+	private final BlockingQueue<Output> outputs;
+	private final Thread thread;
+	private volatile FailureListener failureListener;
+	private volatile boolean closed;
+
+	/**
+	 * Receives the documents whose output could not be written
+	 */
+	public interface FailureListener {
+		/**
+		 * @param document the input file of the document, or null if it is not known
+		 */
+		void documentFailed(File document, Throwable error);
+	}
+
+	/**
+	 * Writes the output of one document
+	 */
+	interface Task {
+		void write() throws IOException;
+	}
+
+	private static final class Output {
+		final File document;
+		final Task task;
+
+		Output(File document, Task task) {
+			this.document = document;
+			this.task = task;
+		}
+	}
+
+	/**
+	 * @param capacity the number of documents that can wait to be written
+	 */
+	public WriteBehindQueue(int capacity) {
+		this.outputs = new ArrayBlockingQueue<>(capacity);
+		this.id = "write-behind-"+ids.incrementAndGet();
+		this.thread = new Thread(this::run, id);
+		// The queue is closed at the end of the run, the thread must not keep a failed run alive
+		thread.setDaemon(true);
+		thread.start();
+		queues.put(id, this);
+	}
+
+	/**
+	 * Returns the queue with the given id, or null if it does not exist or has been closed
+	 */
+	public static WriteBehindQueue get(String id) {
+		return queues.get(id);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setFailureListener(FailureListener failureListener) {
+		this.failureListener = failureListener;
+	}
+
+	/**
+	 * Adds the output of a document, waits while the queue is full
+	 *
+	 * @param document the input file of the document, for the failure report
+	 */
+	void submit(File document, Task task) throws IOException {
+		if(closed) {
+			throw new IOException("The write-behind queue has been closed");
+		}
+		try {
+			outputs.put(new Output(document, task));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the write-behind queue");
+		}
+	}
+
+	/**
+	 * Waits until the outputs that have been submitted so far are written
+	 */
+	void awaitWritten() throws IOException {
+		CountDownLatch written = new CountDownLatch(1);
+		submit(null, written::countDown);
+		try {
+			written.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the write-behind queue");
+		}
+	}
+
+	private void run() {
+		while(true) {
+			Output output;
+			try {
+				output = outputs.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if(output == END) {
+				return;
+			}
+			try {
+				output.task.write();
+			} catch (Exception | OutOfMemoryError e) {
+				String path = (output.document != null) ? output.document.getPath() : "unknown";
+				logger.error(MessageFormat.format("Writing the output failed for file: {0}, Message: {1}", path, e.getMessage()), e);
+				FailureListener listener = failureListener;
+				if(listener != null) {
+					listener.documentFailed(output.document, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the outputs that are left and stops the thread
+	 */
+	@Override
+	public void close() throws IOException {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		queues.remove(id);
+		try {
+			outputs.put(END);
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing the outputs that are left");
+		}
+	}
+}
@@ -17,15 +17,16 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.dariah.IO;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.io.InputStream;
 
-import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.uima.UimaContext;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
 import org.apache.uima.collection.CollectionException;
@@ -33,8 +34,10 @@ import org.apache.uima.fit.component.CasCollectionReader_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.TypeCapability;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.Progress;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
 import de.tudarmstadt.ukp.dariah.type.Section;
@@ -68,8 +71,38 @@ public class XmlReader extends CasCollectionReader_ImplBase {
 	private String language;
 
 
+	/**
+	 * Id of the {@link DocumentQueue} the input files are taken from.
+	 */
+	public static final String PARAM_DOCUMENT_QUEUE = "documentQueue";
+	@ConfigurationParameter(name=PARAM_DOCUMENT_QUEUE, mandatory=true)
+	private String documentQueueId;
+
 	private static Logger logger = LogManager.getLogger(XmlReader.class);
 
+	private DocumentQueue documentQueue;
+	
+	/**
+	 * The file that has been taken from the queue by {@link #hasNext()}
+	 * and will be read by the next call of {@link #getNext(CAS)}
+	 */
+	private File nextFile;
+
+	/**
+	 * The parser and its handler are created once and reused for all files of the reader
+	 */
+	private XMLReader xmlReader;
+	private FragmentContentHandler handler;
+
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		documentQueue = DocumentQueue.get(documentQueueId);
+		if(documentQueue == null) {
+			throw new ResourceInitializationException(new IllegalStateException("No document queue with the id "+documentQueueId));
+		}
+	}
+
 	@Override
 	public void getNext(CAS aCAS)
 		throws IOException, CollectionException
@@ -82,29 +115,33 @@ public class XmlReader extends CasCollectionReader_ImplBase {
 			throw new CollectionException(e);
 		}
 
+		if(!hasNext()) {
+			throw new CollectionException(new FileNotFoundException("No more input files available"));
+		}
+		File xmlFile = nextFile;
+		nextFile = null;
+
 		try {
 			// parse the xml file
-			File xmlFile = GlobalFileStorage.getInstance().poll();
 			
 			logger.info("Process file: "+xmlFile.getName());
 			
-			SAXParserFactory spf = SAXParserFactory.newInstance();
-	        SAXParser sp = spf.newSAXParser();
-	        XMLReader xr = sp.getXMLReader();
-	        
-	        LinkedList<String[]> textElements = new LinkedList<>();
-	        FragmentContentHandler fch = new FragmentContentHandler(xr, textElements);	        
-	        xr.setContentHandler(fch);
-	        xr.parse(new InputSource(new FileInputStream(xmlFile)));
+			XMLReader xr = getXmlReader();
+	        try(InputStream in = ArchiveEntry.open(xmlFile)) {
+	        	xr.parse(new InputSource(in));
+	        }
 	      
 	        StringBuilder docText = new StringBuilder();
 	        
-	        for(String[] element : textElements) {
+	        for(String[] element : handler.getTextElements()) {
 	        	
+	        	if(docText.length() > 0) {
+	        		docText.append("\n\n");
+	        	}
 	        	int start = docText.length();
 	        	int end = start + element[1].length();
 	        	
-	        	docText.append(element[1]+"\n\n");
+	        	docText.append(element[1]);
 	        	
 	        	Section section = new Section(jcas, start, end);
 	        	section.setValue(element[0]);
@@ -112,22 +149,32 @@ public class XmlReader extends CasCollectionReader_ImplBase {
 	        	
 	        }
 	        
-	        jcas.setDocumentText(docText.toString().trim());
+	        jcas.setDocumentText(docText.toString());
 	        jcas.setDocumentLanguage(language);
 	        
 	        DocumentMetaData docMetaData = DocumentMetaData.create(aCAS);
             docMetaData.setDocumentTitle(xmlFile.getName());
             docMetaData.setDocumentId(xmlFile.getAbsolutePath());
-            docMetaData.setDocumentBaseUri(xmlFile.getParentFile().getAbsoluteFile().toURI().toString());
-            docMetaData.setDocumentUri(xmlFile.getAbsoluteFile().toURI().toString());
+            docMetaData.setDocumentBaseUri(ArchiveEntry.getBaseUri(xmlFile));
+            docMetaData.setDocumentUri(ArchiveEntry.getDocumentUri(xmlFile));
 
 		} catch (Exception e) {
-			//e.printStackTrace();
+			// The parser may be left in an inconsistent state, it is created again for the next file
+			xmlReader = null;
 			throw new CollectionException(e);
 		}
 
 	}
 
+	private XMLReader getXmlReader() throws ParserConfigurationException, SAXException {
+		if(xmlReader == null) {
+			xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+			handler = new FragmentContentHandler();
+			xmlReader.setContentHandler(handler);
+		}
+		return xmlReader;
+	}
+
 	@Override
 	public Progress[] getProgress()
 	{
@@ -138,7 +185,17 @@ public class XmlReader extends CasCollectionReader_ImplBase {
 	public boolean hasNext()
 		throws IOException, CollectionException {
 		
-		return !GlobalFileStorage.getInstance().isEmpty();		
+		// Take the file already here, so that concurrent readers sharing the
+		// queue never see a file that another reader takes in the meantime
+		if(nextFile == null) {
+			try {
+				nextFile = documentQueue.poll();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CollectionException(e);
+			}
+		}
+		return nextFile != null;		
 	}
 
 	
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.annotator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.uima.cas.ArrayFS;
+import org.apache.uima.cas.BooleanArrayFS;
+import org.apache.uima.cas.ByteArrayFS;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.DoubleArrayFS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.FloatArrayFS;
+import org.apache.uima.cas.IntArrayFS;
+import org.apache.uima.cas.LongArrayFS;
+import org.apache.uima.cas.ShortArrayFS;
+import org.apache.uima.cas.StringArrayFS;
+import org.apache.uima.cas.Type;
+
+/**
+ * Copies feature structures into another CAS, including all feature structures they
+ * reference. Each feature structure is copied only once, so references between the
+ * copies are kept. In contrast to UIMA's CasCopier, feature structures that already
+ * exist in the target CAS can be registered with {@link #map}, so that references to
+ * them are not copied again.
+ */
+class FeatureStructureCopier {
+
+	private final CAS target;
+	private final Map<FeatureStructure, FeatureStructure> copies = new HashMap<>();
+
+	FeatureStructureCopier(CAS target) {
+		this.target = target;
+	}
+
+	/**
+	 * Registers the feature structure in the target CAS that corresponds to the source feature structure
+	 */
+	void map(FeatureStructure source, FeatureStructure copy) {
+		copies.put(source, copy);
+	}
+
+	boolean isMapped(FeatureStructure source) {
+		return copies.containsKey(source);
+	}
+
+	/**
+	 * Returns the source feature structures and their copies
+	 */
+	Map<FeatureStructure, FeatureStructure> getCopies() {
+		return copies;
+	}
+
+	/**
+	 * Returns the type with the same name in the target CAS, or null if it does not exist there
+	 */
+	Type getTargetType(Type sourceType) {
+		return target.getTypeSystem().getType(sourceType.getName());
+	}
+
+	/**
+	 * Returns the copy of the feature structure. The copy is not added to the indexes.
+	 */
+	FeatureStructure copy(FeatureStructure source) {
+		if(source == null) {
+			return null;
+		}
+		FeatureStructure copy = copies.get(source);
+		if(copy != null) {
+			return copy;
+		}
+
+		Type type = getTargetType(source.getType());
+		if(type == null) {
+			throw new IllegalArgumentException("Type "+source.getType().getName()+" does not exist in the target type system");
+		}
+
+		if(source.getType().isArray()) {
+			copy = copyArray(source);
+			copies.put(source, copy);
+		} else {
+			copy = target.createFS(type);
+			// Register the copy before the features are copied, in case of cycles
+			copies.put(source, copy);
+			for(Feature feature : source.getType().getFeatures()) {
+				copyFeature(source, feature, copy, type.getFeatureByBaseName(feature.getShortName()));
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Sets the value of the source feature in the target feature structure, copying
+	 * referenced feature structures if necessary.
+	 */
+	void copyFeature(FeatureStructure source, Feature feature, FeatureStructure copy, Feature targetFeature) {
+		if(targetFeature == null || CAS.FEATURE_BASE_NAME_SOFA.equals(feature.getShortName())) {
+			// The sofa is set when the copy is created
+			return;
+		}
+		if(feature.getRange().isPrimitive()) {
+			copy.setFeatureValueFromString(targetFeature, source.getFeatureValueAsString(feature));
+		} else {
+			copy.setFeatureValue(targetFeature, copy(source.getFeatureValue(feature)));
+		}
+	}
+
+	private FeatureStructure copyArray(FeatureStructure source) {
+		if(source instanceof ArrayFS) {
+			ArrayFS array = (ArrayFS) source;
+			ArrayFS copy = target.createArrayFS(array.size());
+			// Register the copy before the elements are copied, in case of cycles
+			copies.put(source, copy);
+			for(int i=0; i<array.size(); i++) {
+				copy.set(i, copy(array.get(i)));
+			}
+			return copy;
+		}
+		if(source instanceof StringArrayFS) {
+			StringArrayFS copy = target.createStringArrayFS(((StringArrayFS) source).size());
+			copy.copyFromArray(((StringArrayFS) source).toArray(), 0, 0, copy.size());
+			return copy;
+		}
+		if(source instanceof IntArrayFS) {
+			IntArrayFS copy = target.createIntArrayFS(((IntArrayFS) source).size());
+			copy.copyFromArray(((IntArrayFS) source).toArray(), 0, 0, copy.size());
+			return copy;
+		}
+		if(source instanceof FloatArrayFS) {
+			FloatArrayFS copy = target.createFloatArrayFS(((FloatArrayFS) source).size());
+			copy.copyFromArray(((FloatArrayFS) source).toArray(), 0, 0, copy.size());
+			return copy;
+		}
+		if(source instanceof DoubleArrayFS) {
+			DoubleArrayFS copy = target.createDoubleArrayFS(((DoubleArrayFS) source).size());
+			copy.copyFromArray(((DoubleArrayFS) source).toArray(), 0, 0, copy.size());
+			return copy;
+		}
+		if(source instanceof LongArrayFS) {
+			LongArrayFS copy = target.createLongArrayFS(((LongArrayFS) source).size());
+			copy.copyFromArray(((LongArrayFS) source).toArray(), 0, 0, copy.size());
+			return copy;
+		}
+		if(source instanceof ShortArrayFS) {
+			ShortArrayFS copy = target.createShortArrayFS(((ShortArrayFS) source).size());
+			copy.copyFromArray(((ShortArrayFS) source).toArray(), 0, 0, copy.size());
+			return copy;
+		}
+		if(source instanceof ByteArrayFS) {
+			ByteArrayFS copy = target.createByteArrayFS(((ByteArrayFS) source).size());
+			copy.copyFromArray(((ByteArrayFS) source).toArray(), 0, 0, copy.size());
+			return copy;
+		}
+		if(source instanceof BooleanArrayFS) {
+			BooleanArrayFS copy = target.createBooleanArrayFS(((BooleanArrayFS) source).size());
+			copy.copyFromArray(((BooleanArrayFS) source).toArray(), 0, 0, copy.size());
+			return copy;
+		}
+		throw new IllegalArgumentException("Unsupported array type "+source.getType().getName());
+	}
+}
@@ -0,0 +1,365 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.annotator;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.InvalidXMLException;
+import org.apache.uima.util.TypeSystemUtil;
+import org.apache.uima.util.XMLInputSource;
+import org.xml.sax.SAXException;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+
+/**
+ * Runs a parser on batches of sentences in parallel. Each thread has its own copy of
+ * the parser and its own CAS, which contains the text of the whole document, but only
+ * the annotations of the sentences in the batch. After a batch is parsed, the new
+ * annotations (e.g. dependencies and constituents) and the features the parser has set
+ * on existing annotations (e.g. the parent of a token) are copied back to the document.
+ * <p>
+ * This only works for parsers that process each sentence on its own, which is the case
+ * for all dependency and constituency parsers in DKPro.
+ */
+public class ParallelParser extends JCasAnnotator_ImplBase {
+
+	/** The description of the parser as XML, see {@link #createDescription} */
+	public static final String PARAM_PARSER_DESCRIPTION = "parserDescription";
+	@ConfigurationParameter(name = PARAM_PARSER_DESCRIPTION, mandatory = true)
+	protected String parserDescription;
+
+	public static final String PARAM_THREADS = "threads";
+	@ConfigurationParameter(name = PARAM_THREADS, mandatory = false, defaultValue = "2")
+	protected int threads;
+
+	/** Number of sentences that are passed at once to a parser thread */
+	public static final String PARAM_BATCH_SIZE = "batchSize";
+	@ConfigurationParameter(name = PARAM_BATCH_SIZE, mandatory = false, defaultValue = "50")
+	protected int batchSize;
+
+	/**
+	 * A parser and the CAS it processes
+	 */
+	private static class Slot {
+		AnalysisEngine parser;
+		CAS cas;
+		FeatureStructureCopier copier;
+	}
+
+	private List<Slot> slots;
+	private ExecutorService executor;
+	private TypeSystem typeSystem;
+
+	/**
+	 * Wraps the parser description, so that the parser is run on the given number of threads.
+	 */
+	public static AnalysisEngineDescription createDescription(AnalysisEngineDescription parser, int threads, int batchSize) throws ResourceInitializationException {
+		StringWriter xml = new StringWriter();
+		try {
+			parser.toXML(xml);
+		} catch (SAXException | IOException e) {
+			throw new ResourceInitializationException(e);
+		}
+		return createEngineDescription(ParallelParser.class,
+				PARAM_PARSER_DESCRIPTION, xml.toString(),
+				PARAM_THREADS, threads,
+				PARAM_BATCH_SIZE, batchSize);
+	}
+
+	/**
+	 * Returns the description of the parser that is wrapped by a description from
+	 * {@link #createDescription}
+	 */
+	public static AnalysisEngineDescription getParserDescription(AnalysisEngineDescription description) throws ResourceInitializationException {
+		Object parserDescription = description.getAnalysisEngineMetaData().getConfigurationParameterSettings().getParameterValue(PARAM_PARSER_DESCRIPTION);
+		if(parserDescription == null) {
+			throw new ResourceInitializationException(new IllegalArgumentException("The description has no parameter "+PARAM_PARSER_DESCRIPTION));
+		}
+		return parseDescription((String) parserDescription);
+	}
+
+	private static AnalysisEngineDescription parseDescription(String xml) throws ResourceInitializationException {
+		try {
+			return UIMAFramework.getXMLParser().parseAnalysisEngineDescription(new XMLInputSource(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null));
+		} catch (InvalidXMLException e) {
+			throw new ResourceInitializationException(e);
+		}
+	}
+
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+
+		AnalysisEngineDescription parser = parseDescription(parserDescription);
+
+		slots = new ArrayList<>();
+		for(int i=0; i<threads; i++) {
+			Slot slot = new Slot();
+			slot.parser = createEngine(parser);
+			slots.add(slot);
+		}
+
+		final String threadName = Thread.currentThread().getName()+"-parser-";
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int count = 0;
+
+			@Override
+			public synchronized Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, threadName+(++count));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	@Override
+	public void process(JCas jCas) throws AnalysisEngineProcessException {
+		createParserCases(jCas.getTypeSystem());
+
+		List<List<Sentence>> batches = new ArrayList<>();
+		List<Sentence> batch = new ArrayList<>();
+		for(Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
+			batch.add(sentence);
+			if(batch.size() >= batchSize) {
+				batches.add(batch);
+				batch = new ArrayList<>();
+			}
+		}
+		if(!batch.isEmpty()) {
+			batches.add(batch);
+		}
+
+		ExecutorCompletionService<Slot> completion = new ExecutorCompletionService<>(executor);
+		int next = 0;
+		int running = 0;
+		try {
+			for(Slot slot : slots) {
+				if(next == batches.size()) {
+					break;
+				}
+				submit(completion, slot, jCas, batches.get(next++));
+				running++;
+			}
+
+			while(running > 0) {
+				Future<Slot> result = completion.take();
+				running--;
+				Slot slot = result.get();
+				copyBack(slot, jCas.getCas());
+				slot.cas.reset();
+
+				if(next < batches.size()) {
+					submit(completion, slot, jCas, batches.get(next++));
+					running++;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnalysisEngineProcessException(e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof AnalysisEngineProcessException) {
+				throw (AnalysisEngineProcessException) e.getCause();
+			}
+			throw new AnalysisEngineProcessException(e.getCause());
+		} finally {
+			// Wait for the batches that are still running, so that the CASes can be reused
+			while(running-- > 0) {
+				try {
+					completion.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			for(Slot slot : slots) {
+				slot.cas.reset();
+			}
+		}
+	}
+
+	/**
+	 * Creates the CASes of the parser threads with the type system of the document
+	 */
+	private void createParserCases(TypeSystem documentTypeSystem) throws AnalysisEngineProcessException {
+		if(documentTypeSystem == typeSystem) {
+			return;
+		}
+		try {
+			TypeSystemDescription description = TypeSystemUtil.typeSystem2TypeSystemDescription(documentTypeSystem);
+			for(Slot slot : slots) {
+				slot.cas = CasCreationUtils.createCas(description, null, null);
+			}
+		} catch (ResourceInitializationException e) {
+			throw new AnalysisEngineProcessException(e);
+		}
+		typeSystem = documentTypeSystem;
+	}
+
+	/**
+	 * Copies the sentences of the batch with all annotations inside them to the CAS
+	 * of the slot, and starts the parser on it.
+	 */
+	private void submit(ExecutorCompletionService<Slot> completion, final Slot slot, JCas jCas, List<Sentence> batch) throws AnalysisEngineProcessException {
+		CAS cas = slot.cas;
+		cas.setDocumentText(jCas.getDocumentText());
+		cas.setDocumentLanguage(jCas.getDocumentLanguage());
+		try {
+			if(JCasUtil.exists(jCas, DocumentMetaData.class)) {
+				DocumentMetaData.copy(jCas, cas.getJCas());
+			}
+		} catch (Exception e) {
+			throw new AnalysisEngineProcessException(e);
+		}
+
+		Type documentAnnotation = jCas.getTypeSystem().getType(CAS.TYPE_NAME_DOCUMENT_ANNOTATION);
+		int begin = batch.get(0).getBegin();
+		int end = batch.get(batch.size()-1).getEnd();
+
+		slot.copier = new FeatureStructureCopier(cas);
+		for(Annotation annotation : JCasUtil.selectCovered(jCas, Annotation.class, begin, end)) {
+			if(jCas.getTypeSystem().subsumes(documentAnnotation, annotation.getType())) {
+				continue;
+			}
+			cas.addFsToIndexes(slot.copier.copy(annotation));
+		}
+
+		completion.submit(new Callable<Slot>() {
+			@Override
+			public Slot call() throws Exception {
+				slot.parser.process(slot.cas);
+				return slot;
+			}
+		});
+	}
+
+	/**
+	 * Adds the annotations the parser has created to the document and updates the
+	 * features the parser has changed on the existing annotations.
+	 */
+	private void copyBack(Slot slot, CAS target) {
+		FeatureStructureCopier back = new FeatureStructureCopier(target);
+		Map<FeatureStructure, FeatureStructure> forward = slot.copier.getCopies();
+		for(Map.Entry<FeatureStructure, FeatureStructure> entry : forward.entrySet()) {
+			back.map(entry.getValue(), entry.getKey());
+		}
+
+		Type documentAnnotation = slot.cas.getTypeSystem().getType(CAS.TYPE_NAME_DOCUMENT_ANNOTATION);
+
+		// New annotations in the order of the annotation index, so the document has
+		// the same order as if the parser had processed it directly
+		List<FeatureStructure> created = new ArrayList<>();
+		for(AnnotationFS annotation : slot.cas.getAnnotationIndex()) {
+			if(!back.isMapped(annotation) && !slot.cas.getTypeSystem().subsumes(documentAnnotation, annotation.getType())) {
+				created.add(annotation);
+			}
+		}
+		FSIterator<FeatureStructure> it = slot.cas.getIndexRepository().getAllIndexedFS(slot.cas.getTypeSystem().getTopType());
+		while(it.hasNext()) {
+			FeatureStructure fs = it.next();
+			if(!(fs instanceof AnnotationFS) && !back.isMapped(fs)) {
+				created.add(fs);
+			}
+		}
+		for(FeatureStructure fs : created) {
+			target.addFsToIndexes(back.copy(fs));
+		}
+
+		// Features the parser has set on the existing annotations, e.g. Token.parent
+		for(Map.Entry<FeatureStructure, FeatureStructure> entry : forward.entrySet()) {
+			FeatureStructure original = entry.getKey();
+			FeatureStructure parsed = entry.getValue();
+			if(parsed.getType().isArray()) {
+				continue;
+			}
+			for(Feature feature : parsed.getType().getFeatures()) {
+				Feature targetFeature = original.getType().getFeatureByBaseName(feature.getShortName());
+				if(targetFeature == null || CAS.FEATURE_BASE_NAME_SOFA.equals(feature.getShortName())
+						|| CAS.FEATURE_BASE_NAME_BEGIN.equals(feature.getShortName()) || CAS.FEATURE_BASE_NAME_END.equals(feature.getShortName())) {
+					// Changing the offsets would corrupt the indexes; the parsers do not change them
+					continue;
+				}
+				if(feature.getRange().isPrimitive()) {
+					String value = parsed.getFeatureValueAsString(feature);
+					if(value == null ? original.getFeatureValueAsString(targetFeature) != null : !value.equals(original.getFeatureValueAsString(targetFeature))) {
+						original.setFeatureValueFromString(targetFeature, value);
+					}
+				} else {
+					FeatureStructure value = back.copy(parsed.getFeatureValue(feature));
+					FeatureStructure current = original.getFeatureValue(targetFeature);
+					if(value == null ? current != null : !value.equals(current)) {
+						original.setFeatureValue(targetFeature, value);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+		for(Slot slot : slots) {
+			slot.parser.collectionProcessComplete();
+		}
+		super.collectionProcessComplete();
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+		for(Slot slot : slots) {
+			slot.parser.destroy();
+		}
+		super.destroy();
+	}
+}
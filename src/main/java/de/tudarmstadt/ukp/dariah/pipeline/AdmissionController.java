@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Limits the documents that are processed at the same time, so that the heap does
+ * not run out when several large documents meet. Before a document is analyzed, its
+ * memory need is estimated from the file size and reserved from a budget; documents
+ * that do not fit wait until others are finished. A document that is larger than
+ * the whole budget is processed alone.
+ * <p>
+ * In addition, the heap usage after garbage collection is watched via the collection
+ * usage thresholds of the heap memory pools. While a threshold is exceeded, e.g.
+ * because the estimate was too low, only one document at a time is admitted.
+ * <p>
+ * Documents are admitted in the order in which they arrive, so a large document is
+ * not starved by a stream of small ones. Documents that are split into chunks are
+ * admitted chunk by chunk.
+ */
+public class AdmissionController {
+
+	private static Logger logger = LogManager.getLogger(AdmissionController.class);
+
+	/*
+	 * Rough estimates of the memory need per byte of input text, not measurements: the
+	 * CAS with tokens, sentences, POS tags, lemmas etc., and the working memory of the
+	 * components. The parsers and the coreference resolver need by far the most. Set
+	 * bytesPerInputByte in the config file if they do not fit the documents or models.
+	 */
+	private static final double BYTES_PER_INPUT_BYTE = 80;
+	private static final double DEPENDENCY_PARSER_BYTES_PER_INPUT_BYTE = 60;
+	private static final double CONSTITUENCY_PARSER_BYTES_PER_INPUT_BYTE = 150;
+	private static final double NER_BYTES_PER_INPUT_BYTE = 20;
+	private static final double SRL_BYTES_PER_INPUT_BYTE = 80;
+	private static final double COREF_BYTES_PER_INPUT_BYTE = 250;
+
+	private final long budget;
+	private final double bytesPerInputByte;
+	private final List<MemoryPoolMXBean> watchedPools = new ArrayList<>();
+	private volatile int chunkSize;
+
+	private long reserved;
+	private int admitted;
+	private long nextTicket;
+	private long nextAdmission;
+	private final Set<Long> abandoned = new HashSet<>();
+	private boolean lowMemoryLogged;
+
+	/**
+	 * @param budget the heap in bytes that may be reserved for documents in total
+	 * @param bytesPerInputByte the estimated memory need per byte of the input file
+	 * @param lowMemoryThreshold share of a heap pool's maximum size, above which the
+	 * 		usage after garbage collection counts as low memory
+	 */
+	public AdmissionController(long budget, double bytesPerInputByte, double lowMemoryThreshold) {
+		this.budget = budget;
+		this.bytesPerInputByte = bytesPerInputByte;
+
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			long max = pool.getUsage().getMax();
+			if(pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0) {
+				pool.setCollectionUsageThreshold((long) (max * lowMemoryThreshold));
+				watchedPools.add(pool);
+			}
+		}
+	}
+
+	/**
+	 * Estimates the memory need per byte of input for the enabled components
+	 */
+	public static double estimateBytesPerInputByte(boolean dependencyParser, boolean constituencyParser, boolean ner, boolean srl, boolean coref) {
+		double bytes = BYTES_PER_INPUT_BYTE;
+		if(dependencyParser) {
+			bytes += DEPENDENCY_PARSER_BYTES_PER_INPUT_BYTE;
+		}
+		if(constituencyParser) {
+			bytes += CONSTITUENCY_PARSER_BYTES_PER_INPUT_BYTE;
+		}
+		if(ner) {
+			bytes += NER_BYTES_PER_INPUT_BYTE;
+		}
+		if(srl) {
+			bytes += SRL_BYTES_PER_INPUT_BYTE;
+		}
+		if(coref) {
+			bytes += COREF_BYTES_PER_INPUT_BYTE;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Documents with more characters are analyzed in chunks of this size, see
+	 * {@link de.tudarmstadt.ukp.dariah.IO.TextReaderWithInfo#PARAM_CHUNK_SIZE}. 0 if
+	 * documents are analyzed as a whole.
+	 */
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public long estimate(File document) {
+		long size = document.length();
+		if(chunkSize > 0 && size > chunkSize) {
+			// Each chunk is admitted on its own, before the reader takes it from the document.
+			// Only a paragraph that is longer than the chunk size makes a chunk larger.
+			size = chunkSize;
+		}
+		return (long) (size * bytesPerInputByte);
+	}
+
+	/**
+	 * Waits until the document may be processed and reserves its estimated memory need.
+	 *
+	 * @return the reserved bytes, which have to be passed to {@link #release(long)}
+	 * 		when the document is finished
+	 */
+	public synchronized long admit(File document) throws InterruptedException {
+		long need = estimate(document);
+		long ticket = nextTicket++;
+		boolean waited = false;
+		try {
+			while(ticket != nextAdmission || (admitted > 0 && (reserved + need > budget || isLowMemory()))) {
+				if(!waited && ticket == nextAdmission) {
+					logger.debug(MessageFormat.format("Holding back {0} (about {1} MB) until other documents are finished",
+							document.getName(), need / (1024 * 1024)));
+					waited = true;
+				}
+				wait();
+			}
+		} catch (InterruptedException e) {
+			// Give up the place in the queue, otherwise the following documents would wait forever
+			if(ticket == nextAdmission) {
+				advance();
+			} else {
+				abandoned.add(ticket);
+			}
+			notifyAll();
+			throw e;
+		}
+
+		if(need > budget) {
+			logger.info(MessageFormat.format("{0} needs about {1} MB and is processed alone", document.getName(), need / (1024 * 1024)));
+		}
+		advance();
+		reserved += need;
+		admitted++;
+		notifyAll();
+		return need;
+	}
+
+	private void advance() {
+		nextAdmission++;
+		while(abandoned.remove(nextAdmission)) {
+			nextAdmission++;
+		}
+	}
+
+	public synchronized void release(long bytes) {
+		reserved -= bytes;
+		admitted--;
+		notifyAll();
+	}
+
+	/**
+	 * @return true if the heap usage after the last garbage collection exceeds the
+	 * threshold in any of the heap pools
+	 */
+	boolean isLowMemory() {
+		for(MemoryPoolMXBean pool : watchedPools) {
+			if(pool.isCollectionUsageThresholdExceeded()) {
+				if(!lowMemoryLogged) {
+					logger.warn(MessageFormat.format("Heap is almost full ({0} MB of {1} MB used in {2}), processing one document at a time",
+							pool.getCollectionUsage().getUsed() / (1024 * 1024),
+							pool.getUsage().getMax() / (1024 * 1024),
+							pool.getName()));
+					lowMemoryLogged = true;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+}
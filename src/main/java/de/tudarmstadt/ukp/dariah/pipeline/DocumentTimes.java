@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.fit.util.CasUtil;
+
+import de.tudarmstadt.ukp.dariah.IO.TimedReader;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+
+/**
+ * The time each stage of the pipeline has spent on one document. The stages of a
+ * document may run in different threads, but never at the same time.
+ */
+public class DocumentTimes {
+
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+	private String document;
+	private int tokens;
+	private int sentences;
+
+	private final List<String> stages = new ArrayList<>();
+	private final List<long[]> times = new ArrayList<>();
+
+	/** The CPU time of a stage if the JVM cannot measure the CPU time of a thread */
+	public static final long NO_CPU_TIME = -1;
+
+	/**
+	 * @return the CPU time of the current thread in nanoseconds, or {@link #NO_CPU_TIME} if it is not supported by the JVM
+	 */
+	public static long currentThreadCpuTime() {
+		return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : NO_CPU_TIME;
+	}
+
+	/**
+	 * @return the CPU time of the current thread since the given {@link #currentThreadCpuTime()},
+	 * or {@link #NO_CPU_TIME} if it is not supported by the JVM
+	 */
+	public static long cpuTimeSince(long cpuStart) {
+		return (cpuStart == NO_CPU_TIME) ? NO_CPU_TIME : currentThreadCpuTime() - cpuStart;
+	}
+
+	/**
+	 * Adds the wall and the CPU time of a stage in nanoseconds. The CPU time may be {@link #NO_CPU_TIME}.
+	 */
+	public void add(String stage, long wallTime, long cpuTime) {
+		stages.add(stage);
+		times.add(new long[] {wallTime, cpuTime});
+	}
+
+	/**
+	 * Adds the time of the reader. If the reader measures the steps of reading a document,
+	 * the time of each step is added separately, and the rest as time of the reader.
+	 */
+	public void addReader(String readerName, CollectionReader reader, long wallTime, long cpuTime) {
+		if(reader instanceof TimedReader) {
+			long[] read = ((TimedReader) reader).getReadTime();
+			long[] decode = ((TimedReader) reader).getDecodeTime();
+			add(readerName+".read", read[0], read[1]);
+			add(readerName+".decode", decode[0], decode[1]);
+			wallTime -= read[0] + decode[0];
+			if(cpuTime != NO_CPU_TIME && read[1] != NO_CPU_TIME && decode[1] != NO_CPU_TIME) {
+				cpuTime -= read[1] + decode[1];
+			}
+		}
+		add(readerName, wallTime, cpuTime);
+	}
+
+	/**
+	 * Counts the tokens and sentences of the processed document
+	 */
+	public void count(CAS cas) {
+		tokens = cas.getAnnotationIndex(CasUtil.getType(cas, Token.class)).size();
+		sentences = cas.getAnnotationIndex(CasUtil.getType(cas, Sentence.class)).size();
+	}
+
+	public void setDocument(String document) {
+		this.document = document;
+	}
+
+	public String getDocument() {
+		return document;
+	}
+
+	public int getTokens() {
+		return tokens;
+	}
+
+	public int getSentences() {
+		return sentences;
+	}
+
+	public int getStageCount() {
+		return stages.size();
+	}
+
+	public String getStage(int index) {
+		return stages.get(index);
+	}
+
+	public long getWallTime(int index) {
+		return times.get(index)[0];
+	}
+
+	public long getCpuTime(int index) {
+		return times.get(index)[1];
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.fit.component.NoOpAnnotator;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.ProcessingResourceMetaData;
+
+import de.tudarmstadt.ukp.dariah.annotator.ParallelParser;
+
+/**
+ * Runs a sequence of analysis engines on a CAS and measures the wall and the CPU
+ * time of each engine. Disabled components, which are configured as
+ * {@link NoOpAnnotator}, are skipped.
+ */
+public class EngineChain {
+
+	private final List<AnalysisEngine> engines = new ArrayList<>();
+	private final List<String> names = new ArrayList<>();
+
+	public EngineChain(AnalysisEngineDescription... descriptions) throws ResourceInitializationException {
+		for(AnalysisEngineDescription description : descriptions) {
+			String implementation = description.getAnnotatorImplementationName();
+			if(NoOpAnnotator.class.getName().equals(implementation)) {
+				continue;
+			}
+
+			if(ParallelParser.class.getName().equals(implementation)) {
+				// Named after the wrapped parser, so the stage is the same as without parser threads
+				implementation = ParallelParser.getParserDescription(description).getAnnotatorImplementationName();
+			}
+			String name = (implementation != null)
+					? implementation.substring(implementation.lastIndexOf('.')+1)
+					: description.getMetaData().getName();
+			if(names.contains(name)) {
+				// e.g. the same parser for dependencies and constituents
+				int i = 2;
+				while(names.contains(name+"#"+i)) {
+					i++;
+				}
+				name = name+"#"+i;
+			}
+
+			engines.add(createEngine(description));
+			names.add(name);
+		}
+	}
+
+	public List<ProcessingResourceMetaData> getMetaData() {
+		List<ProcessingResourceMetaData> metaData = new ArrayList<>();
+		for(AnalysisEngine engine : engines) {
+			metaData.add(engine.getProcessingResourceMetaData());
+		}
+		return metaData;
+	}
+
+	public void process(CAS cas, DocumentTimes times) throws AnalysisEngineProcessException {
+		for(int i=0; i<engines.size(); i++) {
+			long wallStart = System.nanoTime();
+			long cpuStart = DocumentTimes.currentThreadCpuTime();
+
+			engines.get(i).process(cas);
+
+			times.add(names.get(i), System.nanoTime() - wallStart, DocumentTimes.cpuTimeSince(cpuStart));
+		}
+	}
+
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+		for(AnalysisEngine engine : engines) {
+			engine.collectionProcessComplete();
+		}
+	}
+
+	public void destroy() {
+		for(AnalysisEngine engine : engines) {
+			engine.destroy();
+		}
+	}
+}
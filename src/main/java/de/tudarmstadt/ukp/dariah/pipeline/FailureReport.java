@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Lists the documents that could not be processed. Each line contains the path of
+ * the document, the type of the error and its message, separated by tabs.
+ * The report file is only created when the first failure is recorded.
+ * <p>
+ * Only the number of failures is kept in memory, the documents are listed in the
+ * report file, so the report does not grow in the server and the watch mode.
+ */
+public class FailureReport {
+
+	public static final String FILENAME = "failed-documents.tsv";
+
+	private static Logger logger = LogManager.getLogger(FailureReport.class);
+
+	private final File reportFile;
+	private PrintWriter out;
+	private int failures;
+
+	public FailureReport(String outputLocation) {
+		this.reportFile = new File(outputLocation, FILENAME);
+	}
+
+	public synchronized void documentFailed(File document, Throwable error) {
+		failures++;
+
+		Throwable cause = (error.getCause() != null) ? error.getCause() : error;
+		String message = String.valueOf(cause.getMessage()).replaceAll("\\s+", " ");
+		String path = (document != null) ? document.getAbsolutePath() : "unknown";
+
+		try {
+			if(out == null) {
+				reportFile.getParentFile().mkdirs();
+				out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(reportFile, true), StandardCharsets.UTF_8));
+			}
+			out.println(path+"\t"+cause.getClass().getName()+"\t"+message);
+			out.flush();
+		} catch (IOException e) {
+			logger.error("Could not write to the failure report "+reportFile.getAbsolutePath(), e);
+		}
+	}
+
+	public synchronized int getFailures() {
+		return failures;
+	}
+
+	public synchronized void close() {
+		if(out != null) {
+			out.close();
+			out = null;
+		}
+		if(failures > 0) {
+			logger.warn(MessageFormat.format("{0} documents could not be processed, see {1}", failures, reportFile.getAbsolutePath()));
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.collection.CollectionReaderDescription;
+
+import de.tudarmstadt.ukp.dariah.IO.DocumentQueue;
+
+/**
+ * Runs one or several copies of the pipeline. Each thread has its own reader
+ * and its own engines, i.e. the models are loaded once per thread, and the documents
+ * are distributed over the threads via the shared document queue.
+ */
+public class ParallelPipeline {
+
+	private static Logger logger = LogManager.getLogger(ParallelPipeline.class);
+
+	private final int threads;
+	private final DocumentQueue queue;
+	private final FailureReport failures;
+	private final CollectionReaderDescription reader;
+	private final AnalysisEngineDescription[] engines;
+	private AdmissionController admission;
+
+	public ParallelPipeline(int threads, DocumentQueue queue, FailureReport failures, CollectionReaderDescription reader, AnalysisEngineDescription... engines) {
+		this.threads = threads;
+		this.queue = queue;
+		this.failures = failures;
+		this.reader = reader;
+		this.engines = engines;
+	}
+
+	/**
+	 * Limits the documents that are analyzed at the same time by their estimated memory need
+	 */
+	public void setAdmissionController(AdmissionController admission) {
+		this.admission = admission;
+	}
+
+	/**
+	 * Processes all documents and waits until every thread has finished.
+	 */
+	public void run(final RunStatistics statistics) throws UIMAException, IOException {
+		final AtomicInteger threadCount = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				return new Thread(r, "pipeline-"+threadCount.incrementAndGet());
+			}
+		});
+
+		if(threads > 1) {
+			logger.info("Starting "+threads+" pipeline threads");
+		}
+
+		try {
+			List<Future<Void>> results = new ArrayList<>();
+			for(int i=0; i<threads; i++) {
+				results.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						// Create the worker inside the thread, so that the models are loaded in parallel
+						PipelineWorker worker = new PipelineWorker(queue, reader, engines);
+						worker.setAdmissionController(admission);
+						try {
+							worker.process(statistics, failures);
+						} finally {
+							worker.complete();
+						}
+						return null;
+					}
+				}));
+			}
+
+			for(Future<Void> result : results) {
+				waitFor(result);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Waits for a pipeline thread and rethrows the exception that terminated it, if any.
+	 */
+	static void waitFor(Future<Void> result) throws UIMAException, IOException {
+		try {
+			result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the pipeline threads", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof UIMAException) {
+				throw (UIMAException) cause;
+			}
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if(cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+}
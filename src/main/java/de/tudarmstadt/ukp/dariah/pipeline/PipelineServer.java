@@ -0,0 +1,470 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.collection.CollectionReaderDescription;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import de.tudarmstadt.ukp.dariah.IO.CompletionJournal;
+import de.tudarmstadt.ukp.dariah.IO.DocumentQueue;
+import de.tudarmstadt.ukp.dariah.IO.OutputShards;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionUtils;
+
+/**
+ * Keeps the pipeline with all models loaded and accepts jobs via HTTP on the
+ * loopback interface. The jobs are processed one after another by a single
+ * {@link PipelineWorker}; the results are written to the output folder as in the
+ * batch mode.
+ * <ul>
+ * <li><code>POST /documents?name=file.txt</code> processes the request body as one
+ * document and returns the DARIAHWriter output</li>
+ * <li><code>POST /paths</code> processes the files, folders or patterns listed in
+ * the request body, one per line, and returns the job status</li>
+ * <li><code>GET /jobs/&lt;id&gt;</code> returns the status of a job</li>
+ * <li><code>GET /jobs/&lt;id&gt;/result</code> returns the DARIAHWriter output of a
+ * document job</li>
+ * </ul>
+ * When the parameter <code>async</code> is added to a POST request, the server
+ * answers immediately with the id of the job instead of waiting for the result.
+ * <p>
+ * A finished job is forgotten once its result has been returned, or after
+ * {@link #JOB_RETENTION_MILLIS} if nobody asks for it. The job ids start with the
+ * time at which the server has been started, so the spooled documents and their
+ * outputs do not overwrite those of an earlier server.
+ */
+public class PipelineServer {
+
+	private static Logger logger = LogManager.getLogger(PipelineServer.class);
+
+	private static final String TSV_CONTENT_TYPE = "text/tab-separated-values; charset=UTF-8";
+	private static final String TEXT_CONTENT_TYPE = "text/plain; charset=UTF-8";
+
+	/** How long a finished job is kept when its result is not requested */
+	static final long JOB_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+	private enum State {
+		QUEUED, RUNNING, DONE, FAILED
+	}
+
+	private static final class Job {
+		final String id;
+		final File document;
+		final List<String> paths;
+		final RunStatistics statistics = new RunStatistics();
+		final FailureReport failures;
+		volatile State state = State.QUEUED;
+		volatile String error;
+		volatile long finishedAt;
+		Future<?> future;
+
+		Job(String id, File document, List<String> paths, FailureReport failures) {
+			this.id = id;
+			this.document = document;
+			this.paths = paths;
+			this.failures = failures;
+		}
+	}
+
+	private final int port;
+	private final String outputLocation;
+	private final String outputSuffix;
+	private final String fileExtension;
+	private final CompletionJournal completed;
+	private final DocumentQueue queue;
+	private final CollectionReaderDescription reader;
+	private final AnalysisEngineDescription[] engines;
+
+	private final File spoolDirectory;
+	private final String jobIdPrefix = new SimpleDateFormat("yyyyMMdd'T'HHmmss").format(new Date());
+	private final AtomicInteger jobIds = new AtomicInteger();
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+	private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+
+	/** Resources of the pipeline, like the journal, which are closed when the server shuts down */
+	private final List<Closeable> resources = new ArrayList<>();
+
+	private PipelineWorker worker;
+	private HttpServer server;
+
+	public PipelineServer(int port, String outputLocation, String outputSuffix, String fileExtension, CompletionJournal completed,
+			DocumentQueue queue, CollectionReaderDescription reader, AnalysisEngineDescription... engines) {
+		this.port = port;
+		this.outputLocation = outputLocation;
+		this.outputSuffix = outputSuffix;
+		this.fileExtension = fileExtension;
+		this.completed = completed;
+		this.queue = queue;
+		this.reader = reader;
+		this.engines = engines;
+		this.spoolDirectory = new File(outputLocation, "server-input");
+	}
+
+	/**
+	 * Registers a resource that is closed when the server shuts down, after the documents
+	 * in progress have been written. Resources are closed in the order they were added.
+	 */
+	public synchronized void closeOnShutdown(Closeable resource) {
+		resources.add(resource);
+	}
+
+	/**
+	 * Loads the models and starts to accept requests. The server keeps running after this
+	 * method has returned, until the JVM is shut down.
+	 */
+	public void start() throws UIMAException, IOException {
+		// The worker is created in the job thread, which is the only thread that uses it
+		Future<Void> initialization = jobExecutor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				worker = new PipelineWorker(queue, reader, engines);
+				return null;
+			}
+		});
+		ParallelPipeline.waitFor(initialization);
+
+		if(!spoolDirectory.isDirectory() && !spoolDirectory.mkdirs()) {
+			throw new IOException("Cannot create directory "+spoolDirectory.getAbsolutePath());
+		}
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/documents", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleDocument(exchange);
+			}
+		});
+		server.createContext("/paths", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handlePaths(exchange);
+			}
+		});
+		server.createContext("/jobs", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				handleJob(exchange);
+			}
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				shutdown();
+			}
+		});
+
+		logger.info(MessageFormat.format("Pipeline server is listening on http://{0}:{1,number,#}/", InetAddress.getLoopbackAddress().getHostAddress(), port));
+	}
+
+	public synchronized void shutdown() {
+		if(server != null) {
+			server.stop(0);
+		}
+		jobExecutor.shutdownNow();
+		if(worker != null) {
+			try {
+				worker.complete();
+			} catch (Exception e) {
+				logger.error("Error when shutting down the pipeline", e);
+			}
+		}
+		for(Closeable resource : resources) {
+			try {
+				resource.close();
+			} catch (IOException e) {
+				logger.error("Error when closing "+resource, e);
+			}
+		}
+		resources.clear();
+	}
+
+	private void handleDocument(HttpExchange exchange) throws IOException {
+		try {
+			if(!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "Use POST to submit a document\n");
+				return;
+			}
+			Map<String, String> parameters = parseQuery(exchange);
+
+			String id = nextJobId();
+			String name = parameters.containsKey("name") ? parameters.get("name") : "document"+fileExtension;
+			// Only keep characters that are safe in file names
+			File document = new File(spoolDirectory, id+"-"+name.replaceAll("[^\\w.-]", "_"));
+			try(InputStream in = exchange.getRequestBody()) {
+				Files.write(document.toPath(), IOUtils.toByteArray(in));
+			}
+
+			Job job = submit(new Job(id, document, null, new FailureReport(outputLocation)));
+			if(parameters.containsKey("async")) {
+				respondAccepted(exchange, job);
+			} else {
+				waitFor(job);
+				respondResult(exchange, job);
+				jobs.remove(job.id);
+			}
+		} catch (Exception e) {
+			respondError(exchange, e);
+		}
+	}
+
+	private void handlePaths(HttpExchange exchange) throws IOException {
+		try {
+			if(!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "Use POST to submit input paths\n");
+				return;
+			}
+			Map<String, String> parameters = parseQuery(exchange);
+
+			List<String> paths = new ArrayList<>();
+			try(InputStream in = exchange.getRequestBody()) {
+				for(String line : IOUtils.readLines(in, StandardCharsets.UTF_8)) {
+					if(!line.trim().isEmpty()) {
+						paths.add(line.trim());
+					}
+				}
+			}
+			if(paths.isEmpty()) {
+				respond(exchange, 400, "The request body must contain at least one input path\n");
+				return;
+			}
+
+			Job job = submit(new Job(nextJobId(), null, paths, new FailureReport(outputLocation)));
+			if(parameters.containsKey("async")) {
+				respondAccepted(exchange, job);
+			} else {
+				waitFor(job);
+				respond(exchange, 200, getStatus(job));
+				jobs.remove(job.id);
+			}
+		} catch (Exception e) {
+			respondError(exchange, e);
+		}
+	}
+
+	private void handleJob(HttpExchange exchange) throws IOException {
+		try {
+			if(!"GET".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "Use GET to query a job\n");
+				return;
+			}
+			evictExpiredJobs();
+			// Path is /jobs/<id> or /jobs/<id>/result
+			String[] parts = exchange.getRequestURI().getPath().split("/");
+			Job job = null;
+			if(parts.length >= 3) {
+				job = jobs.get(parts[2]);
+			}
+			if(job == null) {
+				respond(exchange, 404, "Unknown job\n");
+				return;
+			}
+
+			if(parts.length >= 4 && parts[3].equals("result")) {
+				if(job.state == State.QUEUED || job.state == State.RUNNING) {
+					respond(exchange, 409, getStatus(job));
+				} else {
+					if(job.document == null) {
+						respond(exchange, 200, getStatus(job));
+					} else {
+						respondResult(exchange, job);
+					}
+					// The result has been returned, the job is not needed anymore
+					jobs.remove(job.id);
+				}
+			} else {
+				respond(exchange, 200, getStatus(job));
+			}
+		} catch (Exception e) {
+			respondError(exchange, e);
+		}
+	}
+
+	private String nextJobId() {
+		return jobIdPrefix+"-"+jobIds.incrementAndGet();
+	}
+
+	/**
+	 * Forgets the finished jobs whose result has not been requested in time
+	 */
+	private void evictExpiredJobs() {
+		long expired = System.currentTimeMillis() - JOB_RETENTION_MILLIS;
+		for(Job job : jobs.values()) {
+			if(job.finishedAt != 0 && job.finishedAt < expired) {
+				jobs.remove(job.id);
+			}
+		}
+	}
+
+	private Job submit(final Job job) {
+		evictExpiredJobs();
+		jobs.put(job.id, job);
+		job.future = jobExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				execute(job);
+			}
+		});
+		logger.info("Accepted job "+job.id);
+		return job;
+	}
+
+	/**
+	 * Runs a job in the job thread
+	 */
+	private void execute(Job job) {
+		job.state = State.RUNNING;
+		try {
+			if(job.document != null) {
+				queue.add(job.document);
+				queue.endInput();
+			} else {
+				// Checks all paths before the first file is added
+				queue.readFilePaths(job.paths, fileExtension, completed);
+			}
+			worker.process(job.statistics, job.failures);
+			job.state = State.DONE;
+		} catch (Exception e) {
+			logger.error("Job "+job.id+" failed", e);
+			job.error = String.valueOf(e.getMessage());
+			job.state = State.FAILED;
+		} finally {
+			try {
+				queue.reset();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			job.failures.close();
+			if(job.document != null) {
+				job.document.delete();
+			}
+			job.finishedAt = System.currentTimeMillis();
+		}
+		logger.info(MessageFormat.format("Finished job {0} with {1} documents", job.id, job.statistics.getDocuments()));
+	}
+
+	private static void waitFor(Job job) throws InterruptedException, ExecutionException {
+		job.future.get();
+	}
+
+	private String getStatus(Job job) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("id\t").append(job.id).append('\n');
+		sb.append("state\t").append(job.state).append('\n');
+		sb.append("documents\t").append(job.statistics.getDocuments()).append('\n');
+		sb.append("tokens\t").append(job.statistics.getTokens()).append('\n');
+		sb.append("failed\t").append(job.failures.getFailures()).append('\n');
+		if(job.error != null) {
+			sb.append("error\t").append(job.error.replaceAll("\\s+", " ")).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private void respondResult(HttpExchange exchange, Job job) throws IOException {
+		// A document job has a failure report of its own, which lists only its document
+		if(job.state == State.FAILED || job.failures.getFailures() > 0) {
+			respond(exchange, 500, getStatus(job));
+			return;
+		}
+		File output = DocumentQueue.getOutputFile(job.document.getName(), outputLocation, outputSuffix);
+		// With output shards, the output has no file of its own and is read from the shards
+		InputStream stored = output.exists() ? new FileInputStream(output)
+				: new ByteArrayInputStream(OutputShards.read(new File(outputLocation), CompletionJournal.getDocumentKey(job.document.getName())));
+		// The result is sent uncompressed, also if the outputs are compressed
+		try(InputStream in = CompressionUtils.getInputStream(output.getName(), stored)) {
+			respond(exchange, 200, TSV_CONTENT_TYPE, IOUtils.toByteArray(in));
+		}
+	}
+
+	private static void respondAccepted(HttpExchange exchange, Job job) throws IOException {
+		exchange.getResponseHeaders().set("Location", "/jobs/"+job.id);
+		respond(exchange, 202, job.id+"\n");
+	}
+
+	private static void respondError(HttpExchange exchange, Exception e) throws IOException {
+		logger.error("Error when handling request "+exchange.getRequestURI(), e);
+		respond(exchange, 500, "Error: "+e.getMessage()+"\n");
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		respond(exchange, status, TEXT_CONTENT_TYPE, body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, body.length);
+		try(OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static Map<String, String> parseQuery(HttpExchange exchange) throws IOException {
+		Map<String, String> parameters = new HashMap<>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if(query == null) {
+			return parameters;
+		}
+		for(String parameter : query.split("&")) {
+			int separator = parameter.indexOf('=');
+			if(separator >= 0) {
+				parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+						URLDecoder.decode(parameter.substring(separator+1), "UTF-8"));
+			} else if(!parameter.isEmpty()) {
+				parameters.put(URLDecoder.decode(parameter, "UTF-8"), "");
+			}
+		}
+		return parameters;
+	}
+}
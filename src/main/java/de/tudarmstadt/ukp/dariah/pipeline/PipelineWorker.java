@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.collection.CollectionReaderDescription;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.MetaDataObject;
+import org.apache.uima.util.CasCreationUtils;
+
+import de.tudarmstadt.ukp.dariah.IO.DocumentQueue;
+
+/**
+ * One instance of the complete pipeline: a reader, the chain of analysis engines
+ * and a CAS. Several workers can run in parallel threads, as the readers share the
+ * thread-safe {@link DocumentQueue}.
+ * <p>
+ * The engines are initialized only once. When a document fails, the CAS is reset and
+ * the worker continues with the next document, so the models stay loaded.
+ */
+public class PipelineWorker {
+
+	private static Logger logger = LogManager.getLogger(PipelineWorker.class);
+
+	private final DocumentQueue queue;
+	private final CollectionReader reader;
+	private final String readerName;
+	private final EngineChain engines;
+	private final CAS cas;
+	private AdmissionController admission;
+
+	/**
+	 * @param queue the queue the reader takes its files from
+	 */
+	public PipelineWorker(DocumentQueue queue, CollectionReaderDescription readerDescription, AnalysisEngineDescription... engineDescriptions) throws ResourceInitializationException {
+		this.queue = queue;
+		reader = createReader(readerDescription);
+		readerName = getReaderName(readerDescription);
+		engines = new EngineChain(engineDescriptions);
+
+		List<MetaDataObject> metaData = new ArrayList<>();
+		metaData.add(reader.getMetaData());
+		metaData.addAll(engines.getMetaData());
+		cas = CasCreationUtils.createCas(metaData);
+		reader.typeSystemInit(cas.getTypeSystem());
+	}
+
+	/**
+	 * Waits for the admission of each document before it is read
+	 */
+	public void setAdmissionController(AdmissionController admission) {
+		this.admission = admission;
+	}
+
+	/**
+	 * @return the name under which the time of the reader is reported
+	 */
+	static String getReaderName(CollectionReaderDescription readerDescription) {
+		String implementation = readerDescription.getImplementationName();
+		return implementation.substring(implementation.lastIndexOf('.')+1);
+	}
+
+	/**
+	 * Processes documents until the reader has no more input. A document that fails
+	 * is logged, recorded in the failure report and skipped.
+	 */
+	public void process(RunStatistics statistics, FailureReport failures) throws UIMAException, IOException {
+		while(reader.hasNext()) {
+			DocumentTimes times = new DocumentTimes();
+			long reservedBytes = -1;
+			try {
+				if(admission != null) {
+					// The reader has taken the file in hasNext(), so it can be admitted before it is read
+					reservedBytes = admission.admit(queue.getLastPolledFile());
+				}
+				long wallStart = System.nanoTime();
+				long cpuStart = DocumentTimes.currentThreadCpuTime();
+				reader.getNext(cas);
+				times.addReader(readerName, reader, System.nanoTime() - wallStart, DocumentTimes.cpuTimeSince(cpuStart));
+				times.setDocument(queue.getLastPolledFile().getPath());
+				statistics.documentStarted();
+
+				engines.process(cas, times);
+				times.count(cas);
+				statistics.documentProcessed(times);
+			} catch (OutOfMemoryError e) {
+				File file = queue.getLastPolledFile();
+				logger.error("Out of Memory at file: "+file.getAbsolutePath(), e);
+				failures.documentFailed(file, e);
+			} catch (AnalysisEngineProcessException | CollectionException e) {
+				File file = queue.getLastPolledFile();
+				logger.error(MessageFormat.format("Processing failed for file: {0}, Message: {1}, Cause: {2}",
+						file.getPath(),
+						e.getMessage(),
+						e.getCause() == null? "none" : e.getCause().getMessage()), e);
+				failures.documentFailed(file, e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the admission of a document", e);
+			} finally {
+				cas.reset();
+				if(reservedBytes >= 0) {
+					admission.release(reservedBytes);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Signals the end of the collection to the engines and releases all resources.
+	 */
+	public void complete() throws AnalysisEngineProcessException {
+		try {
+			engines.collectionProcessComplete();
+		} finally {
+			engines.destroy();
+			reader.destroy();
+		}
+	}
+}
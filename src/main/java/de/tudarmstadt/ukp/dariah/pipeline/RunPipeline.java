@@ -24,14 +24,19 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.StringWriter;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryType;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import de.tudarmstadt.ukp.dkpro.core.io.xmi.XmiWriter;
 import org.apache.commons.cli.BasicParser;
@@ -55,21 +60,31 @@ import org.apache.logging.log4j.io.IoBuilder;
 import org.apache.uima.UIMAException;
 import org.apache.uima.analysis_component.AnalysisComponent;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
-import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.collection.CollectionReaderDescription;
 import org.apache.uima.fit.component.NoOpAnnotator;
-import org.apache.uima.fit.pipeline.SimplePipeline;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.xml.sax.SAXException;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ObjectArrays;
 
 import de.tudarmstadt.ukp.dariah.IO.AnnotationWriter;
+import de.tudarmstadt.ukp.dariah.IO.ColumnarWriter;
+import de.tudarmstadt.ukp.dariah.IO.CompletionJournal;
 import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter;
-import de.tudarmstadt.ukp.dariah.IO.GlobalFileStorage;
+import de.tudarmstadt.ukp.dariah.IO.DocumentOrder;
+import de.tudarmstadt.ukp.dariah.IO.DocumentQueue;
+import de.tudarmstadt.ukp.dariah.IO.InputFolderWatcher;
+import de.tudarmstadt.ukp.dariah.IO.OutputShards;
+import de.tudarmstadt.ukp.dariah.IO.TeiReader;
 import de.tudarmstadt.ukp.dariah.IO.TextReaderWithInfo;
+import de.tudarmstadt.ukp.dariah.IO.WriteBehindQueue;
 import de.tudarmstadt.ukp.dariah.IO.XmlReader;
 import de.tudarmstadt.ukp.dariah.annotator.DirectSpeechAnnotator;
+import de.tudarmstadt.ukp.dariah.annotator.ParallelParser;
 import de.tudarmstadt.ukp.dariah.annotator.ParagraphSentenceCorrector;
+import de.tudarmstadt.ukp.dariah.pipeline.StagedPipeline.StageGroup;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionMethod;
 import de.tudarmstadt.ukp.dkpro.core.tokit.ParagraphSplitter;
 import de.tudarmstadt.ukp.dkpro.core.tokit.PatternBasedTokenSegmenter;
 
@@ -87,7 +102,7 @@ public class RunPipeline {
 	private static PrintStream stderr = System.err;
 	
 	private enum ReaderType {
-		Text, XML
+		Text, XML, TEI
 	}
 
 	private static String optLanguage = "en";
@@ -95,6 +110,9 @@ public class RunPipeline {
 	private static String optOutput;
 	private static String optStartQuote;
 	private static ReaderType optReader = ReaderType.Text;
+	private static String[] optTeiInclude = {"text/body"};
+	private static String[] optTeiExclude = {"note", "fw"};
+	private static int optChunkSize = 0;
 	
 	private static boolean optParagraphSingleLineBreak = false;
 
@@ -130,6 +148,19 @@ public class RunPipeline {
 	private static Class<? extends AnalysisComponent> optConstituencyParserCls;
 	private static Object[] optConstituencyParserArguments;
 
+	private static int optParserThreads = 1;
+	private static int optParserBatchSize = 50;
+
+	private static boolean optAdmissionControl = true;
+	private static double optDocumentHeapShare = 0.5;
+	private static double optLowHeapThreshold = 0.85;
+	private static double optBytesPerInputByte = 0;
+
+	private static CompressionMethod optOutputCompression = CompressionMethod.NONE;
+	private static int optOutputCompressionLevel = 1;
+	private static int optOutputShardSize = 0;
+	private static int optWriteBehindQueueSize = 0;
+
 	private static boolean optNER = true;
 	private static Class<? extends AnalysisComponent> optNERCls;
 	private static Object[] optNERArguments;
@@ -147,14 +178,36 @@ public class RunPipeline {
 	
 	private static boolean optResume = false;
 	private static boolean optWriteAnn = false;
+	private static boolean optWriteColumnar = false;
+	private static int optThreads = 1;
+	private static boolean optStaged = false;
+	private static int optCasPool = 0;
+	private static int optServerPort = 0;
+	private static boolean optWatch = false;
+	private static DocumentOrder optOrder = DocumentOrder.FOUND;
 
 	private static void printConfiguration(String[] configFileNames) {
-		logger.info("Input: "+optInput);
+		if(optServerPort > 0) {
+			logger.info("Server port: "+optServerPort);
+		} else {
+			logger.info("Input: "+optInput);
+		}
 		logger.info("Output: "+optOutput);
 		logger.info("Config: "+StringUtils.join(configFileNames, ", "));
 
 		logger.info("Language: "+optLanguage);
 		logger.info("Reader: "+optReader);
+		if(optReader == ReaderType.TEI) {
+			logger.info("TEI include: "+StringUtils.join(optTeiInclude, ", "));
+			logger.info("TEI exclude: "+StringUtils.join(optTeiExclude, ", "));
+		}
+		if(optReader == ReaderType.Text && optChunkSize > 0) {
+			logger.info("Chunk size: "+optChunkSize);
+		}
+		logger.info("Threads: "+optThreads);
+		logger.info("Staged: "+optStaged);
+		logger.info("Watch: "+optWatch);
+		logger.info("Order: "+optOrder);
 		logger.debug("Start Quote: "+optStartQuote);
 		logger.debug("Paragraph Single Line Break: "+optParagraphSingleLineBreak);
 
@@ -194,6 +247,19 @@ public class RunPipeline {
 		logger.debug("Constituency Parsing: "+optConstituencyParserCls);
 		debugIfNotEmpty("Constituency Parsing: ", optConstituencyParserArguments);
 
+		logger.debug("Parser Threads: "+optParserThreads);
+		logger.debug("Parser Batch Size: "+optParserBatchSize);
+
+		logger.debug("Admission Control: "+optAdmissionControl);
+		logger.debug("Document Heap Share: "+optDocumentHeapShare);
+		logger.debug("Low Heap Threshold: "+optLowHeapThreshold);
+		logger.debug("Bytes per Input Byte: "+optBytesPerInputByte);
+
+		logger.debug("Output Compression: "+optOutputCompression);
+		logger.debug("Output Compression Level: "+optOutputCompressionLevel);
+		logger.debug("Output Shard Size: "+optOutputShardSize);
+		logger.debug("Write-Behind Queue Size: "+optWriteBehindQueueSize);
+
 		logger.debug("Semantic Role Labeling: "+optSRL);		
 		logger.debug("Semantic Role Labeling: "+optSRLCls);
 		debugIfNotEmpty("Semantic Role Labeling: ", optSRLArguments);
@@ -210,6 +276,40 @@ public class RunPipeline {
 			logger.debug(text+StringUtils.join(arguments, ", "));
 	}
 
+	/**
+	 * @return the encoding in which the text reader reads the files, or null for the XML
+	 * readers, whose document text differs from the file
+	 */
+	private static Charset getTextEncoding() {
+		return (optReader == ReaderType.Text) ? StandardCharsets.UTF_8 : null;
+	}
+
+	/**
+	 * @return a hash of the reader settings and the descriptions of the analysis engines,
+	 * i.e. of the components and the parameters which determine the annotations
+	 */
+	private static String getConfigFingerprint(AnalysisEngineDescription[]... engineGroups) throws ResourceInitializationException {
+		StringWriter config = new StringWriter();
+		config.write(optReader+"\t"+optLanguage+"\n");
+		if(optReader == ReaderType.TEI) {
+			config.write(StringUtils.join(optTeiInclude, ",")+"\t"+StringUtils.join(optTeiExclude, ",")+"\n");
+		}
+		if(optReader == ReaderType.Text && optChunkSize > 0) {
+			// Annotations across the chunks, like coreference chains, are not found
+			config.write("chunkSize\t"+optChunkSize+"\n");
+		}
+		try {
+			for(AnalysisEngineDescription[] engines : engineGroups) {
+				for(AnalysisEngineDescription engine : engines) {
+					engine.toXML(config);
+				}
+			}
+		} catch (SAXException | IOException e) {
+			throw new ResourceInitializationException(e);
+		}
+		return CompletionJournal.hash(config.toString());
+	}
+
 	public static Class<? extends AnalysisComponent> getClassFromConfig(Configuration config, String key) throws ClassNotFoundException {
 
 		String entry = config.getString(key, "null");
@@ -282,6 +382,54 @@ public class RunPipeline {
 		if(config.containsKey("constituencyParserArguments"))
 			optConstituencyParserArguments = parseParameters(config, "constituencyParserArguments");
 
+		if(config.containsKey("parserThreads"))
+			optParserThreads = config.getInt("parserThreads", 1);
+		if(config.containsKey("parserBatchSize"))
+			optParserBatchSize = config.getInt("parserBatchSize", 50);
+
+		if(config.containsKey("admissionControl"))
+			optAdmissionControl = config.getBoolean("admissionControl", true);
+		if(config.containsKey("documentHeapShare"))
+			optDocumentHeapShare = config.getDouble("documentHeapShare", 0.5);
+		if(config.containsKey("lowHeapThreshold"))
+			optLowHeapThreshold = config.getDouble("lowHeapThreshold", 0.85);
+		if(config.containsKey("bytesPerInputByte"))
+			optBytesPerInputByte = config.getDouble("bytesPerInputByte", 0);
+
+		if(config.containsKey("teiInclude"))
+			optTeiInclude = config.getStringArray("teiInclude");
+		if(config.containsKey("teiExclude"))
+			optTeiExclude = config.getStringArray("teiExclude");
+		if(config.containsKey("chunkSize")) {
+			optChunkSize = config.getInt("chunkSize", 0);
+			if(optChunkSize < 0) {
+				throw new ConfigurationException("chunkSize must not be negative");
+			}
+		}
+
+		if(config.containsKey("outputCompression")) {
+			String compression = config.getString("outputCompression");
+			try {
+				optOutputCompression = CompressionMethod.valueOf(compression.toUpperCase());
+			} catch(IllegalArgumentException e) {
+				throw new ConfigurationException("Unknown outputCompression: "+compression+". Use none, gzip, bzip2 or xz");
+			}
+		}
+		if(config.containsKey("outputCompressionLevel")) {
+			optOutputCompressionLevel = config.getInt("outputCompressionLevel", 1);
+			if(optOutputCompressionLevel < 1 || optOutputCompressionLevel > 9) {
+				throw new ConfigurationException("outputCompressionLevel must be between 1 and 9");
+			}
+		}
+		if(config.containsKey("outputShardSize"))
+			optOutputShardSize = config.getInt("outputShardSize", 0);
+		if(config.containsKey("writeBehindQueueSize")) {
+			optWriteBehindQueueSize = config.getInt("writeBehindQueueSize", 0);
+			if(optWriteBehindQueueSize < 0) {
+				throw new ConfigurationException("writeBehindQueueSize must not be negative");
+			}
+		}
+
 		if(config.containsKey("useNER"))
 			optNER = config.getBoolean("useNER", true);
 		if(config.containsKey("ner"))
@@ -386,7 +534,7 @@ public class RunPipeline {
 		
 		Option reader = OptionBuilder.withArgName("reader")
 				.hasArg()
-				.withDescription("Either text (default) or xml")
+				.withDescription("Either text (default), xml or tei")
 				.create("reader");
 		options.addOption(reader);
 		
@@ -401,6 +549,42 @@ public class RunPipeline {
 		Option writeXmi = OptionBuilder.withDescription("Also write XMI files").create("xmi");
 		options.addOption(writeXmi);
 
+		Option writeColumnar = OptionBuilder.withDescription("Also write the columnar binary format (.dcol files)").create("columnar");
+		options.addOption(writeColumnar);
+
+		Option threads = OptionBuilder.withArgName("n")
+				.hasArg()
+				.withDescription("Number of documents processed in parallel (default: "+optThreads+")")
+				.create("threads");
+		options.addOption(threads);
+
+		Option staged = OptionBuilder
+				.withDescription("Run the reading, tagging, parsing and writing stages in separate threads")
+				.create("staged");
+		options.addOption(staged);
+
+		Option casPool = OptionBuilder.withArgName("n")
+				.hasArg()
+				.withDescription("Number of documents in memory at the same time in the staged mode (default: threads + 4)")
+				.create("casPool");
+		options.addOption(casPool);
+
+		Option server = OptionBuilder.withArgName("port")
+				.hasArg()
+				.withDescription("Keep the models loaded and accept jobs via HTTP on the given local port instead of processing an input path")
+				.create("server");
+		options.addOption(server);
+
+		Option watch = OptionBuilder
+				.withDescription("Keep running and process new files as soon as they are copied into the input folder")
+				.create("watch");
+		options.addOption(watch);
+
+		Option order = OptionBuilder.withArgName("order")
+				.hasArg()
+				.withDescription("Order of the input files: found (default), largest, smallest, oldest or priority:<file> with one file name per line")
+				.create("order");
+		options.addOption(order);
 
 		CommandLineParser argParser = new BasicParser();
 		CommandLine cmd = argParser.parse(options, args);
@@ -417,9 +601,20 @@ public class RunPipeline {
 			
 			return false;
 		}
+		if(cmd.hasOption(server.getOpt())) {
+			try {
+				optServerPort = Integer.parseInt(cmd.getOptionValue(server.getOpt()));
+			} catch (NumberFormatException e) {
+				optServerPort = 0;
+			}
+			if(optServerPort < 1 || optServerPort > 65535) {
+				logger.error("The server parameter must be a valid port number: "+cmd.getOptionValue(server.getOpt()));
+				return false;
+			}
+		}
 		if(cmd.hasOption(input.getOpt())) {
 			optInput = cmd.getOptionValue(input.getOpt());
-		} else {
+		} else if(optServerPort == 0) {
 			logger.error("Input option required");
 			return false;
 		}
@@ -440,9 +635,11 @@ public class RunPipeline {
 				optReader = ReaderType.Text;
 			} else if(readerParam.equals("xml") || readerParam.equals("xmlreader")){
 				optReader = ReaderType.XML;
+			} else if(readerParam.equals("tei") || readerParam.equals("teireader")){
+				optReader = ReaderType.TEI;
 			} else {
 				logger.error("The reader parameter is unknown: "+optReader);
-				logger.error("Valid argument values are: text, xml");
+				logger.error("Valid argument values are: text, xml, tei");
 				return false;
 			}
 		}
@@ -456,6 +653,57 @@ public class RunPipeline {
 		if (cmd.hasOption(writeXmi.getOpt())) {
 			optWriteXmi = true;
 		}
+		if (cmd.hasOption(writeColumnar.getOpt())) {
+			optWriteColumnar = true;
+		}
+		if (cmd.hasOption(threads.getOpt())) {
+			try {
+				optThreads = Integer.parseInt(cmd.getOptionValue(threads.getOpt()));
+			} catch (NumberFormatException e) {
+				optThreads = 0;
+			}
+			if(optThreads < 1) {
+				logger.error("The threads parameter must be a positive number: "+cmd.getOptionValue(threads.getOpt()));
+				return false;
+			}
+		}
+		if (cmd.hasOption(staged.getOpt())) {
+			optStaged = true;
+		}
+		if (cmd.hasOption(watch.getOpt())) {
+			if(optServerPort > 0) {
+				logger.error("The watch and the server parameter cannot be used together");
+				return false;
+			}
+			optWatch = true;
+		}
+		if (cmd.hasOption(casPool.getOpt())) {
+			try {
+				optCasPool = Integer.parseInt(cmd.getOptionValue(casPool.getOpt()));
+			} catch (NumberFormatException e) {
+				optCasPool = 0;
+			}
+			if(optCasPool < 1) {
+				logger.error("The casPool parameter must be a positive number: "+cmd.getOptionValue(casPool.getOpt()));
+				return false;
+			}
+		}
+		if (cmd.hasOption(order.getOpt())) {
+			try {
+				optOrder = DocumentOrder.parse(cmd.getOptionValue(order.getOpt()));
+			} catch (IllegalArgumentException | IOException e) {
+				logger.error("The order parameter is invalid: "+e.getMessage());
+				return false;
+			}
+			if(optWatch && !optOrder.isStreaming()) {
+				logger.error("In the watch mode, the files are processed in the order in which they arrive");
+				return false;
+			}
+			if(optInput != null && DocumentQueue.isTar(new File(optInput)) && !optOrder.isStreaming()) {
+				logger.error("The entries of tar archives can only be processed in the order in which they are found, use a ZIP archive to sort them");
+				return false;
+			}
+		}
 
 
 		return true;
@@ -559,6 +807,18 @@ public class RunPipeline {
 			System.exit(1);
 		}
 
+		if(optChunkSize > 0 && optWriteXmi) {
+			// The XMI file of each chunk would replace the one of the previous chunk
+			logger.warn("Documents are not split into chunks when XMI files are written");
+			optChunkSize = 0;
+		}
+
+		if(optWriteBehindQueueSize > 0 && optServerPort > 0) {
+			// The server returns the output as soon as the document has been processed
+			logger.warn("Outputs are not written behind in server mode");
+			optWriteBehindQueueSize = 0;
+		}
+
 		printConfiguration(configFiles.toArray(new String[0]));
 	
 		
@@ -566,22 +826,32 @@ public class RunPipeline {
 		try {
 			
 			// Read in the input files
-			String defaultFileExtension = (optReader == ReaderType.XML) ? ".xml" : ".txt";
-			
-			GlobalFileStorage.getInstance().readFilePaths(optInput, defaultFileExtension, optOutput, optResume);	
+			String defaultFileExtension = (optReader == ReaderType.Text) ? ".txt" : ".xml";
 			
-			logger.info("Process "+GlobalFileStorage.getInstance().size()+" files");
+			DocumentQueue queue = new DocumentQueue();
+			queue.setOrder(optOrder);
 			
 			CollectionReaderDescription reader;
 			
 			if(optReader == ReaderType.XML) {
 				reader = createReaderDescription(
 						XmlReader.class,
-						XmlReader.PARAM_LANGUAGE, optLanguage);
+						XmlReader.PARAM_LANGUAGE, optLanguage,
+						XmlReader.PARAM_DOCUMENT_QUEUE, queue.getId());
+			} else if(optReader == ReaderType.TEI) {
+				reader = createReaderDescription(
+						TeiReader.class,
+						TeiReader.PARAM_LANGUAGE, optLanguage,
+						TeiReader.PARAM_INCLUDE, optTeiInclude,
+						TeiReader.PARAM_EXCLUDE, optTeiExclude,
+						TeiReader.PARAM_DOCUMENT_QUEUE, queue.getId());
 			} else {
 				reader = createReaderDescription(
 						TextReaderWithInfo.class,						
-						TextReaderWithInfo.PARAM_LANGUAGE, optLanguage);
+						TextReaderWithInfo.PARAM_LANGUAGE, optLanguage,
+						TextReaderWithInfo.PARAM_CHUNK_SIZE, optChunkSize,
+						TextReaderWithInfo.PARAM_PARAGRAPH_PATTERN, (optParagraphSingleLineBreak) ? ParagraphSplitter.SINGLE_LINE_BREAKS_PATTERN : ParagraphSplitter.DOUBLE_LINE_BREAKS_PATTERN,
+						TextReaderWithInfo.PARAM_DOCUMENT_QUEUE, queue.getId());
 			}
 			
 		
@@ -635,12 +905,89 @@ public class RunPipeline {
 			
 			AnalysisEngineDescription coref = createEngineDescription(optCorefCls,
 					optCorefArguments); //StanfordCoreferenceResolver.PARAM_POSTPROCESSING, true
-			
-			
+
+			AnalysisEngineDescription noOp = createEngineDescription(NoOpAnnotator.class);
+
+			AnalysisEngineDescription[] segmentation = new AnalysisEngineDescription[] {
+				paragraph,
+				(optSegmenter) ? seg : noOp, 
+				paragraphSentenceCorrector,
+				frenchQuotesSeg,
+				quotesSeg
+			};
+
+			AnalysisEngineDescription[] tagging = new AnalysisEngineDescription[] {
+				(optPOSTagger) ? posTagger : noOp, 
+				(optLemmatizer) ? lemma : noOp,
+				(optChunker) ? chunker : noOp,
+				(optMorphTagger) ? morph : noOp,
+				(optHyphenation) ? hyphenation : noOp,
+				directSpeech
+			};
+
+			AnalysisEngineDescription[] parsing = new AnalysisEngineDescription[] {
+				(optDependencyParser) ? depParser : noOp,
+				(optConstituencyParser) ? constituencyParser : noOp,
+				(optNER) ? ner : noOp,
+				(optSRL) ? srl : noOp, //Requires DKPro 1.8.0
+				(optCoref) ? coref : noOp
+			};
+
+			// Documents that have been completed with the same analysis engines are skipped by -resume
+			CompletionJournal journal = new CompletionJournal(new File(optOutput), getConfigFingerprint(segmentation, tagging, parsing));
+			if(optResume) {
+				journal.load(".csv"+optOutputCompression.getExtension());
+			}
+
+			if(optParserThreads > 1) {
+				// Parse batches of sentences in parallel, each thread loads its own parser model.
+				// This does not change the annotations, so it is not part of the fingerprint.
+				if(optDependencyParser) {
+					parsing[0] = ParallelParser.createDescription(depParser, optParserThreads, optParserBatchSize);
+				}
+				if(optConstituencyParser) {
+					parsing[1] = ParallelParser.createDescription(constituencyParser, optParserThreads, optParserBatchSize);
+				}
+			}
+
+			// Many documents are appended into each shard instead of one file per document
+			OutputShards shards = null;
+			if(optOutputShardSize > 0) {
+				shards = new OutputShards(new File(optOutput), ".csv"+optOutputCompression.getExtension(), optOutputShardSize * 1024L * 1024L);
+				if(optResume) {
+					journal.setShardedOutputs(OutputShards.readLengths(new File(optOutput)));
+				}
+			}
+
+			// The outputs are written in a thread of their own, while the next documents are analyzed
+			WriteBehindQueue writeBehind = null;
+			if(optWriteBehindQueueSize > 0) {
+				writeBehind = new WriteBehindQueue(optWriteBehindQueueSize);
+			}
+
+			// In the staged pipeline, the documents of the whole CAS pool are in flight and may overtake each other
+			int casPoolSize = (optCasPool > 0) ? optCasPool : optThreads + 4;
+			int documentsInFlight = (optStaged && optServerPort <= 0) ? casPoolSize : 1;
+
 			AnalysisEngineDescription writer = createEngineDescription(
 					DARIAHWriter.class,
 					DARIAHWriter.PARAM_TARGET_LOCATION, optOutput,
-					DARIAHWriter.PARAM_OVERWRITE, true);
+					DARIAHWriter.PARAM_OVERWRITE, true,
+					DARIAHWriter.PARAM_COMPRESSION, optOutputCompression,
+					DARIAHWriter.PARAM_COMPRESSION_LEVEL, optOutputCompressionLevel,
+					DARIAHWriter.PARAM_COMPLETION_JOURNAL, journal.getId(),
+					DARIAHWriter.PARAM_OUTPUT_SHARDS, (shards != null) ? shards.getId() : null,
+					DARIAHWriter.PARAM_WRITE_BEHIND_QUEUE, (writeBehind != null) ? writeBehind.getId() : null,
+					DARIAHWriter.PARAM_DOCUMENTS_IN_FLIGHT, documentsInFlight);
+
+			AnalysisEngineDescription columnarWriter = createEngineDescription(
+					ColumnarWriter.class,
+					ColumnarWriter.PARAM_TARGET_LOCATION, optOutput,
+					ColumnarWriter.PARAM_OVERWRITE, true,
+					ColumnarWriter.PARAM_FILENAME_SUFFIX, ColumnarWriter.FILENAME_SUFFIX,
+					ColumnarWriter.PARAM_COMPRESSION, optOutputCompression,
+					ColumnarWriter.PARAM_COMPRESSION_LEVEL, optOutputCompressionLevel,
+					ColumnarWriter.PARAM_WRITE_BEHIND_QUEUE, (writeBehind != null) ? writeBehind.getId() : null);
 
 			AnalysisEngineDescription annWriter = createEngineDescription(
 					AnnotationWriter.class
@@ -652,42 +999,118 @@ public class RunPipeline {
 					XmiWriter.PARAM_OVERWRITE, true,
 					XmiWriter.PARAM_TYPE_SYSTEM_FILE, new File(optOutput, "typesystem.xml"));
 
-			AnalysisEngineDescription noOp = createEngineDescription(NoOpAnnotator.class);
+			AnalysisEngineDescription[] output = new AnalysisEngineDescription[] {
+				// Before the writer, which records the document as completed
+				optWriteColumnar? columnarWriter : noOp,
+				writer,
+				optWriteXmi? xmiWriter : noOp,
+				optWriteAnn? annWriter : noOp
+			};
+
+			AnalysisEngineDescription[] engines = ObjectArrays.concat(
+					ObjectArrays.concat(segmentation, tagging, AnalysisEngineDescription.class),
+					ObjectArrays.concat(parsing, output, AnalysisEngineDescription.class),
+					AnalysisEngineDescription.class);
+
+			CompletionJournal completed = (optResume) ? journal : null;
+			if(optServerPort > 0) {
+				logger.info("Loading the models for the server (this may take a while)...");
+				// The jobs are small, reading the files once more is cheap compared to the analysis
+				queue.setCompletedTextEncoding(getTextEncoding());
+				// The server keeps running after start() has returned, it closes them when it shuts down
+				PipelineServer server = new PipelineServer(optServerPort, optOutput, ".csv"+optOutputCompression.getExtension(), defaultFileExtension, completed, queue, reader, engines);
+				server.closeOnShutdown(queue);
+				if(writeBehind != null) {
+					server.closeOnShutdown(writeBehind);
+				}
+				if(shards != null) {
+					server.closeOnShutdown(shards);
+				}
+				server.closeOnShutdown(journal);
+				server.start();
+				return;
+			}
+
+			InputFolderWatcher watcher = null;
+			if(optWatch) {
+				// The watcher adds the existing files as well, once they are not modified anymore
+				watcher = new InputFolderWatcher(queue, optInput, defaultFileExtension, completed, getTextEncoding());
+				watcher.start();
+			} else {
+				// The files are listed in the background while the models are loaded and the first documents are processed
+				queue.readFilePaths(optInput, defaultFileExtension, completed);
+			}
 
 			logger.info("Start running the pipeline (this may take a while)...");
 
-			while(!GlobalFileStorage.getInstance().isEmpty()) {
-				try {
-				SimplePipeline.runPipeline(
-						reader,					
-						paragraph,
-						(optSegmenter) ? seg : noOp, 
-						paragraphSentenceCorrector,
-						frenchQuotesSeg,
-						quotesSeg,
-						(optPOSTagger) ? posTagger : noOp, 
-						(optLemmatizer) ? lemma : noOp,
-						(optChunker) ? chunker : noOp,
-						(optMorphTagger) ? morph : noOp,
-						(optHyphenation) ? hyphenation : noOp,
-						directSpeech,
-						(optDependencyParser) ? depParser : noOp,
-						(optConstituencyParser) ? constituencyParser : noOp,
-						(optNER) ? ner : noOp,
-						(optSRL) ? srl : noOp, //Requires DKPro 1.8.0
-						(optCoref) ? coref : noOp,
-						writer,
-						optWriteXmi? xmiWriter : noOp,
-						optWriteAnn? annWriter : noOp
-						);
-				} catch (OutOfMemoryError e) {
-					logger.error("Out of Memory at file: "+GlobalFileStorage.getInstance().getLastPolledFile().getAbsolutePath(), e);
-				} catch (AnalysisEngineProcessException e) {
-					logger.error(MessageFormat.format("Processing failed for file: {0}, Message: {1}, Cause: {2}",
-							GlobalFileStorage.getInstance().getLastPolledFile().getPath(),
-							e.getMessage(),
-							e.getCause() == null? "none" : e.getCause().getMessage()), e);
+			AdmissionController admission = null;
+			if(optAdmissionControl) {
+				double bytesPerInputByte = (optBytesPerInputByte > 0) ? optBytesPerInputByte
+						: AdmissionController.estimateBytesPerInputByte(optDependencyParser, optConstituencyParser, optNER, optSRL, optCoref);
+				admission = new AdmissionController((long) (Runtime.getRuntime().maxMemory() * optDocumentHeapShare),
+						bytesPerInputByte, optLowHeapThreshold);
+				if(optReader == ReaderType.Text) {
+					admission.setChunkSize(optChunkSize);
+				}
+			}
+
+			FailureReport failures = new FailureReport(optOutput);
+			if(writeBehind != null) {
+				writeBehind.setFailureListener(failures::documentFailed);
+			}
+			RunStatistics statistics = new RunStatistics();
+			statistics.writeMetrics(new File(optOutput, RunStatistics.METRICS_FILENAME));
+
+			// The watch mode is stopped with Ctrl+C: the input ends, the documents in progress
+			// are finished and the outputs are written before the JVM exits
+			final CountDownLatch stopped = new CountDownLatch(1);
+			if(watcher != null) {
+				final InputFolderWatcher stoppedWatcher = watcher;
+				Runtime.getRuntime().addShutdownHook(new Thread() {
+					@Override
+					public void run() {
+						logger.info("Stopping, the documents in progress are finished first...");
+						try {
+							stoppedWatcher.close();
+							stopped.await();
+						} catch (IOException e) {
+							logger.error("Error when closing the input folder watcher", e);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				});
+			}
+			try {
+				if(optStaged) {
+					StagedPipeline pipeline = new StagedPipeline(casPoolSize, queue, failures, reader, Arrays.asList(
+							new StageGroup("segmentation", 1, segmentation),
+							new StageGroup("tagging", optThreads, tagging),
+							new StageGroup("parsing", optThreads, parsing),
+							new StageGroup("output", 1, output)));
+					pipeline.setAdmissionController(admission);
+					pipeline.run(statistics);
+				} else {
+					ParallelPipeline pipeline = new ParallelPipeline(optThreads, queue, failures, reader, engines);
+					pipeline.setAdmissionController(admission);
+					pipeline.run(statistics);
+				}
+			} finally {
+				if(writeBehind != null) {
+					// Before the failure report and the journal, which the last outputs write to
+					writeBehind.close();
+				}
+				failures.close();
+				statistics.close();
+				if(watcher != null) {
+					watcher.close();
+				}
+				queue.close();
+				journal.close();
+				if(shards != null) {
+					shards.close();
 				}
+				stopped.countDown();
 			}
 
 			
@@ -697,6 +1120,9 @@ public class RunPipeline {
 
 			logger.info("---- DONE -----");
 			logger.info(MessageFormat.format("All files processed in {0,number,#.##} minutes", duration));
+			statistics.logStageSummary(logger);
+			statistics.logThroughput(logger);
+			statistics.writeSummary(new File(optOutput, RunStatistics.SUMMARY_FILENAME));
 		} catch(ResourceInitializationException e) {
 			logger.fatal("Error when initializing the pipeline." + 
 				(e.getCause() instanceof FileNotFoundException? 
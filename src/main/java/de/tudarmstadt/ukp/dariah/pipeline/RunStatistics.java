@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Counts the processed documents and tokens of a pipeline run and sums up the time
+ * spent in each stage. The counters may be updated concurrently by several workers.
+ * <p>
+ * If a metrics file is set, the times of every stage are written to it for each
+ * document, as tab-separated values. If the JVM cannot measure the CPU time of a
+ * thread, the CPU time is written as <code>_</code> and left out of the summary.
+ * At the end of a run, the totals can be written to a summary file, which is read by
+ * the throughput regression suite.
+ */
+public class RunStatistics {
+
+	public static final String METRICS_FILENAME = "stage-metrics.tsv";
+	public static final String SUMMARY_FILENAME = "run-summary.properties";
+
+	private static final String[] METRICS_HEADER = {"Document", "Stage", "WallMillis", "CpuMillis", "Tokens", "Sentences"};
+
+	private final long startTime = System.nanoTime();
+
+	private final AtomicLong documents = new AtomicLong();
+	private final AtomicLong tokens = new AtomicLong();
+	private final AtomicLong firstDocumentTime = new AtomicLong(-1);
+	private final AtomicLong lastDocumentTime = new AtomicLong(-1);
+	private final AtomicLong lastStartTime = new AtomicLong(-1);
+
+	/** Total wall and CPU time per stage in nanoseconds, in the order of the pipeline */
+	private final Map<String, long[]> stageTimes = new LinkedHashMap<>();
+	private boolean cpuTimeMeasured = true;
+	private PrintWriter metricsOut;
+
+	/**
+	 * Appends the stage times of each processed document to the given file
+	 */
+	public synchronized void writeMetrics(File metricsFile) throws IOException {
+		boolean newFile = !metricsFile.exists();
+		metricsFile.getAbsoluteFile().getParentFile().mkdirs();
+		metricsOut = new PrintWriter(new OutputStreamWriter(new FileOutputStream(metricsFile, true), StandardCharsets.UTF_8));
+		if(newFile) {
+			metricsOut.println(String.join("\t", METRICS_HEADER));
+		}
+	}
+
+	/**
+	 * Called when a document has been read and its processing starts
+	 */
+	public void documentStarted() {
+		lastStartTime.set(System.nanoTime());
+	}
+
+	public void documentProcessed(DocumentTimes times) {
+		long now = System.nanoTime();
+		firstDocumentTime.compareAndSet(-1, now);
+		lastDocumentTime.set(now);
+		documents.incrementAndGet();
+		tokens.addAndGet(times.getTokens());
+
+		synchronized (this) {
+			for(int i=0; i<times.getStageCount(); i++) {
+				long[] total = stageTimes.get(times.getStage(i));
+				if(total == null) {
+					total = new long[2];
+					stageTimes.put(times.getStage(i), total);
+				}
+				total[0] += times.getWallTime(i);
+				if(times.getCpuTime(i) != DocumentTimes.NO_CPU_TIME) {
+					total[1] += times.getCpuTime(i);
+				} else {
+					cpuTimeMeasured = false;
+				}
+
+				if(metricsOut != null) {
+					metricsOut.println(times.getDocument()+"\t"+times.getStage(i)
+							+"\t"+String.format(Locale.ROOT, "%.3f", times.getWallTime(i) / 1e6)
+							+"\t"+formatCpuMillis(times.getCpuTime(i))
+							+"\t"+times.getTokens()
+							+"\t"+times.getSentences());
+				}
+			}
+			if(metricsOut != null) {
+				metricsOut.flush();
+			}
+		}
+	}
+
+	private static String formatCpuMillis(long nanos) {
+		return (nanos == DocumentTimes.NO_CPU_TIME) ? "_" : String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+
+	public long getDocuments() {
+		return documents.get();
+	}
+
+	public long getTokens() {
+		return tokens.get();
+	}
+
+	/**
+	 * @return seconds since this statistics object has been created
+	 */
+	public double getElapsedSeconds() {
+		return (System.nanoTime() - startTime) / 1e9;
+	}
+
+	/**
+	 * @return seconds from the creation of this statistics object until the first
+	 * document has been written, or -1 if no document has been processed yet
+	 */
+	public double getSecondsToFirstDocument() {
+		long time = firstDocumentTime.get();
+		return (time < 0) ? -1 : (time - startTime) / 1e9;
+	}
+
+	/**
+	 * @return seconds from the start of the last document until the last document has
+	 * been written, i.e. the time at the end of the run in which not all threads are busy,
+	 * or -1 if no document has been processed yet
+	 */
+	public double getTailSeconds() {
+		long start = lastStartTime.get();
+		long end = lastDocumentTime.get();
+		return (start < 0 || end < 0) ? -1 : Math.max(end - start, 0) / 1e9;
+	}
+
+	/**
+	 * @return the sum of the peak usage of all heap memory pools in bytes
+	 */
+	public static long getPeakHeapUsage() {
+		long peak = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	/**
+	 * Writes the number of documents and tokens, the throughput, the time to the first
+	 * document, the tail time and the peak heap usage of the run as properties file
+	 */
+	public void writeSummary(File summaryFile) throws IOException {
+		double seconds = Math.max(getElapsedSeconds(), 1e-3);
+		Properties summary = new Properties();
+		summary.setProperty("documents", Long.toString(getDocuments()));
+		summary.setProperty("tokens", Long.toString(getTokens()));
+		summary.setProperty("seconds", String.format(Locale.ROOT, "%.3f", seconds));
+		summary.setProperty("docsPerSecond", String.format(Locale.ROOT, "%.4f", getDocuments() / seconds));
+		summary.setProperty("tokensPerSecond", String.format(Locale.ROOT, "%.1f", getTokens() / seconds));
+		summary.setProperty("secondsToFirstDocument", String.format(Locale.ROOT, "%.3f", getSecondsToFirstDocument()));
+		summary.setProperty("tailSeconds", String.format(Locale.ROOT, "%.3f", getTailSeconds()));
+		summary.setProperty("peakHeapBytes", Long.toString(getPeakHeapUsage()));
+
+		summaryFile.getAbsoluteFile().getParentFile().mkdirs();
+		try(OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(summaryFile), StandardCharsets.UTF_8)) {
+			summary.store(out, "Summary of the pipeline run");
+		}
+	}
+
+	public void logThroughput(Logger logger) {
+		double seconds = Math.max(getElapsedSeconds(), 1e-3);
+		logger.info(MessageFormat.format("Processed {0} documents and {1} tokens in {2,number,#.##} minutes: {3,number,#.###} docs/sec, {4,number,#.#} tokens/sec",
+				getDocuments(),
+				getTokens(),
+				seconds / 60.0,
+				getDocuments() / seconds,
+				getTokens() / seconds));
+		if(getDocuments() > 0) {
+			logger.info(MessageFormat.format("First document written after {0,number,#.##} seconds, tail after the start of the last document: {1,number,#.##} seconds",
+					getSecondsToFirstDocument(),
+					getTailSeconds()));
+		}
+	}
+
+	/**
+	 * Logs a table with the time spent in each stage, its share of the total time and
+	 * the number of tokens per second the stage has processed.
+	 */
+	public synchronized void logStageSummary(Logger logger) {
+		if(stageTimes.isEmpty()) {
+			return;
+		}
+		long totalWallTime = 0;
+		int nameWidth = "Stage".length();
+		for(Map.Entry<String, long[]> stage : stageTimes.entrySet()) {
+			totalWallTime += stage.getValue()[0];
+			nameWidth = Math.max(nameWidth, stage.getKey().length());
+		}
+
+		String format = "%-"+nameWidth+"s %12s %12s %7s %12s";
+		logger.info(String.format(Locale.ROOT, format, "Stage", "Wall (s)", "CPU (s)", "Share", "Tokens/sec"));
+		for(Map.Entry<String, long[]> stage : stageTimes.entrySet()) {
+			double wallSeconds = stage.getValue()[0] / 1e9;
+			logger.info(String.format(Locale.ROOT, format,
+					stage.getKey(),
+					String.format(Locale.ROOT, "%.2f", wallSeconds),
+					cpuTimeMeasured ? String.format(Locale.ROOT, "%.2f", stage.getValue()[1] / 1e9) : "_",
+					String.format(Locale.ROOT, "%.1f%%", (totalWallTime > 0) ? 100.0 * stage.getValue()[0] / totalWallTime : 0),
+					String.format(Locale.ROOT, "%.1f", getTokens() / Math.max(wallSeconds, 1e-6))));
+		}
+	}
+
+	public synchronized void close() {
+		if(metricsOut != null) {
+			metricsOut.close();
+			metricsOut = null;
+		}
+	}
+}
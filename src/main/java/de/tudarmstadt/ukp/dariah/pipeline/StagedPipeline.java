@@ -0,0 +1,430 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import static java.util.Arrays.asList;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.collection.CollectionReaderDescription;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.MetaDataObject;
+import org.apache.uima.util.CasCreationUtils;
+
+import de.tudarmstadt.ukp.dariah.IO.DocumentQueue;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+
+/**
+ * Runs the pipeline as a sequence of stage groups, each in its own thread(s).
+ * The groups hand over the CASes via bounded queues, so e.g. the parsers never
+ * wait for reading or writing files. The number of CASes in flight is limited by
+ * a fixed-size CAS pool, which keeps the memory consumption bounded.
+ * <p>
+ * The first group runs in the reader thread. At the end of the run, the average and
+ * maximal depths of the queues are reported: the queue in front of the bottleneck
+ * stage is the one that is full most of the time.
+ */
+public class StagedPipeline {
+
+	private static Logger logger = LogManager.getLogger(StagedPipeline.class);
+
+	private static final long SAMPLE_INTERVAL_MS = 500;
+
+	/**
+	 * A group of engines that are run together in the same thread(s).
+	 */
+	public static class StageGroup {
+		final String name;
+		final int threads;
+		final AnalysisEngineDescription[] engines;
+
+		public StageGroup(String name, int threads, AnalysisEngineDescription... engines) {
+			this.name = name;
+			this.threads = threads;
+			this.engines = engines;
+		}
+	}
+
+	/**
+	 * Wraps the CASes in the queues, so that the end of the input can be signalled.
+	 */
+	private static final class Envelope {
+		final CAS cas;
+		final DocumentTimes times;
+		/** Bytes reserved by the admission controller, or -1 */
+		final long reservedBytes;
+
+		Envelope(CAS cas, DocumentTimes times, long reservedBytes) {
+			this.cas = cas;
+			this.times = times;
+			this.reservedBytes = reservedBytes;
+		}
+	}
+
+	private static final Envelope END = new Envelope(null, null, -1);
+
+	private final int casPoolSize;
+	private final DocumentQueue queue;
+	private final FailureReport failures;
+	private final CollectionReaderDescription readerDescription;
+	private final List<StageGroup> groups;
+	private AdmissionController admission;
+
+	private BlockingQueue<CAS> casPool;
+	private List<BlockingQueue<Envelope>> queues;
+	private long[] depthSums;
+	private int[] depthMax;
+	private int samples;
+	/** Set when a thread has failed, so the reader stops reading */
+	private volatile boolean stopped;
+	private volatile Thread readerThread;
+
+	public StagedPipeline(int casPoolSize, DocumentQueue queue, FailureReport failures, CollectionReaderDescription readerDescription, List<StageGroup> groups) {
+		if(groups.isEmpty()) {
+			throw new IllegalArgumentException("At least one stage group is required");
+		}
+		this.casPoolSize = casPoolSize;
+		this.queue = queue;
+		this.failures = failures;
+		this.readerDescription = readerDescription;
+		this.groups = groups;
+	}
+
+	/**
+	 * Lets the reader wait before it reads a document, until the estimated memory
+	 * need of the document fits next to the documents in the later stages
+	 */
+	public void setAdmissionController(AdmissionController admission) {
+		this.admission = admission;
+	}
+
+	public void run(final RunStatistics statistics) throws UIMAException, IOException {
+		createCasPool();
+
+		queues = new ArrayList<>();
+		for(int i=0; i<groups.size(); i++) {
+			// Queue i feeds group i; the first group is fed by the reader directly. There is
+			// room for all CASes and the end of the input, so the end can always be added.
+			queues.add(new ArrayBlockingQueue<Envelope>(casPoolSize + 1));
+		}
+		depthSums = new long[groups.size()];
+		depthMax = new int[groups.size()];
+		samples = 0;
+		stopped = false;
+		readerThread = null;
+
+		int threadCount = 1;
+		for(int i=1; i<groups.size(); i++) {
+			threadCount += groups.get(i).threads;
+		}
+
+		logger.info(MessageFormat.format("Starting {0} stage groups with {1} threads and {2} CASes", groups.size(), threadCount, casPoolSize));
+
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+		try {
+			ExecutorCompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+
+			completion.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					Thread.currentThread().setName("stage-"+groups.get(0).name);
+					readerThread = Thread.currentThread();
+					runReaderGroup(groups.get(0), statistics);
+					return null;
+				}
+			});
+			for(int i=1; i<groups.size(); i++) {
+				final int groupIndex = i;
+				final AtomicInteger running = new AtomicInteger(groups.get(i).threads);
+				for(int t=0; t<groups.get(i).threads; t++) {
+					completion.submit(new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							Thread.currentThread().setName("stage-"+groups.get(groupIndex).name);
+							runGroup(groupIndex, running, statistics);
+							return null;
+						}
+					});
+				}
+			}
+
+			sampler.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					sampleQueueDepths();
+				}
+			}, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+			Future<Void> failed = null;
+			for(int i=0; i<threadCount; i++) {
+				Future<Void> result = null;
+				try {
+					result = completion.take();
+					result.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the pipeline threads", e);
+				} catch (ExecutionException e) {
+					if(failed == null) {
+						// The reader stops, and the other threads end once the end of the input reaches them
+						failed = result;
+						stopped = true;
+						// Wakes up the reader if it waits for new files
+						queue.endInput();
+						if(admission != null && readerThread != null) {
+							// The reader may wait for memory that the failed thread never releases
+							readerThread.interrupt();
+						}
+					}
+				}
+			}
+			if(failed != null) {
+				ParallelPipeline.waitFor(failed);
+			}
+		} finally {
+			sampler.shutdownNow();
+			executor.shutdownNow();
+		}
+
+		logQueueDepths();
+	}
+
+	/**
+	 * Creates all CASes of the pool with one shared type system, so that the engines
+	 * do not have to re-initialize when they get a CAS from a different pool slot.
+	 */
+	private void createCasPool() throws ResourceInitializationException {
+		List<AnalysisEngineDescription> engines = new ArrayList<>();
+		for(StageGroup group : groups) {
+			engines.addAll(asList(group.engines));
+		}
+		List<MetaDataObject> metaData = asList(readerDescription, createEngineDescription(engines.toArray(new AnalysisEngineDescription[0])));
+
+		casPool = new ArrayBlockingQueue<>(casPoolSize);
+		CAS first = CasCreationUtils.createCas(metaData);
+		casPool.add(first);
+		for(int i=1; i<casPoolSize; i++) {
+			casPool.add(CasCreationUtils.createCas(metaData, first.getTypeSystem(), null));
+		}
+	}
+
+	private void runReaderGroup(StageGroup group, RunStatistics statistics) throws Exception {
+		BlockingQueue<Envelope> out = (groups.size() > 1) ? queues.get(1) : null;
+		CollectionReader reader = null;
+		String readerName = PipelineWorker.getReaderName(readerDescription);
+		EngineChain engines = null;
+		try {
+			reader = createReader(readerDescription);
+			engines = new EngineChain(group.engines);
+			reader.typeSystemInit(casPool.peek().getTypeSystem());
+
+			while(!stopped && reader.hasNext()) {
+				CAS cas = takeCas();
+				if(cas == null) {
+					break;
+				}
+				DocumentTimes times = new DocumentTimes();
+				long reservedBytes = -1;
+				try {
+					if(admission != null) {
+						// The reader has taken the file in hasNext(), so it can be admitted before it is read
+						reservedBytes = admission.admit(queue.getLastPolledFile());
+					}
+					long wallStart = System.nanoTime();
+					long cpuStart = DocumentTimes.currentThreadCpuTime();
+					reader.getNext(cas);
+					times.addReader(readerName, reader, System.nanoTime() - wallStart, DocumentTimes.cpuTimeSince(cpuStart));
+					times.setDocument(queue.getLastPolledFile().getPath());
+					statistics.documentStarted();
+
+					engines.process(cas, times);
+				} catch (AnalysisEngineProcessException | CollectionException | OutOfMemoryError e) {
+					documentFailed(queue.getLastPolledFile(), e);
+					release(cas, reservedBytes);
+					continue;
+				}
+				forward(new Envelope(cas, times, reservedBytes), out, statistics);
+			}
+			engines.collectionProcessComplete();
+		} finally {
+			// Also after a failure, so the following groups end on their own
+			if(out != null) {
+				out.offer(END);
+			}
+			if(engines != null) {
+				engines.destroy();
+			}
+			if(reader != null) {
+				reader.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Takes a CAS from the pool, waits while all CASes are in use
+	 *
+	 * @return the CAS, or null if the run has been stopped
+	 */
+	private CAS takeCas() throws InterruptedException {
+		while(!stopped) {
+			CAS cas = casPool.poll(SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+			if(cas != null) {
+				return cas;
+			}
+		}
+		return null;
+	}
+
+	private void runGroup(int groupIndex, AtomicInteger running, RunStatistics statistics) throws Exception {
+		StageGroup group = groups.get(groupIndex);
+		BlockingQueue<Envelope> in = queues.get(groupIndex);
+		BlockingQueue<Envelope> out = (groupIndex+1 < groups.size()) ? queues.get(groupIndex+1) : null;
+
+		boolean ended = false;
+		EngineChain engines = null;
+		try {
+			engines = new EngineChain(group.engines);
+			while(true) {
+				Envelope envelope = in.take();
+				if(envelope == END) {
+					ended = true;
+					break;
+				}
+
+				CAS cas = envelope.cas;
+				try {
+					engines.process(cas, envelope.times);
+				} catch (AnalysisEngineProcessException | OutOfMemoryError e) {
+					documentFailed(getDocumentFile(cas), e);
+					release(cas, envelope.reservedBytes);
+					continue;
+				}
+				forward(envelope, out, statistics);
+			}
+			engines.collectionProcessComplete();
+		} finally {
+			// Also if the thread fails, so the following groups end on their own
+			if(running.decrementAndGet() > 0) {
+				if(ended) {
+					// Let the other threads of this group know as well
+					in.offer(END);
+				}
+			} else if(out != null) {
+				out.offer(END);
+			}
+			if(engines != null) {
+				engines.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Hands the CAS to the next group, or returns it to the pool if this was the last group.
+	 */
+	private void forward(Envelope envelope, BlockingQueue<Envelope> out, RunStatistics statistics) throws InterruptedException {
+		if(out != null) {
+			out.put(envelope);
+		} else {
+			envelope.times.count(envelope.cas);
+			statistics.documentProcessed(envelope.times);
+			release(envelope.cas, envelope.reservedBytes);
+		}
+	}
+
+	private void release(CAS cas, long reservedBytes) {
+		cas.reset();
+		if(reservedBytes >= 0) {
+			admission.release(reservedBytes);
+		}
+		casPool.add(cas);
+	}
+
+	private void documentFailed(File file, Throwable e) {
+		logger.error(MessageFormat.format("Processing failed for file: {0}, Message: {1}, Cause: {2}",
+				(file != null) ? file.getPath() : "unknown",
+				e.getMessage(),
+				e.getCause() == null? "none" : e.getCause().getMessage()), e);
+		failures.documentFailed(file, e);
+	}
+
+	private static File getDocumentFile(CAS cas) {
+		try {
+			DocumentMetaData metaData = DocumentMetaData.get(cas.getJCas());
+			return new File(metaData.getDocumentId());
+		} catch (CASException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private synchronized void sampleQueueDepths() {
+		for(int i=1; i<queues.size(); i++) {
+			int depth = queues.get(i).size();
+			depthSums[i] += depth;
+			depthMax[i] = Math.max(depthMax[i], depth);
+		}
+		samples++;
+		if(logger.isDebugEnabled()) {
+			StringBuilder sb = new StringBuilder("Queue depths:");
+			for(int i=1; i<queues.size(); i++) {
+				sb.append(" ").append(groups.get(i).name).append("=").append(queues.get(i).size());
+			}
+			sb.append(", free CASes=").append(casPool.size());
+			logger.debug(sb.toString());
+		}
+	}
+
+	private synchronized void logQueueDepths() {
+		if(samples == 0) {
+			return;
+		}
+		for(int i=1; i<queues.size(); i++) {
+			logger.info(MessageFormat.format("Queue in front of stage group {0}: average depth {1,number,#.##}, max depth {2} of {3} CASes",
+					groups.get(i).name,
+					depthSums[i] / (double) samples,
+					depthMax[i],
+					casPoolSize));
+		}
+	}
+}
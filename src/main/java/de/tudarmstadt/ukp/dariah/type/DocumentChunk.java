@@ -0,0 +1,164 @@
+
+
+/* First created by JCasGen Sun Oct 18 10:14:21 CEST 2026 */
+package de.tudarmstadt.ukp.dariah.type;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+import org.apache.uima.jcas.tcas.Annotation;
+
+
+/** Marks the text of a CAS as one chunk of a larger document, which is processed in several CASes
+ * Updated by JCasGen Sun Oct 18 10:14:21 CEST 2026
+ * XML source: src/main/resources/desc/type/DocumentChunkDescriptor.xml
+ * @generated */
+public class DocumentChunk extends Annotation {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(DocumentChunk.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated
+   * @return index of the type  
+   */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected DocumentChunk() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated
+   * @param addr low level Feature Structure reference
+   * @param type the type of this Feature Structure 
+   */
+  public DocumentChunk(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated
+   * @param jcas JCas to which this Feature Structure belongs 
+   */
+  public DocumentChunk(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** @generated
+   * @param jcas JCas to which this Feature Structure belongs
+   * @param begin offset to the begin spot in the SofA
+   * @param end offset to the end spot in the SofA 
+  */  
+  public DocumentChunk(JCas jcas, int begin, int end) {
+    super(jcas);
+    setBegin(begin);
+    setEnd(end);
+    readObject();
+  }   
+
+  /** 
+   * <!-- begin-user-doc -->
+   * Write your own initialization here
+   * <!-- end-user-doc -->
+   *
+   * @generated modifiable 
+   */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: index
+
+  /** getter for index - gets The position of the chunk in the document, starting with 0
+   * @generated
+   * @return value of the feature 
+   */
+  public int getIndex() {
+    if (DocumentChunk_Type.featOkTst && ((DocumentChunk_Type)jcasType).casFeat_index == null)
+      jcasType.jcas.throwFeatMissing("index", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((DocumentChunk_Type)jcasType).casFeatCode_index);}
+    
+  /** setter for index - sets The position of the chunk in the document, starting with 0 
+   * @generated
+   * @param v value to set into the feature 
+   */
+  public void setIndex(int v) {
+    if (DocumentChunk_Type.featOkTst && ((DocumentChunk_Type)jcasType).casFeat_index == null)
+      jcasType.jcas.throwFeatMissing("index", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    jcasType.ll_cas.ll_setIntValue(addr, ((DocumentChunk_Type)jcasType).casFeatCode_index, v);}    
+    
+  //*--------------*
+  //* Feature: count
+
+  /** getter for count - gets The number of chunks of the document
+   * @generated
+   * @return value of the feature 
+   */
+  public int getCount() {
+    if (DocumentChunk_Type.featOkTst && ((DocumentChunk_Type)jcasType).casFeat_count == null)
+      jcasType.jcas.throwFeatMissing("count", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((DocumentChunk_Type)jcasType).casFeatCode_count);}
+    
+  /** setter for count - sets The number of chunks of the document 
+   * @generated
+   * @param v value to set into the feature 
+   */
+  public void setCount(int v) {
+    if (DocumentChunk_Type.featOkTst && ((DocumentChunk_Type)jcasType).casFeat_count == null)
+      jcasType.jcas.throwFeatMissing("count", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    jcasType.ll_cas.ll_setIntValue(addr, ((DocumentChunk_Type)jcasType).casFeatCode_count, v);}    
+    
+  //*--------------*
+  //* Feature: offset
+
+  /** getter for offset - gets The position of the text of the chunk in the text of the document
+   * @generated
+   * @return value of the feature 
+   */
+  public int getOffset() {
+    if (DocumentChunk_Type.featOkTst && ((DocumentChunk_Type)jcasType).casFeat_offset == null)
+      jcasType.jcas.throwFeatMissing("offset", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((DocumentChunk_Type)jcasType).casFeatCode_offset);}
+    
+  /** setter for offset - sets The position of the text of the chunk in the text of the document 
+   * @generated
+   * @param v value to set into the feature 
+   */
+  public void setOffset(int v) {
+    if (DocumentChunk_Type.featOkTst && ((DocumentChunk_Type)jcasType).casFeat_offset == null)
+      jcasType.jcas.throwFeatMissing("offset", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    jcasType.ll_cas.ll_setIntValue(addr, ((DocumentChunk_Type)jcasType).casFeatCode_offset, v);}    
+    
+  //*--------------*
+  //* Feature: documentHash
+
+  /** getter for documentHash - gets The hash of the text of the whole document
+   * @generated
+   * @return value of the feature 
+   */
+  public String getDocumentHash() {
+    if (DocumentChunk_Type.featOkTst && ((DocumentChunk_Type)jcasType).casFeat_documentHash == null)
+      jcasType.jcas.throwFeatMissing("documentHash", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    return jcasType.ll_cas.ll_getStringValue(addr, ((DocumentChunk_Type)jcasType).casFeatCode_documentHash);}
+    
+  /** setter for documentHash - sets The hash of the text of the whole document 
+   * @generated
+   * @param v value to set into the feature 
+   */
+  public void setDocumentHash(String v) {
+    if (DocumentChunk_Type.featOkTst && ((DocumentChunk_Type)jcasType).casFeat_documentHash == null)
+      jcasType.jcas.throwFeatMissing("documentHash", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    jcasType.ll_cas.ll_setStringValue(addr, ((DocumentChunk_Type)jcasType).casFeatCode_documentHash, v);}    
+  }
+
+    
\ No newline at end of file
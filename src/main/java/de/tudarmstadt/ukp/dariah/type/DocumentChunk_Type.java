@@ -0,0 +1,177 @@
+
+/* First created by JCasGen Sun Oct 18 10:14:21 CEST 2026 */
+package de.tudarmstadt.ukp.dariah.type;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.jcas.tcas.Annotation_Type;
+
+/** Marks the text of a CAS as one chunk of a larger document, which is processed in several CASes
+ * Updated by JCasGen Sun Oct 18 10:14:21 CEST 2026
+ * @generated */
+public class DocumentChunk_Type extends Annotation_Type {
+  /** @generated 
+   * @return the generator for this type
+   */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (DocumentChunk_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = DocumentChunk_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new DocumentChunk(addr, DocumentChunk_Type.this);
+  			   DocumentChunk_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new DocumentChunk(addr, DocumentChunk_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = DocumentChunk.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+ 
+  /** @generated */
+  final Feature casFeat_index;
+  /** @generated */
+  final int     casFeatCode_index;
+  /** @generated
+   * @param addr low level Feature Structure reference
+   * @return the feature value 
+   */ 
+  public int getIndex(int addr) {
+        if (featOkTst && casFeat_index == null)
+      jcas.throwFeatMissing("index", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_index);
+  }
+  /** @generated
+   * @param addr low level Feature Structure reference
+   * @param v value to set 
+   */    
+  public void setIndex(int addr, int v) {
+        if (featOkTst && casFeat_index == null)
+      jcas.throwFeatMissing("index", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    ll_cas.ll_setIntValue(addr, casFeatCode_index, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_count;
+  /** @generated */
+  final int     casFeatCode_count;
+  /** @generated
+   * @param addr low level Feature Structure reference
+   * @return the feature value 
+   */ 
+  public int getCount(int addr) {
+        if (featOkTst && casFeat_count == null)
+      jcas.throwFeatMissing("count", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_count);
+  }
+  /** @generated
+   * @param addr low level Feature Structure reference
+   * @param v value to set 
+   */    
+  public void setCount(int addr, int v) {
+        if (featOkTst && casFeat_count == null)
+      jcas.throwFeatMissing("count", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    ll_cas.ll_setIntValue(addr, casFeatCode_count, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_offset;
+  /** @generated */
+  final int     casFeatCode_offset;
+  /** @generated
+   * @param addr low level Feature Structure reference
+   * @return the feature value 
+   */ 
+  public int getOffset(int addr) {
+        if (featOkTst && casFeat_offset == null)
+      jcas.throwFeatMissing("offset", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_offset);
+  }
+  /** @generated
+   * @param addr low level Feature Structure reference
+   * @param v value to set 
+   */    
+  public void setOffset(int addr, int v) {
+        if (featOkTst && casFeat_offset == null)
+      jcas.throwFeatMissing("offset", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    ll_cas.ll_setIntValue(addr, casFeatCode_offset, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_documentHash;
+  /** @generated */
+  final int     casFeatCode_documentHash;
+  /** @generated
+   * @param addr low level Feature Structure reference
+   * @return the feature value 
+   */ 
+  public String getDocumentHash(int addr) {
+        if (featOkTst && casFeat_documentHash == null)
+      jcas.throwFeatMissing("documentHash", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    return ll_cas.ll_getStringValue(addr, casFeatCode_documentHash);
+  }
+  /** @generated
+   * @param addr low level Feature Structure reference
+   * @param v value to set 
+   */    
+  public void setDocumentHash(int addr, String v) {
+        if (featOkTst && casFeat_documentHash == null)
+      jcas.throwFeatMissing("documentHash", "de.tudarmstadt.ukp.dariah.type.DocumentChunk");
+    ll_cas.ll_setStringValue(addr, casFeatCode_documentHash, v);}
+    
+  
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	 * @generated
+	 * @param jcas JCas
+	 * @param casType Type 
+	 */
+  public DocumentChunk_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_index = jcas.getRequiredFeatureDE(casType, "index", "uima.cas.Integer", featOkTst);
+    casFeatCode_index  = (null == casFeat_index) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_index).getCode();
+
+ 
+    casFeat_count = jcas.getRequiredFeatureDE(casType, "count", "uima.cas.Integer", featOkTst);
+    casFeatCode_count  = (null == casFeat_count) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_count).getCode();
+
+ 
+    casFeat_offset = jcas.getRequiredFeatureDE(casType, "offset", "uima.cas.Integer", featOkTst);
+    casFeatCode_offset  = (null == casFeat_offset) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_offset).getCode();
+
+ 
+    casFeat_documentHash = jcas.getRequiredFeatureDE(casType, "documentHash", "uima.cas.String", featOkTst);
+    casFeatCode_documentHash  = (null == casFeat_documentHash) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_documentHash).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
@@ -0,0 +1,134 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static java.util.Arrays.asList;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReaderDescription;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.uima.fit.pipeline.SimplePipeline;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveEntryTest {
+
+	/** Two entries with the same name in different folders */
+	private static final String[][] ENTRIES = {
+		{"letters/1880/brief.txt", "Liebe Effi!"},
+		{"letters/1881/brief.txt", "Lieber Innstetten!"},
+		{"readme.md", "not a document"}
+	};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test(timeout = 60000)
+	public void testZip() throws Exception {
+		File archive = folder.newFile("corpus.zip");
+		try(ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+			for(String[] entry : ENTRIES) {
+				zip.putNextEntry(new ZipEntry(entry[0]));
+				zip.write(entry[1].getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		testArchive(archive);
+	}
+
+	@Test(timeout = 60000)
+	public void testTar() throws Exception {
+		File archive = folder.newFile("corpus.tar");
+		try(TarArchiveOutputStream tar = new TarArchiveOutputStream(new FileOutputStream(archive))) {
+			for(String[] entry : ENTRIES) {
+				byte[] content = entry[1].getBytes(StandardCharsets.UTF_8);
+				TarArchiveEntry tarEntry = new TarArchiveEntry(entry[0]);
+				tarEntry.setSize(content.length);
+				tar.putArchiveEntry(tarEntry);
+				tar.write(content);
+				tar.closeArchiveEntry();
+			}
+		}
+		testArchive(archive);
+	}
+
+	/**
+	 * Entries with the same name in different folders get outputs and journal lines of
+	 * their own, and are both skipped by -resume
+	 */
+	private void testArchive(File archive) throws Exception {
+		File output = folder.newFolder("output");
+
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		DocumentQueue queue = new DocumentQueue();
+		try {
+			queue.readFilePaths(archive.getPath(), ".txt", null);
+			assertEquals(asList("letters/1880/brief.txt", "letters/1881/brief.txt"), listEntries(queue));
+		} finally {
+			queue.close();
+		}
+
+		queue = new DocumentQueue();
+		try {
+			queue.readFilePaths(archive.getPath(), ".txt", null);
+			SimplePipeline.runPipeline(
+					createReaderDescription(TextReaderWithInfo.class,
+							TextReaderWithInfo.PARAM_DOCUMENT_QUEUE, queue.getId()),
+					createEngineDescription(DARIAHWriter.class,
+							DARIAHWriter.PARAM_TARGET_LOCATION, output.getPath(),
+							DARIAHWriter.PARAM_OVERWRITE, true,
+							DARIAHWriter.PARAM_COMPLETION_JOURNAL, journal.getId()));
+		} finally {
+			queue.close();
+			journal.close();
+		}
+		assertTrue(new File(output, "letters/1880/brief.txt.csv").isFile());
+		assertTrue(new File(output, "letters/1881/brief.txt.csv").isFile());
+
+		List<String> keys = new ArrayList<>();
+		for(String line : Files.readAllLines(new File(output, CompletionJournal.FILENAME).toPath(), StandardCharsets.UTF_8)) {
+			keys.add(line.split("\t")[0]);
+		}
+		Collections.sort(keys);
+		assertEquals(asList("letters/1880/brief.txt", "letters/1881/brief.txt"), keys);
+
+		journal = new CompletionJournal(output, "config");
+		queue = new DocumentQueue();
+		try {
+			journal.load(".csv");
+			queue.readFilePaths(archive.getPath(), ".txt", journal);
+			assertEquals(Collections.emptyList(), listEntries(queue));
+		} finally {
+			queue.close();
+			journal.close();
+		}
+	}
+
+	/**
+	 * Polls the files until the input ends
+	 *
+	 * @return the names of the entries, sorted
+	 */
+	private static List<String> listEntries(DocumentQueue queue) throws InterruptedException {
+		List<String> names = new ArrayList<>();
+		for(File file = queue.poll(); file != null; file = queue.poll()) {
+			ArchiveEntry entry = (ArchiveEntry) file;
+			names.add(entry.getEntryName());
+			assertEquals("brief.txt", entry.getName());
+		}
+		Collections.sort(names);
+		return names;
+	}
+}
@@ -0,0 +1,140 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter.Counts;
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter.Fields;
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter.RowHandler;
+import de.tudarmstadt.ukp.dariah.type.DocumentChunk;
+
+/**
+ * Checks how the ids and positions of the rows of the chunks are shifted when they are joined
+ */
+public class ChunkedDocumentTest {
+
+	/** The columns without semantic arguments, see DARIAHWriter#getHeader */
+	private static final int COLUMNS = 21;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testJoin() throws Exception {
+		JCas jcas = JCasFactory.createJCas();
+		ChunkedDocument document = new ChunkedDocument("doc.txt", 2, "hash");
+
+		// The chunks may arrive in any order
+		ChunkedDocument.PartWriter second = document.createPart(createChunk(jcas, 1, 100), folder.getRoot());
+		second.header(new String[COLUMNS + 1]);
+		second.row(row(0, 0, 0, 2, 6, "-1", "B-0,I-1", "A0"));
+		second.row(row(0, 0, 1, 7, 9, "0", "I-0", "_"));
+		second.row(row(0, 1, 2, 10, 11, "_", "_", "_"));
+		second.close(new Counts(1, 2, 3, 2));
+		assertFalse(document.isComplete());
+
+		ChunkedDocument.PartWriter first = document.createPart(createChunk(jcas, 0, 0), folder.getRoot());
+		first.header(new String[COLUMNS]);
+		first.row(row(0, 0, 0, 4, 8, "-1", "B-0", null));
+		first.row(row(0, 0, 1, 9, 14, "0", "B-1,B-2", null));
+		first.row(row(1, 1, 2, 20, 23, "-1", "I-2", null));
+		first.close(new Counts(2, 2, 3, 3));
+		assertTrue(document.isComplete());
+		assertEquals(1, document.getSemanticArguments());
+
+		List<List<String>> rows = new ArrayList<>();
+		document.join(new RowHandler() {
+			@Override
+			public void header(String[] columns) {
+			}
+
+			@Override
+			public void row(Fields fields) {
+				rows.add(values(fields));
+			}
+		});
+
+		assertEquals(6, rows.size());
+		assertEquals(values(row(0, 0, 0, 4, 8, "-1", "B-0", "_")), rows.get(0));
+		assertEquals(values(row(0, 0, 1, 9, 14, "0", "B-1,B-2", "_")), rows.get(1));
+		assertEquals(values(row(1, 1, 2, 20, 23, "-1", "I-2", "_")), rows.get(2));
+		// The root stays -1, the other heads are shifted like the token ids
+		assertEquals(values(row(2, 2, 3, 102, 106, "-1", "B-3,I-4", "A0")), rows.get(3));
+		assertEquals(values(row(2, 2, 4, 107, 109, "3", "I-3", "_")), rows.get(4));
+		assertEquals(values(row(2, 3, 5, 110, 111, "_", "_", "_")), rows.get(5));
+
+		File[] parts = folder.getRoot().listFiles();
+		assertEquals(2, parts.length);
+		document.delete();
+		assertEquals(0, folder.getRoot().listFiles().length);
+	}
+
+	@Test
+	public void testContains() throws Exception {
+		JCas jcas = JCasFactory.createJCas();
+		ChunkedDocument document = new ChunkedDocument("doc.txt", 2, "hash");
+		DocumentChunk chunk = createChunk(jcas, 0, 0);
+		assertFalse(document.contains(chunk));
+		document.createPart(chunk, folder.getRoot()).abort();
+		assertFalse(document.contains(chunk));
+		document.createPart(chunk, folder.getRoot()).close(new Counts(0, 0, 0, 0));
+		assertTrue(document.contains(chunk));
+
+		// A chunk of another version of the document
+		DocumentChunk changed = createChunk(jcas, 1, 10);
+		changed.setDocumentHash("other");
+		assertTrue(document.contains(changed));
+		document.delete();
+	}
+
+	private static DocumentChunk createChunk(JCas jcas, int index, int offset) {
+		DocumentChunk chunk = new DocumentChunk(jcas);
+		chunk.setIndex(index);
+		chunk.setCount(2);
+		chunk.setOffset(offset);
+		chunk.setDocumentHash("hash");
+		return chunk;
+	}
+
+	/**
+	 * @param argument the semantic argument, or null without semantic argument column
+	 */
+	private static Fields row(int paragraph, int sentence, int token, int begin, int end, String head, String corefChains, String argument) {
+		Fields fields = new Fields();
+		fields.setSize((argument == null) ? COLUMNS : COLUMNS + 1);
+		for(int i = 0; i < fields.size(); i++) {
+			fields.set(i, DARIAHWriter.UNUSED);
+		}
+		fields.set(1, Integer.toString(paragraph));
+		fields.set(2, Integer.toString(sentence));
+		fields.set(3, Integer.toString(token));
+		fields.set(4, Integer.toString(begin));
+		fields.set(5, Integer.toString(end));
+		fields.set(6, "Effi");
+		fields.set(13, head);
+		fields.set(17, corefChains);
+		if(argument != null) {
+			fields.set(COLUMNS, argument);
+		}
+		return fields;
+	}
+
+	private static List<String> values(Fields fields) {
+		List<String> values = new ArrayList<>();
+		for(int i = 0; i < fields.size(); i++) {
+			values.add(fields.get(i));
+		}
+		return values;
+	}
+}
@@ -0,0 +1,110 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.jcas.JCas;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionMethod;
+
+public class ColumnarDocumentTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private JCas jcas;
+
+	@Before
+	public void setUp() throws Exception {
+		jcas = new EffiBriestFixture().createDocument(true);
+	}
+
+	/**
+	 * The columnar file has the same columns and rows as the tab separated output
+	 */
+	@Test
+	public void testSameRowsAsTsv() throws Exception {
+		File output = folder.newFolder("output");
+		createEngine(DARIAHWriter.class,
+				DARIAHWriter.PARAM_TARGET_LOCATION, output.getPath(),
+				DARIAHWriter.PARAM_OVERWRITE, true).process(jcas);
+		List<String> lines = Files.readAllLines(new File(output, EffiBriestFixture.NAME+".csv").toPath(), StandardCharsets.UTF_8);
+
+		for(CompressionMethod compression : new CompressionMethod[] {CompressionMethod.NONE, CompressionMethod.GZIP}) {
+			ColumnarDocument document = ColumnarDocument.read(write(compression));
+			assertEquals(Arrays.asList(lines.get(0).split("\t")), document.getColumnNames());
+			assertEquals(lines.size() - 1, document.getRowCount());
+			for(int row = 0; row < document.getRowCount(); row++) {
+				String[] fields = lines.get(row + 1).split("\t");
+				for(int column = 0; column < fields.length; column++) {
+					assertEquals(lines.get(row + 1), fields[column], document.getString(document.getColumnNames().get(column), row));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Only the requested columns are loaded, and the dictionary lists the most frequent values first
+	 */
+	@Test
+	public void testReadSelectedColumns() throws Exception {
+		File file = write(CompressionMethod.NONE);
+		ColumnarDocument all = ColumnarDocument.read(file);
+		ColumnarDocument document = ColumnarDocument.read(file, "POS", "Begin");
+		assertTrue(document.isLoaded("POS"));
+		assertTrue(document.isLoaded("Begin"));
+		assertFalse(document.isLoaded("Lemma"));
+		assertEquals(all.getColumnNames(), document.getColumnNames());
+
+		assertArrayEquals(all.getInts("Begin"), document.getInts("Begin"));
+		String[] tags = document.getDictionary("POS");
+		int[] frequencies = new int[tags.length];
+		for(int code : document.getCodes("POS")) {
+			frequencies[code]++;
+		}
+		for(int i = 1; i < frequencies.length; i++) {
+			assertTrue(frequencies[i-1] >= frequencies[i]);
+		}
+		for(int row = 0; row < document.getRowCount(); row++) {
+			assertEquals(all.getString("POS", row), tags[document.getCodes("POS")[row]]);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testColumnNotLoaded() throws Exception {
+		ColumnarDocument.read(write(CompressionMethod.NONE), "POS").getCodes("Lemma");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotADictionaryColumn() throws Exception {
+		ColumnarDocument.read(write(CompressionMethod.NONE), "Begin").getCodes("Begin");
+	}
+
+	private File write(CompressionMethod compression) throws Exception {
+		File output = folder.newFolder();
+		AnalysisEngine writer = createEngine(ColumnarWriter.class,
+				ColumnarWriter.PARAM_TARGET_LOCATION, output.getPath(),
+				ColumnarWriter.PARAM_OVERWRITE, true,
+				ColumnarWriter.PARAM_FILENAME_SUFFIX, ColumnarWriter.FILENAME_SUFFIX,
+				ColumnarWriter.PARAM_COMPRESSION, compression);
+		writer.process(jcas);
+		writer.collectionProcessComplete();
+		File file = new File(output, EffiBriestFixture.NAME+ColumnarWriter.FILENAME_SUFFIX+compression.getExtension());
+		assertTrue(file.isFile());
+		return file;
+	}
+}
@@ -0,0 +1,253 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionMethod;
+
+public class CompletionJournalTest {
+
+	private static final String OUTPUT = "Header\tColumn\nrow\t1\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File output;
+
+	@Before
+	public void setUp() throws Exception {
+		output = folder.newFolder("output");
+	}
+
+	/**
+	 * Outputs of a version without journal are taken over if they end with a complete row
+	 */
+	@Test
+	public void testLegacyImport() throws Exception {
+		write("complete.txt.csv", OUTPUT);
+		write("truncated.txt.csv", "Header\tColumn\nrow\t1\nrow");
+		write("partialRow.txt.csv", "Header\tColumn\nrow\n");
+		write("empty.txt.csv", "");
+
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv");
+			assertTrue(journal.isCompleted("complete.txt"));
+			assertFalse(journal.isCompleted("truncated.txt"));
+			assertFalse(journal.isCompleted("partialRow.txt"));
+			assertFalse(journal.isCompleted("empty.txt"));
+		} finally {
+			journal.close();
+		}
+
+		// The imported outputs do not depend on the configuration
+		journal = new CompletionJournal(output, "other config");
+		try {
+			journal.load(".csv");
+			assertTrue(journal.isCompleted("complete.txt"));
+			assertFalse(journal.isCompleted("truncated.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * A compressed output is only taken over if it can be decompressed completely
+	 */
+	@Test
+	public void testLegacyImportCompressed() throws Exception {
+		byte[] compressed;
+		try(OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(output, "complete.txt.csv.gz")))) {
+			out.write(OUTPUT.getBytes(StandardCharsets.UTF_8));
+		}
+		compressed = Files.readAllBytes(new File(output, "complete.txt.csv.gz").toPath());
+		Files.write(new File(output, "truncated.txt.csv.gz").toPath(), Arrays.copyOf(compressed, compressed.length - 10));
+
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv.gz");
+			assertTrue(journal.isCompleted("complete.txt"));
+			assertFalse(journal.isCompleted("truncated.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * The writer records the size of the compressed file, which is compared on resume
+	 */
+	@Test
+	public void testCompressedOutput() throws Exception {
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		try {
+			AnalysisEngine writer = createEngine(DARIAHWriter.class,
+					DARIAHWriter.PARAM_TARGET_LOCATION, output.getPath(),
+					DARIAHWriter.PARAM_OVERWRITE, true,
+					DARIAHWriter.PARAM_COMPRESSION, CompressionMethod.GZIP,
+					DARIAHWriter.PARAM_COMPLETION_JOURNAL, journal.getId());
+			JCas jcas = JCasFactory.createJCas();
+			jcas.setDocumentText("Effi Briest");
+			DocumentMetaData metaData = DocumentMetaData.create(jcas);
+			metaData.setDocumentBaseUri(folder.getRoot().toURI().toString());
+			metaData.setDocumentUri(new File(folder.getRoot(), "a.txt").toURI().toString());
+			writer.process(jcas);
+			writer.collectionProcessComplete();
+		} finally {
+			journal.close();
+		}
+
+		journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv.gz");
+			assertTrue(journal.isCompleted("a.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testFingerprintMismatch() throws Exception {
+		complete("config", "a.txt", "text");
+
+		CompletionJournal journal = new CompletionJournal(output, "other config");
+		try {
+			journal.load(".csv");
+			assertFalse(journal.isCompleted("a.txt"));
+		} finally {
+			journal.close();
+		}
+
+		journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv");
+			assertTrue(journal.isCompleted("a.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testTextHashMismatch() throws Exception {
+		complete("config", "a.txt", "Der Text");
+		File input = folder.newFile("a.txt");
+
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv");
+			Files.write(input.toPath(), "Der Text".getBytes(StandardCharsets.UTF_8));
+			assertTrue(journal.isCompleted("a.txt", input, StandardCharsets.UTF_8));
+			Files.write(input.toPath(), "Der geänderte Text".getBytes(StandardCharsets.UTF_8));
+			assertFalse(journal.isCompleted("a.txt", input, StandardCharsets.UTF_8));
+			// The name alone is still completed
+			assertTrue(journal.isCompleted("a.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	public void testOutputChanged() throws Exception {
+		complete("config", "a.txt", "text");
+		complete("config", "b.txt", "text");
+		write("a.txt.csv", OUTPUT+"row\t2\n");
+		new File(output, "b.txt.csv").delete();
+
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv");
+			assertFalse(journal.isCompleted("a.txt"));
+			assertFalse(journal.isCompleted("b.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * A line that was cut off by a crash is ignored, and the next document is recorded on a line of its own
+	 */
+	@Test
+	public void testTornLastLine() throws Exception {
+		complete("config", "a.txt", "text");
+		write("b.txt.csv", OUTPUT);
+		Files.write(new File(output, CompletionJournal.FILENAME).toPath(), "b.txt\t".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv");
+			assertTrue(journal.isCompleted("a.txt"));
+			assertFalse(journal.isCompleted("b.txt"));
+			journal.completed("b.txt", CompletionJournal.hash("text"), OUTPUT.length());
+			assertTrue(journal.isCompleted("b.txt"));
+		} finally {
+			journal.close();
+		}
+
+		List<String> lines = Files.readAllLines(new File(output, CompletionJournal.FILENAME).toPath(), StandardCharsets.UTF_8);
+		assertEquals(3, lines.size());
+		assertEquals("b.txt\t", lines.get(1));
+		assertTrue(lines.get(2).startsWith("b.txt\t"));
+
+		journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv");
+			assertTrue(journal.isCompleted("a.txt"));
+			assertTrue(journal.isCompleted("b.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * Without resume, the journal is only written
+	 */
+	@Test
+	public void testNotLoaded() throws Exception {
+		write("a.txt.csv", OUTPUT);
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		try {
+			journal.completed("a.txt", CompletionJournal.hash("text"), OUTPUT.length());
+			assertFalse(journal.isCompleted("a.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * Writes the output of a document and records it, as the writer does
+	 */
+	private void complete(String fingerprint, String documentKey, String text) throws Exception {
+		write(documentKey+".csv", OUTPUT);
+		CompletionJournal journal = new CompletionJournal(output, fingerprint);
+		try {
+			journal.completed(documentKey, CompletionJournal.hash(text), OUTPUT.length());
+		} finally {
+			journal.close();
+		}
+	}
+
+	private void write(String name, String content) throws Exception {
+		Files.write(new File(output, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+}
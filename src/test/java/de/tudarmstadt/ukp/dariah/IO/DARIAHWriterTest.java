@@ -0,0 +1,242 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.apache.uima.fit.util.JCasUtil.select;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceChain;
+import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceLink;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Paragraph;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+
+/**
+ * Compares the output of the writer for the {@link EffiBriestFixture} with the expected
+ * output, when the document is written as a whole, in chunks and by the
+ * {@link WriteBehindQueue}.
+ */
+public class DARIAHWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** The output of {@link #createCorefDocument()} */
+	private static final String COREF_OUTPUT = "/writer/coref.txt.csv";
+
+	private static EffiBriestFixture fixture;
+	private static String expected;
+
+	@BeforeClass
+	public static void loadFixture() throws IOException {
+		fixture = new EffiBriestFixture();
+		expected = EffiBriestFixture.readResource(EffiBriestFixture.EXPECTED_OUTPUT);
+	}
+
+	@Test
+	public void testDocument() throws Exception {
+		File output = folder.newFolder();
+		write(output, Collections.singletonList(fixture.createDocument(true)));
+		assertEquals(expected, readOutput(output, EffiBriestFixture.NAME));
+	}
+
+	@Test
+	public void testChunkedDocument() throws Exception {
+		File output = folder.newFolder();
+		List<JCas> chunks = fixture.createChunks(5);
+		assertEquals(4, chunks.size());
+		write(output, chunks);
+		assertEquals(expected, readOutput(output, EffiBriestFixture.NAME));
+		assertEquals(0, getParts(output).length);
+	}
+
+	@Test
+	public void testChunksInAnyOrder() throws Exception {
+		File output = folder.newFolder();
+		List<JCas> chunks = fixture.createChunks(3);
+		Collections.reverse(chunks);
+		write(output, chunks);
+		assertEquals(expected, readOutput(output, EffiBriestFixture.NAME));
+	}
+
+	@Test
+	public void testWriteBehind() throws Exception {
+		File output = folder.newFolder();
+		try(WriteBehindQueue queue = new WriteBehindQueue(2)) {
+			write(output, Collections.singletonList(fixture.createDocument(true)),
+					DARIAHWriter.PARAM_WRITE_BEHIND_QUEUE, queue.getId());
+		}
+		assertEquals(expected, readOutput(output, EffiBriestFixture.NAME));
+	}
+
+	@Test
+	public void testChunkedDocumentWriteBehind() throws Exception {
+		File output = folder.newFolder();
+		try(WriteBehindQueue queue = new WriteBehindQueue(2)) {
+			write(output, fixture.createChunks(5), DARIAHWriter.PARAM_WRITE_BEHIND_QUEUE, queue.getId());
+		}
+		assertEquals(expected, readOutput(output, EffiBriestFixture.NAME));
+		assertEquals(0, getParts(output).length);
+	}
+
+	/**
+	 * The parts of a document whose remaining chunks are not passed to the writer anymore
+	 * are deleted once the next document arrives
+	 */
+	@Test
+	public void testIncompleteChunkedDocument() throws Exception {
+		File output = folder.newFolder();
+		List<JCas> chunks = fixture.createChunks(5);
+		AnalysisEngine writer = createWriter(output);
+		writer.process(chunks.get(0));
+		writer.process(chunks.get(1));
+		assertEquals(2, getParts(output).length);
+
+		writer.process(createDocument("other.txt", "Effi kam ."));
+		assertEquals(0, getParts(output).length);
+		writer.collectionProcessComplete();
+		writer.destroy();
+
+		assertFalse(new File(output, EffiBriestFixture.NAME+".csv").exists());
+		assertTrue(new File(output, "other.txt.csv").exists());
+	}
+
+	/**
+	 * A short document with nested and overlapping coreference links over repeated tokens
+	 */
+	@Test
+	public void testCoreferenceDocument() throws Exception {
+		File output = folder.newFolder();
+		write(output, Collections.singletonList(createCorefDocument()));
+		assertEquals(EffiBriestFixture.readResource(COREF_OUTPUT), readOutput(output, "coref.txt"));
+	}
+
+	/**
+	 * A link is the beginning of a mention only at the token it begins with, even if the
+	 * following tokens have the same text. The ids of a token are sorted by the number of
+	 * the chain, and the I of a chain comes before its B.
+	 */
+	@Test
+	public void testCoreferenceChainIds() throws Exception {
+		File output = folder.newFolder();
+		write(output, Collections.singletonList(createCorefDocument()));
+		assertEquals(Arrays.asList("B-0", "I-0,B-0", "B-11", "B-1,B-2,B-3,B-4,B-5,B-6,B-7,B-8,B-9,B-10,I-11", "_"),
+				readColumn(readOutput(output, "coref.txt"), "CoreferenceChainIds"));
+	}
+
+	/**
+	 * Creates a document in which chain 0 has a link over two equal names and one over the
+	 * second, chains 1 to 10 link the last name and chain 11 the verb and the name. A chain
+	 * without links has no id.
+	 */
+	static JCas createCorefDocument() throws UIMAException {
+		JCas jcas = createDocument("coref.txt", "Effi Effi sah Innstetten .");
+		List<Token> tokens = new ArrayList<>(select(jcas, Token.class));
+		addChain(jcas, new int[][] {{tokens.get(0).getBegin(), tokens.get(1).getEnd()}, {tokens.get(1).getBegin(), tokens.get(1).getEnd()}});
+		for(int chain = 1; chain <= 10; chain++) {
+			addChain(jcas, new int[][] {{tokens.get(3).getBegin(), tokens.get(3).getEnd()}});
+		}
+		addChain(jcas, new int[][] {{tokens.get(2).getBegin(), tokens.get(3).getEnd()}});
+		new CoreferenceChain(jcas).addToIndexes();
+		return jcas;
+	}
+
+	private static void addChain(JCas jcas, int[][] links) {
+		CoreferenceChain chain = new CoreferenceChain(jcas);
+		CoreferenceLink previous = null;
+		for(int[] span : links) {
+			CoreferenceLink link = new CoreferenceLink(jcas, span[0], span[1]);
+			link.addToIndexes();
+			if(previous == null) {
+				chain.setFirst(link);
+			} else {
+				previous.setNext(link);
+			}
+			previous = link;
+		}
+		chain.addToIndexes();
+	}
+
+	/**
+	 * Creates a document with one sentence, whose tokens are separated by spaces
+	 */
+	static JCas createDocument(String name, String text) throws UIMAException {
+		JCas jcas = JCasFactory.createJCas();
+		jcas.setDocumentText(text);
+		jcas.setDocumentLanguage("de");
+		DocumentMetaData metaData = DocumentMetaData.create(jcas);
+		metaData.setDocumentId(name);
+		metaData.setDocumentBaseUri("file:/in/");
+		metaData.setDocumentUri("file:/in/"+name);
+
+		new Paragraph(jcas, 0, text.length()).addToIndexes();
+		new Sentence(jcas, 0, text.length()).addToIndexes();
+		int begin = 0;
+		for(String token : text.split(" ")) {
+			new Token(jcas, begin, begin + token.length()).addToIndexes();
+			begin += token.length() + 1;
+		}
+		return jcas;
+	}
+
+	static AnalysisEngine createWriter(File output, Object... parameters) throws UIMAException {
+		List<Object> settings = new ArrayList<>(Arrays.asList(parameters));
+		settings.addAll(Arrays.asList(
+				DARIAHWriter.PARAM_TARGET_LOCATION, output.getPath(),
+				DARIAHWriter.PARAM_OVERWRITE, true));
+		return createEngine(DARIAHWriter.class, settings.toArray());
+	}
+
+	/**
+	 * Passes the CASes to a writer and ends the collection
+	 */
+	static void write(File output, List<JCas> cases, Object... parameters) throws UIMAException {
+		AnalysisEngine writer = createWriter(output, parameters);
+		try {
+			for(JCas jcas : cases) {
+				writer.process(jcas);
+			}
+			writer.collectionProcessComplete();
+		} finally {
+			writer.destroy();
+		}
+	}
+
+	static String readOutput(File output, String name) throws IOException {
+		return FileUtils.readFileToString(new File(output, name+".csv"), StandardCharsets.UTF_8);
+	}
+
+	private static List<String> readColumn(String output, String column) {
+		String[] lines = output.split("\n");
+		int index = Arrays.asList(lines[0].split("\t")).indexOf(column);
+		List<String> values = new ArrayList<>();
+		for(int i = 1; i < lines.length; i++) {
+			values.add(lines[i].split("\t")[index]);
+		}
+		return values;
+	}
+
+	private static File[] getParts(File output) {
+		return output.listFiles((dir, name) -> name.endsWith(".part"));
+	}
+}
@@ -0,0 +1,119 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DocumentOrderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File a, b, c, d;
+
+	@Before
+	public void setUp() throws Exception {
+		// Found in the order a, b, c, d; b and d have the same size
+		a = createFile("a.txt", 20, 3000);
+		b = createFile("b.txt", 10, 1000);
+		c = createFile("c.txt", 30, 2000);
+		d = createFile("d.txt", 10, 4000);
+	}
+
+	@Test
+	public void testFound() throws Exception {
+		DocumentOrder order = DocumentOrder.parse("found");
+		assertTrue(order.isStreaming());
+		assertEquals(asList(a, b, c, d), sort(order));
+	}
+
+	@Test
+	public void testLargest() throws Exception {
+		DocumentOrder order = DocumentOrder.parse("largest");
+		assertFalse(order.isStreaming());
+		assertEquals(asList(c, a, b, d), sort(order));
+	}
+
+	@Test
+	public void testSmallest() throws Exception {
+		// Files of the same size keep the order in which they were found
+		assertEquals(asList(b, d, a, c), sort(DocumentOrder.parse("Smallest")));
+	}
+
+	@Test
+	public void testOldest() throws Exception {
+		assertEquals(asList(b, c, a, d), sort(DocumentOrder.parse("oldest")));
+	}
+
+	@Test
+	public void testPriority() throws Exception {
+		File list = folder.newFile("priority.txt");
+		Files.write(list.toPath(), asList("# first the novel", "c.txt", "", d.getAbsolutePath(), "c.txt"), StandardCharsets.UTF_8);
+
+		DocumentOrder order = DocumentOrder.parse("priority:"+list.getPath());
+		assertEquals(DocumentOrder.Policy.PRIORITY, order.getPolicy());
+		assertEquals(asList(c, d, a, b), sort(order));
+	}
+
+	@Test
+	public void testMissingFileLast() throws Exception {
+		File missing = new File(folder.getRoot(), "missing.txt");
+		List<File> files = new ArrayList<>(asList(missing, a, b));
+		DocumentOrder.parse("smallest").sort(files);
+		assertEquals(asList(b, a, missing), files);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownOrder() throws Exception {
+		DocumentOrder.parse("random");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPriorityWithoutList() throws Exception {
+		DocumentOrder.parse("priority");
+	}
+
+	/**
+	 * The queue hands out the files of a sorted listing in this order
+	 */
+	@Test(timeout = 30000)
+	public void testQueue() throws Exception {
+		DocumentQueue queue = new DocumentQueue(2);
+		try {
+			queue.setOrder(DocumentOrder.parse("largest"));
+			queue.readFilePaths(folder.getRoot().getPath(), ".txt", null);
+			List<File> polled = new ArrayList<>();
+			for(File file = queue.poll(); file != null; file = queue.poll()) {
+				polled.add(file);
+			}
+			assertEquals(asList(c, a, b, d), polled);
+		} finally {
+			queue.close();
+		}
+	}
+
+	private List<File> sort(DocumentOrder order) {
+		List<File> files = new ArrayList<>(asList(a, b, c, d));
+		order.sort(files);
+		return files;
+	}
+
+	private File createFile(String name, int size, long modified) throws Exception {
+		File file = folder.newFile(name);
+		Files.write(file.toPath(), new byte[size]);
+		file.setLastModified(modified * 1000);
+		return file;
+	}
+}
@@ -0,0 +1,140 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DocumentQueueTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testFolder() throws Exception {
+		File input = folder.newFolder("input");
+		createFiles(input, "a.txt", "b.txt", "c.xml", "sub/d.txt");
+
+		DocumentQueue queue = new DocumentQueue();
+		try {
+			queue.readFilePaths(input.getPath(), ".txt", null);
+			assertEquals(asList("a.txt", "b.txt"), pollAll(queue, input));
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void testPattern() throws Exception {
+		File input = folder.newFolder("input");
+		createFiles(input, "a.txt", "one/b.txt", "one/two/c.txt", "one/c.xml", ".svn/d.txt");
+
+		DocumentQueue queue = new DocumentQueue();
+		try {
+			queue.readFilePaths(input.getPath()+"/**/*.txt", ".txt", null);
+			assertEquals(asList("a.txt", "one/b.txt", "one/two/c.txt"), pollAll(queue, input));
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void testSkipExistentFiles() throws Exception {
+		File input = folder.newFolder("input");
+		File output = folder.newFolder("output");
+		createFiles(input, "a.txt", "b.txt");
+		Files.write(new File(output, "a.txt.csv").toPath(), "Header\tColumn\nrow\t1\n".getBytes(StandardCharsets.UTF_8));
+
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		DocumentQueue queue = new DocumentQueue();
+		try {
+			journal.load(".csv");
+			queue.readFilePaths(input.getPath(), ".txt", journal);
+			assertEquals(asList("b.txt"), pollAll(queue, input));
+		} finally {
+			queue.close();
+			journal.close();
+		}
+	}
+
+	/**
+	 * The listing waits while the queue is full, but all files are handed out
+	 */
+	@Test(timeout = 30000)
+	public void testBounded() throws Exception {
+		File input = folder.newFolder("input");
+		List<String> names = new ArrayList<>();
+		for(int i = 0; i < 20; i++) {
+			names.add("doc"+(100+i)+".txt");
+		}
+		createFiles(input, names.toArray(new String[0]));
+
+		DocumentQueue queue = new DocumentQueue(2);
+		try {
+			queue.readFilePaths(input.getPath(), ".txt", null);
+			assertEquals(names, pollAll(queue, input));
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test(timeout = 30000)
+	public void testFirstInFirstOut() throws Exception {
+		DocumentQueue queue = new DocumentQueue();
+		try {
+			File a = new File("a.txt");
+			File b = new File("b.txt");
+			queue.add(a);
+			queue.add(b);
+			queue.endInput();
+
+			assertEquals(a, queue.poll());
+			assertEquals(a, queue.getLastPolledFile());
+			assertEquals(b, queue.poll());
+			assertNull(queue.poll());
+			assertNull(queue.getLastPolledFile());
+		} finally {
+			queue.close();
+		}
+	}
+
+	@Test
+	public void testRegistry() throws Exception {
+		DocumentQueue queue = new DocumentQueue();
+		assertEquals(queue, DocumentQueue.get(queue.getId()));
+		queue.close();
+		assertNull(DocumentQueue.get(queue.getId()));
+	}
+
+	private static void createFiles(File directory, String... names) throws Exception {
+		for(String name : names) {
+			File file = new File(directory, name);
+			file.getParentFile().mkdirs();
+			file.createNewFile();
+		}
+	}
+
+	/**
+	 * Polls the files until the input ends
+	 *
+	 * @return the paths relative to the input folder, sorted
+	 */
+	private static List<String> pollAll(DocumentQueue queue, File input) throws InterruptedException {
+		List<String> paths = new ArrayList<>();
+		for(File file = queue.poll(); file != null; file = queue.poll()) {
+			paths.add(input.toURI().relativize(file.toURI()).getPath());
+		}
+		Collections.sort(paths);
+		return paths;
+	}
+}
@@ -0,0 +1,301 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+
+import de.tudarmstadt.ukp.dariah.type.DirectSpeech;
+import de.tudarmstadt.ukp.dariah.type.DocumentChunk;
+import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceChain;
+import de.tudarmstadt.ukp.dkpro.core.api.coref.type.CoreferenceLink;
+import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.morph.Morpheme;
+import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.ner.type.NamedEntity;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Lemma;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Paragraph;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.Dependency;
+
+/**
+ * The annotations of <code>kurz/EffiBriestKurz.txt.csv</code> as CASes, so the writer can
+ * be tested without the models. The tokens, lemmas, POS tags, morphology, dependencies,
+ * named entities and direct speech are taken from the file. Every ten sentences form a
+ * paragraph, and within each paragraph the named entities of the same type form a
+ * coreference chain.
+ * <p>
+ * The document can be created as a whole or in {@link DocumentChunk chunks} of whole
+ * paragraphs, whose joined output is the same.
+ */
+public class EffiBriestFixture {
+
+	public static final String NAME = "EffiBriestKurz.txt";
+	/** The output of {@link DARIAHWriter} for the document */
+	public static final String EXPECTED_OUTPUT = "/writer/EffiBriestKurz.txt.csv";
+
+	private static final int SENTENCES_PER_PARAGRAPH = 10;
+
+	// The columns of the annotation file
+	private static final int SENTENCE_ID = 2;
+	private static final int BEGIN = 4;
+	private static final int END = 5;
+	private static final int LEMMA = 7;
+	private static final int CPOS = 8;
+	private static final int POS_TAG = 9;
+	private static final int MORPHOLOGY = 10;
+	private static final int DEPENDENCY_HEAD = 11;
+	private static final int DEPENDENCY_RELATION = 12;
+	private static final int NAMED_ENTITY = 13;
+	private static final int DIRECT_SPEECH = 14;
+
+	private static final String UNUSED = "_";
+
+	private final String text;
+	private final List<String[]> rows = new ArrayList<>();
+	/** The first row of each sentence, and the number of rows at the end */
+	private final List<Integer> sentences = new ArrayList<>();
+
+	public EffiBriestFixture() throws IOException {
+		text = readResource("/kurz/EffiBriestKurz.txt");
+		String[] lines = readResource("/kurz/EffiBriestKurz.txt.csv").split("\n");
+		String sentenceId = null;
+		for(int i = 1; i < lines.length; i++) {
+			String[] row = lines[i].split("\t", -1);
+			if(!row[SENTENCE_ID].equals(sentenceId)) {
+				sentences.add(rows.size());
+				sentenceId = row[SENTENCE_ID];
+			}
+			rows.add(row);
+		}
+		sentences.add(rows.size());
+	}
+
+	public static String readResource(String name) throws IOException {
+		try(InputStream in = EffiBriestFixture.class.getResourceAsStream(name)) {
+			if(in == null) {
+				throw new IOException("Missing test resource "+name);
+			}
+			return IOUtils.toString(in, StandardCharsets.UTF_8);
+		}
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public int getParagraphs() {
+		int sentenceCount = sentences.size() - 1;
+		return (sentenceCount + SENTENCES_PER_PARAGRAPH - 1) / SENTENCES_PER_PARAGRAPH;
+	}
+
+	/**
+	 * Creates the CAS of the whole document
+	 *
+	 * @param withDependencies whether the dependencies are added, or left to a parser
+	 */
+	public JCas createDocument(boolean withDependencies) throws UIMAException {
+		JCas jcas = createCas(text);
+		fill(jcas, 0, getParagraphs(), 0, withDependencies);
+		return jcas;
+	}
+
+	/**
+	 * Creates the CASes of the chunks of the document, like the {@link TextReaderWithInfo}
+	 * does for large documents. The text between the chunks is not part of any chunk.
+	 */
+	public List<JCas> createChunks(int paragraphsPerChunk) throws UIMAException {
+		int count = (getParagraphs() + paragraphsPerChunk - 1) / paragraphsPerChunk;
+		String hash = CompletionJournal.hash(text);
+		List<JCas> chunks = new ArrayList<>();
+		for(int index = 0; index < count; index++) {
+			int firstParagraph = index * paragraphsPerChunk;
+			int endParagraph = Math.min(firstParagraph + paragraphsPerChunk, getParagraphs());
+			int begin = (index == 0) ? 0 : getParagraphBegin(firstParagraph);
+			int end = (index == count - 1) ? text.length() : getParagraphEnd(endParagraph - 1);
+
+			JCas jcas = createCas(text.substring(begin, end));
+			DocumentChunk chunk = new DocumentChunk(jcas, 0, end - begin);
+			chunk.setIndex(index);
+			chunk.setCount(count);
+			chunk.setOffset(begin);
+			chunk.setDocumentHash(hash);
+			chunk.addToIndexes();
+			fill(jcas, firstParagraph, endParagraph, begin, true);
+			chunks.add(jcas);
+		}
+		return chunks;
+	}
+
+	private static JCas createCas(String documentText) throws UIMAException {
+		JCas jcas = JCasFactory.createJCas();
+		jcas.setDocumentText(documentText);
+		jcas.setDocumentLanguage("de");
+		DocumentMetaData metaData = DocumentMetaData.create(jcas);
+		metaData.setDocumentId(NAME);
+		metaData.setDocumentBaseUri("file:/in/");
+		metaData.setDocumentUri("file:/in/"+NAME);
+		return jcas;
+	}
+
+	private int getParagraphBegin(int paragraph) {
+		return getBegin(rows.get(sentences.get(paragraph * SENTENCES_PER_PARAGRAPH)));
+	}
+
+	private int getParagraphEnd(int paragraph) {
+		int endSentence = Math.min((paragraph + 1) * SENTENCES_PER_PARAGRAPH, sentences.size() - 1);
+		return getEnd(rows.get(sentences.get(endSentence) - 1));
+	}
+
+	private static int getBegin(String[] row) {
+		return Integer.parseInt(row[BEGIN]);
+	}
+
+	private static int getEnd(String[] row) {
+		return Integer.parseInt(row[END]);
+	}
+
+	/**
+	 * Adds the annotations of the paragraphs, with the positions moved by the offset of the text
+	 */
+	private void fill(JCas jcas, int firstParagraph, int endParagraph, int offset, boolean withDependencies) throws UIMAException {
+		for(int paragraph = firstParagraph; paragraph < endParagraph; paragraph++) {
+			new Paragraph(jcas, getParagraphBegin(paragraph) - offset, getParagraphEnd(paragraph) - offset).addToIndexes();
+
+			int firstSentence = paragraph * SENTENCES_PER_PARAGRAPH;
+			int endSentence = Math.min(firstSentence + SENTENCES_PER_PARAGRAPH, sentences.size() - 1);
+			int firstRow = sentences.get(firstSentence);
+			int endRow = sentences.get(endSentence);
+
+			Token[] tokens = new Token[endRow - firstRow];
+			for(int sentence = firstSentence; sentence < endSentence; sentence++) {
+				int first = sentences.get(sentence);
+				int last = sentences.get(sentence + 1) - 1;
+				new Sentence(jcas, getBegin(rows.get(first)) - offset, getEnd(rows.get(last)) - offset).addToIndexes();
+			}
+			for(int i = firstRow; i < endRow; i++) {
+				tokens[i - firstRow] = addToken(jcas, rows.get(i), offset);
+			}
+
+			if(withDependencies) {
+				for(int i = firstRow; i < endRow; i++) {
+					String[] row = rows.get(i);
+					Token dependent = tokens[i - firstRow];
+					Dependency dependency = new Dependency(jcas, dependent.getBegin(), dependent.getEnd());
+					dependency.setDependent(dependent);
+					if(UNUSED.equals(row[DEPENDENCY_HEAD])) {
+						// The root is modeled as a loop
+						dependency.setGovernor(dependent);
+						dependency.setDependencyType("ROOT");
+					} else {
+						dependency.setGovernor(tokens[Integer.parseInt(row[DEPENDENCY_HEAD]) - firstRow]);
+						dependency.setDependencyType(row[DEPENDENCY_RELATION]);
+					}
+					dependency.addToIndexes();
+				}
+			}
+
+			addNamedEntities(jcas, firstRow, endRow, offset);
+			addDirectSpeech(jcas, firstRow, endRow, offset);
+		}
+	}
+
+	private static Token addToken(JCas jcas, String[] row, int offset) throws UIMAException {
+		int begin = getBegin(row) - offset;
+		int end = getEnd(row) - offset;
+		Token token = new Token(jcas, begin, end);
+
+		Lemma lemma = new Lemma(jcas, begin, end);
+		lemma.setValue(row[LEMMA]);
+		lemma.addToIndexes();
+		token.setLemma(lemma);
+
+		POS pos;
+		try {
+			// The coarse tag is the name of the POS type
+			pos = (POS) Class.forName(POS.class.getPackage().getName()+"."+row[CPOS])
+					.getConstructor(JCas.class, int.class, int.class).newInstance(jcas, begin, end);
+		} catch (ReflectiveOperationException e) {
+			throw new UIMAException(e);
+		}
+		pos.setPosValue(row[POS_TAG]);
+		pos.addToIndexes();
+		token.setPos(pos);
+
+		Morpheme morpheme = new Morpheme(jcas, begin, end);
+		morpheme.setMorphTag(row[MORPHOLOGY]);
+		morpheme.addToIndexes();
+
+		token.addToIndexes();
+		return token;
+	}
+
+	/**
+	 * Adds the named entities from their BIO labels, and a coreference chain for each
+	 * type that occurs more than once
+	 */
+	private void addNamedEntities(JCas jcas, int firstRow, int endRow, int offset) {
+		Map<String, List<NamedEntity>> mentions = new LinkedHashMap<>();
+		for(int i = firstRow; i < endRow; i++) {
+			String label = rows.get(i)[NAMED_ENTITY];
+			if(!label.startsWith("B-")) {
+				continue;
+			}
+			int last = i;
+			while(last + 1 < endRow && rows.get(last + 1)[NAMED_ENTITY].equals("I-"+label.substring(2))) {
+				last++;
+			}
+			NamedEntity ne = new NamedEntity(jcas, getBegin(rows.get(i)) - offset, getEnd(rows.get(last)) - offset);
+			ne.setValue(label.substring(2));
+			ne.addToIndexes();
+
+			if(!mentions.containsKey(ne.getValue())) {
+				mentions.put(ne.getValue(), new ArrayList<NamedEntity>());
+			}
+			mentions.get(ne.getValue()).add(ne);
+		}
+
+		for(List<NamedEntity> entities : mentions.values()) {
+			if(entities.size() < 2) {
+				continue;
+			}
+			CoreferenceChain chain = new CoreferenceChain(jcas);
+			CoreferenceLink previous = null;
+			for(NamedEntity ne : entities) {
+				CoreferenceLink link = new CoreferenceLink(jcas, ne.getBegin(), ne.getEnd());
+				link.setReferenceType(ne.getValue());
+				link.addToIndexes();
+				if(previous == null) {
+					chain.setFirst(link);
+				} else {
+					previous.setNext(link);
+				}
+				previous = link;
+			}
+			chain.addToIndexes();
+		}
+	}
+
+	private void addDirectSpeech(JCas jcas, int firstRow, int endRow, int offset) {
+		for(int i = firstRow; i < endRow; i++) {
+			if(!"1".equals(rows.get(i)[DIRECT_SPEECH])) {
+				continue;
+			}
+			int last = i;
+			while(last + 1 < endRow && "1".equals(rows.get(last + 1)[DIRECT_SPEECH])) {
+				last++;
+			}
+			new DirectSpeech(jcas, getBegin(rows.get(i)) - offset, getEnd(rows.get(last)) - offset).addToIndexes();
+			i = last;
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import de.tudarmstadt.ukp.dariah.type.Section;
+
+public class FragmentContentHandlerTest {
+
+	private static final String[] SAMPLES = {"/xml/drama.xml", "/xml/prose.xml"};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * One handler that parses several documents gives the same sections as the XPaths of
+	 * the elements, computed from the DOM
+	 */
+	@Test
+	public void testReusedHandler() throws Exception {
+		XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+		FragmentContentHandler handler = new FragmentContentHandler();
+		xmlReader.setContentHandler(handler);
+
+		for(String sample : new String[] {SAMPLES[0], SAMPLES[1], SAMPLES[0]}) {
+			byte[] xml = readResource(sample);
+			xmlReader.parse(new InputSource(new ByteArrayInputStream(xml)));
+			assertSections(getExpectedSections(xml), handler.getTextElements());
+		}
+	}
+
+	/**
+	 * Deeper nesting and more distinct child names than the initial size of the buffers
+	 */
+	@Test
+	public void testDeepNesting() throws Exception {
+		StringBuilder xml = new StringBuilder();
+		for(int i = 0; i < 70; i++) {
+			xml.append("<e").append(i % 3).append("> text ").append(i);
+		}
+		for(int i = 0; i < 20; i++) {
+			xml.append("<c").append(i).append(">").append(i).append("</c").append(i).append("><c0/>");
+		}
+		for(int i = 69; i >= 0; i--) {
+			xml.append(" tail</e").append(i % 3).append(">");
+		}
+		byte[] bytes = xml.toString().getBytes(StandardCharsets.UTF_8);
+
+		List<String[]> sections = parse(bytes);
+		assertSections(getExpectedSections(bytes), sections);
+		assertEquals("text 0 tail", sections.get(sections.size()-1)[1]);
+	}
+
+	/**
+	 * The reader creates the sections from the handler, and reads the next file correctly
+	 * after a file that could not be parsed
+	 */
+	@Test(timeout = 60000)
+	public void testXmlReader() throws Exception {
+		DocumentQueue queue = new DocumentQueue();
+		try {
+			File broken = folder.newFile("broken.xml");
+			Files.write(broken.toPath(), "<TEI><text><p>unclosed</text>".getBytes(StandardCharsets.UTF_8));
+			List<File> files = new ArrayList<>();
+			for(String sample : new String[] {SAMPLES[0], null, SAMPLES[1], SAMPLES[0]}) {
+				File file = broken;
+				if(sample != null) {
+					file = folder.newFile(files.size()+".xml");
+					Files.write(file.toPath(), readResource(sample));
+				}
+				queue.add(file);
+				files.add(file);
+			}
+			queue.endInput();
+
+			CollectionReader reader = createReader(XmlReader.class,
+					XmlReader.PARAM_DOCUMENT_QUEUE, queue.getId());
+			JCas jcas = JCasFactory.createJCas();
+			for(File file : files) {
+				assertTrue(reader.hasNext());
+				jcas.reset();
+				if(file == broken) {
+					try {
+						reader.getNext(jcas.getCas());
+						fail("Parsed a broken file");
+					} catch (CollectionException e) {
+						continue;
+					}
+				}
+				reader.getNext(jcas.getCas());
+
+				List<String[]> expected = parse(Files.readAllBytes(file.toPath()));
+				List<String[]> sections = new ArrayList<>();
+				for(Section section : JCasUtil.select(jcas, Section.class)) {
+					sections.add(new String[] {section.getValue(), section.getCoveredText()});
+				}
+				assertSections(expected, sections);
+			}
+			assertFalse(reader.hasNext());
+			reader.destroy();
+		} finally {
+			queue.close();
+		}
+	}
+
+	private static List<String[]> parse(byte[] xml) throws Exception {
+		XMLReader xmlReader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+		FragmentContentHandler handler = new FragmentContentHandler();
+		xmlReader.setContentHandler(handler);
+		xmlReader.parse(new InputSource(new ByteArrayInputStream(xml)));
+		return handler.getTextElements();
+	}
+
+	/**
+	 * @return the XPath and the trimmed own text of each element with text, children before their parent
+	 */
+	private static List<String[]> getExpectedSections(byte[] xml) throws Exception {
+		Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml)).getDocumentElement();
+		List<String[]> sections = new ArrayList<>();
+		addSections(root, "//"+root.getTagName()+"[1]", sections);
+		return sections;
+	}
+
+	private static void addSections(Element element, String xPath, List<String[]> sections) {
+		StringBuilder text = new StringBuilder();
+		for(Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if(child.getNodeType() == Node.ELEMENT_NODE) {
+				String name = ((Element) child).getTagName();
+				int position = 1;
+				for(Node sibling = child.getPreviousSibling(); sibling != null; sibling = sibling.getPreviousSibling()) {
+					if(sibling.getNodeType() == Node.ELEMENT_NODE && ((Element) sibling).getTagName().equals(name)) {
+						position++;
+					}
+				}
+				addSections((Element) child, xPath+"/"+name+"["+position+"]", sections);
+			} else if(child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+				text.append(child.getNodeValue());
+			}
+		}
+		if(text.toString().trim().length() > 0) {
+			sections.add(new String[] {xPath, text.toString().trim()});
+		}
+	}
+
+	private static void assertSections(List<String[]> expected, List<String[]> actual) {
+		assertEquals(expected.size(), actual.size());
+		for(int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i)[0], actual.get(i)[0]);
+			assertEquals(expected.get(i)[1], actual.get(i)[1]);
+		}
+	}
+
+	private static byte[] readResource(String name) throws Exception {
+		try(InputStream in = FragmentContentHandlerTest.class.getResourceAsStream(name)) {
+			return IOUtils.toByteArray(in);
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionMethod;
+
+public class OutputShardsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File output;
+
+	@Before
+	public void setUp() throws Exception {
+		output = folder.newFolder("output");
+	}
+
+	/**
+	 * Every document is read back from the shard it was appended to, also after the shards rolled over
+	 */
+	@Test
+	public void testRoundTrip() throws Exception {
+		OutputShards shards = new OutputShards(output, ".csv", 100);
+		try {
+			for(int i = 0; i < 10; i++) {
+				assertEquals(content(i).length, shards.append("doc"+i+".txt", toStream(content(i))));
+			}
+		} finally {
+			shards.close();
+		}
+
+		assertTrue(new File(output, "shard-00000.csv").isFile());
+		assertTrue(new File(output, "shard-00001.csv").isFile());
+		for(int i = 0; i < 10; i++) {
+			assertArrayEquals(content(i), OutputShards.read(output, "doc"+i+".txt"));
+		}
+
+		List<String> index = Files.readAllLines(new File(output, "shard-00000.csv.index").toPath(), StandardCharsets.UTF_8);
+		assertEquals("doc0.txt\t0\t"+content(0).length, index.get(0));
+		assertEquals("doc1.txt\t"+content(0).length+"\t"+content(1).length, index.get(1));
+	}
+
+	/**
+	 * A later run starts a new shard, and a document that has been processed again is read from it
+	 */
+	@Test
+	public void testLaterRun() throws Exception {
+		OutputShards shards = new OutputShards(output, ".csv", 1024);
+		try {
+			shards.append("a.txt", toStream(content(1)));
+			shards.append("b.txt", toStream(content(2)));
+		} finally {
+			shards.close();
+		}
+		long shardSize = new File(output, "shard-00000.csv").length();
+
+		byte[] again = "Header\nprocessed again\n".getBytes(StandardCharsets.UTF_8);
+		shards = new OutputShards(output, ".csv", 1024);
+		try {
+			shards.append("a.txt", toStream(again));
+		} finally {
+			shards.close();
+		}
+
+		assertEquals(shardSize, new File(output, "shard-00000.csv").length());
+		assertTrue(new File(output, "shard-00001.csv").isFile());
+		assertArrayEquals(again, OutputShards.read(output, "a.txt"));
+		assertArrayEquals(content(2), OutputShards.read(output, "b.txt"));
+
+		Map<String, Long> lengths = OutputShards.readLengths(output);
+		assertEquals(2, lengths.size());
+		assertEquals(Long.valueOf(again.length), lengths.get("a.txt"));
+		assertEquals(Long.valueOf(content(2).length), lengths.get("b.txt"));
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testMissingDocument() throws Exception {
+		OutputShards shards = new OutputShards(output, ".csv", 1024);
+		try {
+			shards.append("a.txt", toStream(content(1)));
+		} finally {
+			shards.close();
+		}
+		OutputShards.read(output, "b.txt");
+	}
+
+	/**
+	 * With gzip, each document is a member of its own, and the journal skips the documents
+	 * whose length in the shards is unchanged
+	 */
+	@Test
+	public void testCompressedWithJournal() throws Exception {
+		CompletionJournal journal = new CompletionJournal(output, "config");
+		OutputShards shards = new OutputShards(output, ".csv.gz", 1024 * 1024);
+		try {
+			AnalysisEngine writer = createEngine(DARIAHWriter.class,
+					DARIAHWriter.PARAM_TARGET_LOCATION, output.getPath(),
+					DARIAHWriter.PARAM_OVERWRITE, true,
+					DARIAHWriter.PARAM_COMPRESSION, CompressionMethod.GZIP,
+					DARIAHWriter.PARAM_COMPLETION_JOURNAL, journal.getId(),
+					DARIAHWriter.PARAM_OUTPUT_SHARDS, shards.getId());
+			for(String name : new String[] {"a.txt", "b.txt"}) {
+				JCas jcas = JCasFactory.createJCas();
+				jcas.setDocumentText("Effi Briest");
+				DocumentMetaData metaData = DocumentMetaData.create(jcas);
+				metaData.setDocumentBaseUri(folder.getRoot().toURI().toString());
+				metaData.setDocumentUri(new File(folder.getRoot(), name).toURI().toString());
+				writer.process(jcas);
+			}
+			writer.collectionProcessComplete();
+		} finally {
+			shards.close();
+			journal.close();
+		}
+		assertFalse(new File(output, "a.txt.csv.gz").exists());
+
+		try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(OutputShards.read(output, "b.txt")))) {
+			assertTrue(IOUtils.toString(in, StandardCharsets.UTF_8).startsWith("SectionId"));
+		}
+
+		journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv.gz");
+			journal.setShardedOutputs(OutputShards.readLengths(output));
+			assertTrue(journal.isCompleted("a.txt"));
+			assertTrue(journal.isCompleted("b.txt"));
+		} finally {
+			journal.close();
+		}
+
+		// A later run that was interrupted after the output of b.txt, but before the journal line
+		shards = new OutputShards(output, ".csv.gz", 1024 * 1024);
+		try {
+			shards.append("b.txt", toStream(content(1)));
+		} finally {
+			shards.close();
+		}
+		journal = new CompletionJournal(output, "config");
+		try {
+			journal.load(".csv.gz");
+			journal.setShardedOutputs(OutputShards.readLengths(output));
+			assertTrue(journal.isCompleted("a.txt"));
+			assertFalse(journal.isCompleted("b.txt"));
+		} finally {
+			journal.close();
+		}
+	}
+
+	private static byte[] content(int i) {
+		return ("Header\tColumn\nrow\t"+i+"\n").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static ByteArrayOutputStream toStream(byte[] content) throws Exception {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		stream.write(content);
+		return stream;
+	}
+}
@@ -0,0 +1,146 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static java.util.Arrays.asList;
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dariah.type.Section;
+
+public class TeiReaderTest {
+
+	private static final String TEI = "<TEI xmlns=\"http://www.tei-c.org/ns/1.0\">\n"
+			+ "<teiHeader><fileDesc><title>Effi Briest</title></fileDesc></teiHeader>\n"
+			+ "<text>\n"
+			+ "<front><p>Vorwort</p></front>\n"
+			+ "<body>\n"
+			+ "<fw>12</fw>\n"
+			+ "<p>In Front des schon   seit Kurfürst <hi>Georg Wilhelm</hi> von der\n"
+			+ "Familie<note>Eine <hi>lange</hi> Anmerkung</note> bewohnten Herrenhauses</p>\n"
+			+ "<p>Zweiter Absatz</p>\n"
+			+ "</body>\n"
+			+ "<back><p>Anhang</p></back>\n"
+			+ "</text>\n"
+			+ "</TEI>\n";
+
+	private static final String BODY = "In Front des schon seit Kurfürst Georg Wilhelm von der Familie bewohnten Herrenhauses\n\nZweiter Absatz";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * The default rules of the config file read the body without notes and forme works
+	 */
+	@Test
+	public void testDefaultRules() throws Exception {
+		JCas jcas = read(new String[] {"text/body"}, new String[] {"note", "fw"}, TEI).get(0);
+		assertEquals(BODY, jcas.getDocumentText());
+
+		List<String> sections = new ArrayList<>();
+		for(Section section : JCasUtil.select(jcas, Section.class)) {
+			sections.add(section.getValue()+" "+section.getCoveredText());
+		}
+		assertEquals(asList(
+				"//TEI[1]/text[1]/body[1]/p[1] In Front des schon seit Kurfürst",
+				"//TEI[1]/text[1]/body[1]/p[1]/hi[1] Georg Wilhelm",
+				"//TEI[1]/text[1]/body[1]/p[1] von der Familie bewohnten Herrenhauses",
+				"//TEI[1]/text[1]/body[1]/p[2] Zweiter Absatz"), sections);
+	}
+
+	/**
+	 * Without include rules the whole document is read, the exclude rules still apply
+	 */
+	@Test
+	public void testNoInclude() throws Exception {
+		JCas jcas = read(new String[0], new String[] {"teiHeader", "note", "fw"}, TEI).get(0);
+		assertEquals("Vorwort\n\n"+BODY+"\n\nAnhang", jcas.getDocumentText());
+
+		jcas = read(new String[0], new String[0], TEI).get(0);
+		assertTrue(jcas.getDocumentText().startsWith("Effi Briest\n\nVorwort\n\n12\n\nIn Front"));
+		// The note is kept inline, and there is no whitespace before it in the file
+		assertTrue(jcas.getDocumentText().contains("FamilieEine lange Anmerkung bewohnten"));
+	}
+
+	/**
+	 * A path matches at any depth, unless it starts with a slash
+	 */
+	@Test
+	public void testRootAnchoredPath() throws Exception {
+		String xml = "<TEI><teiHeader><text>Kopf</text></teiHeader><text><p>Rumpf</p></text></TEI>";
+		assertEquals("Kopf\n\nRumpf", read(new String[] {"text"}, new String[0], xml).get(0).getDocumentText());
+		assertEquals("Rumpf", read(new String[] {"/TEI/text"}, new String[0], xml).get(0).getDocumentText());
+		assertEquals("Kopf", read(new String[] {"text"}, new String[] {"/TEI/text"}, xml).get(0).getDocumentText());
+		assertEquals("", read(new String[] {"/text"}, new String[0], xml).get(0).getDocumentText());
+	}
+
+	/**
+	 * Rules of several names match the names of the enclosing elements, without the namespace prefix
+	 */
+	@Test
+	public void testPathWithPrefix() throws Exception {
+		String xml = "<tei:TEI xmlns:tei=\"http://www.tei-c.org/ns/1.0\"><tei:text>"
+				+ "<tei:div><tei:p>Eins</tei:p></tei:div><tei:note><tei:p>Zwei</tei:p></tei:note><tei:p>Drei</tei:p>"
+				+ "</tei:text></tei:TEI>";
+		JCas jcas = read(new String[] {"text"}, new String[] {"note/p"}, xml).get(0);
+		assertEquals("Eins\n\nDrei", jcas.getDocumentText());
+		assertEquals("//tei:TEI[1]/tei:text[1]/tei:div[1]/tei:p[1]", JCasUtil.select(jcas, Section.class).iterator().next().getValue());
+	}
+
+	/**
+	 * The buffers of the reader are reused, a document gets only its own text and sections
+	 */
+	@Test
+	public void testSeveralDocuments() throws Exception {
+		List<JCas> documents = read(new String[] {"text/body"}, new String[] {"note", "fw"}, TEI, "<TEI><text><body><p>Kurz</p></body></text></TEI>", TEI);
+		assertEquals(BODY, documents.get(0).getDocumentText());
+		assertEquals("Kurz", documents.get(1).getDocumentText());
+		assertEquals(1, JCasUtil.select(documents.get(1), Section.class).size());
+		assertEquals("//TEI[1]/text[1]/body[1]/p[1]", JCasUtil.select(documents.get(1), Section.class).iterator().next().getValue());
+		assertEquals(BODY, documents.get(2).getDocumentText());
+		assertEquals(4, JCasUtil.select(documents.get(2), Section.class).size());
+	}
+
+	private List<JCas> read(String[] include, String[] exclude, String... xmls) throws Exception {
+		DocumentQueue queue = new DocumentQueue();
+		try {
+			for(String xml : xmls) {
+				File file = folder.newFile();
+				Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+				queue.add(file);
+			}
+			queue.endInput();
+
+			CollectionReader reader = createReader(TeiReader.class,
+					TeiReader.PARAM_DOCUMENT_QUEUE, queue.getId(),
+					TeiReader.PARAM_INCLUDE, include,
+					TeiReader.PARAM_EXCLUDE, exclude);
+			List<JCas> documents = new ArrayList<>();
+			for(int i = 0; i < xmls.length; i++) {
+				assertTrue(reader.hasNext());
+				JCas jcas = JCasFactory.createJCas();
+				reader.getNext(jcas.getCas());
+				documents.add(jcas);
+			}
+			assertFalse(reader.hasNext());
+			reader.destroy();
+			return documents;
+		} finally {
+			queue.close();
+		}
+	}
+}
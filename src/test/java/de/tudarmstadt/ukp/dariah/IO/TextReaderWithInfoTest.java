@@ -0,0 +1,185 @@
+package de.tudarmstadt.ukp.dariah.IO;
+
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dariah.pipeline.DocumentTimes;
+import de.tudarmstadt.ukp.dariah.type.DocumentChunk;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+
+public class TextReaderWithInfoTest {
+
+	/** The size of the blocks in which the reader reads the files */
+	private static final int BLOCK_SIZE = 512 * 1024;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private DocumentQueue queue;
+
+	@Before
+	public void setUp() {
+		queue = new DocumentQueue();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		queue.close();
+	}
+
+	/**
+	 * Characters of two to four bytes that start at the end of a block and continue in the next one
+	 */
+	@Test
+	public void testCharacterAcrossBlocks() throws Exception {
+		List<String> texts = new ArrayList<>();
+		for(String character : new String[] {"ä", "€", "😀"}) {
+			int length = character.getBytes(StandardCharsets.UTF_8).length;
+			for(int offset = 1; offset < length; offset++) {
+				texts.add(repeat('a', BLOCK_SIZE - offset)+character+repeat('b', 100));
+			}
+		}
+		assertEquals(texts, read(StandardCharsets.UTF_8, texts));
+	}
+
+	@Test
+	public void testEncodings() throws Exception {
+		List<String> texts = Arrays.asList("Effi Briest, Tochter des Ritterschaftsrates von Briest",
+				"Größe: "+repeat('ü', BLOCK_SIZE));
+		assertEquals(texts, read(StandardCharsets.UTF_8, texts));
+		assertEquals(texts, read(StandardCharsets.ISO_8859_1, texts));
+		assertEquals(texts, read(StandardCharsets.UTF_16, texts));
+	}
+
+	/**
+	 * A short document after a long one reuses the buffers, but gets only its own text
+	 */
+	@Test
+	public void testBuffersReused() throws Exception {
+		List<String> texts = Arrays.asList(repeat('x', 3 * BLOCK_SIZE + 17), "kurz", "", "ä");
+		assertEquals(texts, read(StandardCharsets.UTF_8, texts));
+	}
+
+	/**
+	 * Malformed input is replaced like by an InputStreamReader
+	 */
+	@Test
+	public void testMalformedInput() throws Exception {
+		byte[] bytes = {'a', (byte) 0xC3, 'b', (byte) 0xFF};
+		File file = folder.newFile("malformed.txt");
+		Files.write(file.toPath(), bytes);
+		queue.add(file);
+		queue.endInput();
+
+		CollectionReader reader = createReader(TextReaderWithInfo.class,
+				TextReaderWithInfo.PARAM_DOCUMENT_QUEUE, queue.getId());
+		JCas jcas = JCasFactory.createJCas();
+		reader.getNext(jcas.getCas());
+		assertEquals(new String(bytes, StandardCharsets.UTF_8), jcas.getDocumentText());
+		assertEquals("malformed.txt", DocumentMetaData.get(jcas).getDocumentTitle());
+		assertFalse(reader.hasNext());
+	}
+
+	/**
+	 * A document that is longer than the chunk size is split at the paragraph breaks. A
+	 * paragraph that is longer is not split, and the break at the end stays in the last chunk.
+	 */
+	@Test
+	public void testChunks() throws Exception {
+		String text = "Eins eins.\n\nZwei zwei.\n\n\n\nDrei drei drei drei drei drei.\n\nVier.\n\n";
+		File file = folder.newFile("chunked.txt");
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		File other = folder.newFile("short.txt");
+		Files.write(other.toPath(), "Kurz.\n\nText.".getBytes(StandardCharsets.UTF_8));
+		queue.add(file);
+		queue.add(other);
+		queue.endInput();
+
+		CollectionReader reader = createReader(TextReaderWithInfo.class,
+				TextReaderWithInfo.PARAM_DOCUMENT_QUEUE, queue.getId(),
+				TextReaderWithInfo.PARAM_CHUNK_SIZE, 25);
+		JCas jcas = JCasFactory.createJCas();
+		String[] chunks = {"Eins eins.\n\nZwei zwei.", "Drei drei drei drei drei drei.", "Vier.\n\n"};
+		int[] offsets = {0, 26, 58};
+		for(int i = 0; i < chunks.length; i++) {
+			assertTrue(reader.hasNext());
+			jcas.reset();
+			reader.getNext(jcas.getCas());
+			assertEquals(chunks[i], jcas.getDocumentText());
+			assertEquals("chunked.txt", DocumentMetaData.get(jcas).getDocumentTitle());
+
+			DocumentChunk chunk = JCasUtil.selectSingle(jcas, DocumentChunk.class);
+			assertEquals(i, chunk.getIndex());
+			assertEquals(chunks.length, chunk.getCount());
+			assertEquals(offsets[i], chunk.getOffset());
+			assertEquals(CompletionJournal.hash(text), chunk.getDocumentHash());
+			assertEquals(chunks[i], text.substring(chunk.getOffset(), chunk.getOffset() + chunk.getEnd()));
+		}
+
+		assertTrue(reader.hasNext());
+		jcas.reset();
+		reader.getNext(jcas.getCas());
+		assertEquals("Kurz.\n\nText.", jcas.getDocumentText());
+		assertTrue(JCasUtil.select(jcas, DocumentChunk.class).isEmpty());
+		assertFalse(reader.hasNext());
+		reader.destroy();
+	}
+
+	/**
+	 * Writes the texts to files and reads them with one reader, which measures the read and the decode step
+	 *
+	 * @return the document texts
+	 */
+	private List<String> read(Charset encoding, List<String> texts) throws Exception {
+		for(int i = 0; i < texts.size(); i++) {
+			File file = new File(folder.getRoot(), encoding.name()+"-"+i+".txt");
+			Files.write(file.toPath(), texts.get(i).getBytes(encoding));
+			queue.add(file);
+		}
+
+		CollectionReader reader = createReader(TextReaderWithInfo.class,
+				TextReaderWithInfo.PARAM_DOCUMENT_QUEUE, queue.getId(),
+				TextReaderWithInfo.PARAM_ENCODING, encoding.name());
+		JCas jcas = JCasFactory.createJCas();
+		List<String> read = new ArrayList<>();
+		for(int i = 0; i < texts.size(); i++) {
+			assertTrue(reader.hasNext());
+			jcas.reset();
+			reader.getNext(jcas.getCas());
+			read.add(jcas.getDocumentText());
+
+			for(long[] time : new long[][] {((TimedReader) reader).getReadTime(), ((TimedReader) reader).getDecodeTime()}) {
+				assertTrue(time[0] >= 0);
+				assertTrue(time[1] >= 0 || time[1] == DocumentTimes.NO_CPU_TIME);
+			}
+		}
+		reader.destroy();
+		return read;
+	}
+
+	private static String repeat(char c, int count) {
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.annotator;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
+import static org.apache.uima.fit.util.JCasUtil.select;
+import static org.apache.uima.fit.util.JCasUtil.selectCovered;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.jcas.JCas;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dariah.IO.DARIAHWriter;
+import de.tudarmstadt.ukp.dariah.IO.EffiBriestFixture;
+import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.V;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.Dependency;
+
+/**
+ * Checks that the document is parsed in the same way by the {@link ParallelParser} as by
+ * the parser it wraps
+ */
+public class ParallelParserTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static EffiBriestFixture fixture;
+
+	@BeforeClass
+	public static void loadFixture() throws Exception {
+		fixture = new EffiBriestFixture();
+	}
+
+	/**
+	 * Attaches the tokens of each sentence to its first verb, or to its first token if
+	 * it has none
+	 */
+	public static class VerbParser extends JCasAnnotator_ImplBase {
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			for(Sentence sentence : select(jCas, Sentence.class)) {
+				List<Token> tokens = selectCovered(Token.class, sentence);
+				Token head = tokens.get(0);
+				for(Token token : tokens) {
+					if(token.getPos() instanceof V) {
+						head = token;
+						break;
+					}
+				}
+				for(Token token : tokens) {
+					Dependency dependency = new Dependency(jCas, token.getBegin(), token.getEnd());
+					dependency.setGovernor(head);
+					dependency.setDependent(token);
+					dependency.setDependencyType((token == head) ? "ROOT" : token.getPos().getPosValue());
+					dependency.addToIndexes();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSameAsSerial() throws Exception {
+		AnalysisEngineDescription parser = createEngineDescription(VerbParser.class);
+		String serial = parse(parser, "serial");
+		assertTrue(serial.contains("\t-1\tROOT\t"));
+
+		for(int batchSize : new int[] {1, 7, 1000}) {
+			assertEquals("Batch size "+batchSize, serial, parse(ParallelParser.createDescription(parser, 3, batchSize), "parallel-"+batchSize));
+		}
+	}
+
+	@Test
+	public void testParserDescription() throws Exception {
+		AnalysisEngineDescription parallel = ParallelParser.createDescription(createEngineDescription(VerbParser.class), 2, 50);
+		assertEquals(VerbParser.class.getName(), ParallelParser.getParserDescription(parallel).getAnnotatorImplementationName());
+	}
+
+	/**
+	 * Parses the document without dependencies and returns the output of the writer
+	 */
+	private String parse(AnalysisEngineDescription parser, String name) throws Exception {
+		JCas jcas = fixture.createDocument(false);
+		AnalysisEngine engine = createEngine(parser);
+		try {
+			engine.process(jcas);
+			engine.collectionProcessComplete();
+		} finally {
+			engine.destroy();
+		}
+		assertEquals(select(jcas, Token.class).size(), select(jcas, Dependency.class).size());
+		return write(jcas, folder.newFolder(name));
+	}
+
+	private static String write(JCas jcas, File output) throws Exception {
+		AnalysisEngine writer = createEngine(DARIAHWriter.class,
+				DARIAHWriter.PARAM_TARGET_LOCATION, output.getPath(),
+				DARIAHWriter.PARAM_OVERWRITE, true);
+		try {
+			writer.process(jcas);
+			writer.collectionProcessComplete();
+		} finally {
+			writer.destroy();
+		}
+		return FileUtils.readFileToString(new File(output, EffiBriestFixture.NAME+".csv"), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AdmissionControllerTest {
+
+	private static final long BUDGET = 1000;
+	/** How long a document that is held back is waited for */
+	private static final long HELD_BACK_MS = 200;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutorService executor;
+	private TestController admission;
+
+	/**
+	 * Reports low memory on demand instead of watching the heap
+	 */
+	private static class TestController extends AdmissionController {
+		volatile boolean lowMemory;
+
+		TestController() {
+			// One byte of memory per byte of input
+			super(BUDGET, 1, 0.99);
+		}
+
+		@Override
+		boolean isLowMemory() {
+			return lowMemory;
+		}
+
+		synchronized void setLowMemory(boolean lowMemory) {
+			this.lowMemory = lowMemory;
+			notifyAll();
+		}
+	}
+
+	@Before
+	public void setUp() {
+		executor = Executors.newCachedThreadPool();
+		admission = new TestController();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testBudget() throws Exception {
+		assertEquals(600, admission.admit(createFile("a", 600)));
+		Future<Long> b = admitLater(createFile("b", 600));
+		assertHeldBack(b);
+
+		admission.release(600);
+		assertEquals(600, (long) b.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testLargeDocumentAlone() throws Exception {
+		// Larger than the whole budget, but nothing else is processed
+		assertEquals(1500, admission.admit(createFile("a", 1500)));
+		Future<Long> b = admitLater(createFile("b", 10));
+		assertHeldBack(b);
+
+		admission.release(1500);
+		assertEquals(10, (long) b.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testFirstInFirstOut() throws Exception {
+		admission.admit(createFile("a", 600));
+		Future<Long> b = admitLater(createFile("b", 600));
+		assertHeldBack(b);
+		// Would fit into the budget, but has to wait behind b
+		Future<Long> c = admitLater(createFile("c", 100));
+		assertHeldBack(c);
+
+		admission.release(600);
+		assertEquals(600, (long) b.get(5, TimeUnit.SECONDS));
+		assertEquals(100, (long) c.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testInterruptedWhileWaiting() throws Exception {
+		admission.admit(createFile("a", 600));
+		Future<Long> b = admitLater(createFile("b", 600));
+		assertHeldBack(b);
+		Future<Long> c = admitLater(createFile("c", 100));
+		assertHeldBack(c);
+
+		// b gives up its place in the queue, so c is not blocked by it anymore
+		b.cancel(true);
+		assertEquals(100, (long) c.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testLowMemory() throws Exception {
+		admission.setLowMemory(true);
+		// Always admitted when no other document is processed
+		admission.admit(createFile("a", 100));
+		Future<Long> b = admitLater(createFile("b", 100));
+		assertHeldBack(b);
+
+		admission.release(100);
+		assertEquals(100, (long) b.get(5, TimeUnit.SECONDS));
+		Future<Long> c = admitLater(createFile("c", 100));
+		assertHeldBack(c);
+
+		admission.setLowMemory(false);
+		assertEquals(100, (long) c.get(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * The chunks of a large document are admitted one at a time, so other documents fit beside them
+	 */
+	@Test
+	public void testChunks() throws Exception {
+		admission.setChunkSize(300);
+		File large = createFile("large", 5000);
+		assertEquals(300, admission.admit(large));
+		assertEquals(300, admission.admit(createFile("b", 300)));
+		assertEquals(300, admission.admit(large));
+		Future<Long> c = admitLater(large);
+		assertHeldBack(c);
+
+		admission.release(300);
+		assertEquals(300, (long) c.get(5, TimeUnit.SECONDS));
+	}
+
+	private File createFile(String name, long length) throws Exception {
+		File file = folder.newFile(name);
+		try(RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.setLength(length);
+		}
+		return file;
+	}
+
+	private Future<Long> admitLater(final File document) {
+		return executor.submit(new Callable<Long>() {
+			@Override
+			public Long call() throws Exception {
+				return admission.admit(document);
+			}
+		});
+	}
+
+	private static void assertHeldBack(Future<Long> admitted) throws Exception {
+		try {
+			admitted.get(HELD_BACK_MS, TimeUnit.MILLISECONDS);
+			fail("The document has been admitted");
+		} catch (TimeoutException e) {
+			assertFalse(admitted.isDone());
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RunStatisticsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMetrics() throws Exception {
+		File metricsFile = new File(folder.getRoot(), RunStatistics.METRICS_FILENAME);
+		RunStatistics statistics = new RunStatistics();
+		statistics.writeMetrics(metricsFile);
+
+		DocumentTimes times = new DocumentTimes();
+		times.setDocument("a.txt");
+		times.add("Reader", 2000000, 1500000);
+		times.add("Parser", 3000000, DocumentTimes.NO_CPU_TIME);
+		statistics.documentProcessed(times);
+		statistics.close();
+
+		List<String> lines = FileUtils.readLines(metricsFile, StandardCharsets.UTF_8);
+		assertEquals(3, lines.size());
+		assertEquals("Document\tStage\tWallMillis\tCpuMillis\tTokens\tSentences", lines.get(0));
+		assertEquals("a.txt\tReader\t2.000\t1.500\t0\t0", lines.get(1));
+		assertEquals("a.txt\tParser\t3.000\t_\t0\t0", lines.get(2));
+		assertEquals(1, statistics.getDocuments());
+	}
+}
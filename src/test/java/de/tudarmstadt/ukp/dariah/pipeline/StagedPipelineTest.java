@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright 2026
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dariah.pipeline;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReaderDescription;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.component.JCasCollectionReader_ImplBase;
+import org.apache.uima.fit.component.NoOpAnnotator;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dariah.IO.DocumentQueue;
+import de.tudarmstadt.ukp.dariah.pipeline.StagedPipeline.StageGroup;
+
+/**
+ * Checks that the stage groups end on their own when a thread in front of them fails
+ */
+public class StagedPipelineTest {
+
+	private static final int DOCUMENTS = 20;
+	private static final int FAIL_AT = 5;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static int processed;
+	private static boolean completed;
+
+	private DocumentQueue queue;
+
+	@Before
+	public void setUp() throws Exception {
+		processed = 0;
+		completed = false;
+		queue = new DocumentQueue();
+		for(int i=0; i<DOCUMENTS; i++) {
+			queue.add(new File(folder.getRoot(), i+".txt"));
+		}
+		queue.endInput();
+	}
+
+	@After
+	public void tearDown() {
+		queue.close();
+	}
+
+	/**
+	 * Takes the files from the queue and creates documents with their number as text.
+	 * Fails at the given document.
+	 */
+	public static class NumberReader extends JCasCollectionReader_ImplBase {
+		public static final String PARAM_DOCUMENT_QUEUE = "documentQueue";
+		@ConfigurationParameter(name = PARAM_DOCUMENT_QUEUE, mandatory = true)
+		private String documentQueueId;
+
+		public static final String PARAM_FAIL_AT = "failAt";
+		@ConfigurationParameter(name = PARAM_FAIL_AT, mandatory = true, defaultValue = "-1")
+		private int failAt;
+
+		private File nextFile;
+		private int read;
+
+		@Override
+		public boolean hasNext() throws IOException, CollectionException {
+			// Take the file already here, like the readers of the pipeline
+			if(nextFile == null) {
+				try {
+					nextFile = DocumentQueue.get(documentQueueId).poll();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				}
+			}
+			return nextFile != null;
+		}
+
+		@Override
+		public void getNext(JCas jCas) throws IOException, CollectionException {
+			String name = nextFile.getName();
+			nextFile = null;
+			read++;
+			int number = Integer.parseInt(name.substring(0, name.indexOf('.')));
+			if(number == failAt) {
+				throw new IllegalStateException("Reader failed at document "+number);
+			}
+			jCas.setDocumentText(Integer.toString(number));
+		}
+
+		@Override
+		public Progress[] getProgress() {
+			return new Progress[] { new ProgressImpl(read, DOCUMENTS, Progress.ENTITIES) };
+		}
+	}
+
+	/**
+	 * Kills its thread at the given document. An exception would only fail the
+	 * document, so this throws an error.
+	 */
+	public static class FailingAnnotator extends JCasAnnotator_ImplBase {
+		public static final String PARAM_FAIL_AT = "failAt";
+		@ConfigurationParameter(name = PARAM_FAIL_AT, mandatory = true)
+		private int failAt;
+
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			if(Integer.parseInt(jCas.getDocumentText()) == failAt) {
+				throw new Error("Stage failed at document "+failAt);
+			}
+		}
+	}
+
+	public static class CountingAnnotator extends JCasAnnotator_ImplBase {
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			processed++;
+		}
+
+		@Override
+		public void collectionProcessComplete() throws AnalysisEngineProcessException {
+			completed = true;
+		}
+	}
+
+	@Test
+	public void testAllDocuments() throws Exception {
+		RunStatistics statistics = new RunStatistics();
+		createPipeline(-1, -1).run(statistics);
+		assertEquals(DOCUMENTS, statistics.getDocuments());
+		assertEquals(DOCUMENTS, processed);
+		assertTrue(completed);
+	}
+
+	@Test(timeout = 30000)
+	public void testReaderFailure() throws Exception {
+		try {
+			createPipeline(FAIL_AT, -1).run(new RunStatistics());
+			fail("The failure of the reader is not reported");
+		} catch (IllegalStateException e) {
+			assertEquals("Reader failed at document "+FAIL_AT, e.getMessage());
+		}
+		assertEquals(FAIL_AT, processed);
+		assertTrue(completed);
+	}
+
+	@Test(timeout = 30000)
+	public void testStageFailure() throws Exception {
+		try {
+			createPipeline(-1, FAIL_AT).run(new RunStatistics());
+			fail("The failure of the stage is not reported");
+		} catch (Error e) {
+			assertEquals("Stage failed at document "+FAIL_AT, e.getMessage());
+		}
+		assertEquals(FAIL_AT, processed);
+		assertTrue(completed);
+	}
+
+	private StagedPipeline createPipeline(int readerFailAt, int stageFailAt) throws Exception {
+		return new StagedPipeline(4, queue, new FailureReport(folder.getRoot().getPath()),
+				createReaderDescription(NumberReader.class,
+						NumberReader.PARAM_DOCUMENT_QUEUE, queue.getId(),
+						NumberReader.PARAM_FAIL_AT, readerFailAt),
+				Arrays.asList(
+						new StageGroup("reading", 1, createEngineDescription(NoOpAnnotator.class)),
+						new StageGroup("failing", 1, createEngineDescription(FailingAnnotator.class, FailingAnnotator.PARAM_FAIL_AT, stageFailAt)),
+						new StageGroup("counting", 1, createEngineDescription(CountingAnnotator.class))));
+	}
+}